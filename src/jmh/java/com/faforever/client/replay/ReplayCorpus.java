@@ -0,0 +1,71 @@
+package com.faforever.client.replay;
+
+import com.faforever.commons.replay.QtCompress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The replays the benchmarks run on. The small replay is the test replay from {@code src/test/resources/replay}, the
+ * bigger ones are created from it by repeating its operations, so that they don't have to be checked in.
+ */
+public enum ReplayCorpus {
+  SMALL(1),
+  MEDIUM(10),
+  HUGE(100);
+
+  private static final String TEST_REPLAY = "/replay/test.fafreplay";
+
+  private final int repetitions;
+
+  ReplayCorpus(int repetitions) {
+    this.repetitions = repetitions;
+  }
+
+  /**
+   * Writes the replay file of this size to the specified directory.
+   *
+   * @return the written replay file
+   */
+  public Path write(Path directory) throws IOException {
+    Path testReplay = directory.resolve("test.fafreplay");
+    try (InputStream inputStream = ReplayCorpus.class.getResourceAsStream(TEST_REPLAY)) {
+      if (inputStream == null) {
+        throw new IOException("Test replay not found: " + TEST_REPLAY);
+      }
+      Files.copy(inputStream, testReplay);
+    }
+    if (repetitions == 1) {
+      return testReplay;
+    }
+
+    byte[] rawReplayData = new ReplayFileReaderImpl().readRawReplayData(testReplay);
+    String metadata = Files.readAllLines(testReplay, UTF_8).get(0);
+    Files.delete(testReplay);
+
+    Path replayFile = directory.resolve(name().toLowerCase() + ".fafreplay");
+    try (OutputStream outputStream = Files.newOutputStream(replayFile)) {
+      outputStream.write((metadata + "\n").getBytes(UTF_8));
+      outputStream.write(Base64.getEncoder().encode(QtCompress.qCompress(repeatOperations(rawReplayData))));
+    }
+    return replayFile;
+  }
+
+  private byte[] repeatOperations(byte[] rawReplayData) throws IOException {
+    int headerLength = (int) ReplayBodyIndex.index(new ByteArrayInputStream(rawReplayData)).getHeaderLength();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(headerLength + repetitions * (rawReplayData.length - headerLength));
+    outputStream.write(rawReplayData, 0, headerLength);
+    for (int i = 0; i < repetitions; i++) {
+      outputStream.write(rawReplayData, headerLength, rawReplayData.length - headerLength);
+    }
+    return outputStream.toByteArray();
+  }
+}
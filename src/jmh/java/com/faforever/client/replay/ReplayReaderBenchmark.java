@@ -0,0 +1,83 @@
+package com.faforever.client.replay;
+
+import com.faforever.commons.replay.QtCompress;
+import com.faforever.commons.replay.ReplayData;
+import com.faforever.commons.replay.ReplayDataParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading replay files, from their metadata up to fully parsed replay data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayReaderBenchmark {
+
+  @Param
+  public ReplayCorpus corpus;
+
+  private Path directory;
+  private Path replayFile;
+  private byte[] rawReplayData;
+  private byte[] compressedReplayData;
+  private ReplayFileReaderImpl replayFileReader;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("replay-benchmark");
+    replayFile = corpus.write(directory);
+    replayFileReader = new ReplayFileReaderImpl();
+    rawReplayData = replayFileReader.readRawReplayData(replayFile);
+    compressedReplayData = QtCompress.qCompress(rawReplayData);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    FileSystemUtils.deleteRecursively(directory);
+  }
+
+  @Benchmark
+  public LocalReplayInfo parseMetaData() {
+    return replayFileReader.parseMetaData(replayFile);
+  }
+
+  @Benchmark
+  public byte[] readRawReplayData() {
+    return replayFileReader.readRawReplayData(replayFile);
+  }
+
+  @Benchmark
+  public ReplayData parseReplay() {
+    return new ReplayDataParser(replayFile).parse();
+  }
+
+  @Benchmark
+  public byte[] qCompress() throws IOException {
+    return QtCompress.qCompress(rawReplayData);
+  }
+
+  @Benchmark
+  public byte[] qUncompress() throws IOException {
+    return QtCompress.qUncompress(compressedReplayData);
+  }
+
+  @Benchmark
+  public String parseMapFolderName() {
+    return ReplayService.parseMapFolderName(rawReplayData);
+  }
+}
@@ -0,0 +1,89 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.preferences.PreferencesService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing replay files after a game, which compresses the replay data recorded by the game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayWriterBenchmark {
+
+  @Param
+  public ReplayCorpus corpus;
+
+  private Path directory;
+  private Path rawReplayFile;
+  private Path writtenReplayFile;
+  private LocalReplayInfo replayInfo;
+  private ReplayFileWriterImpl replayFileWriter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("replay-benchmark");
+    Path replayFile = corpus.write(directory);
+
+    ReplayFileReaderImpl replayFileReader = new ReplayFileReaderImpl();
+    replayInfo = replayFileReader.parseMetaData(replayFile);
+    rawReplayFile = Files.write(directory.resolve("replay.scfareplay"), replayFileReader.readRawReplayData(replayFile));
+
+    ClientProperties clientProperties = new ClientProperties();
+    Path replaysDirectory = Files.createDirectories(directory.resolve("replays"));
+    writtenReplayFile = replaysDirectory.resolve(String.format(clientProperties.getReplay().getReplayFileFormat(),
+        replayInfo.getUid(), replayInfo.getRecorder()));
+
+    PreferencesService preferencesService = new PreferencesService(clientProperties) {
+      @Override
+      public Path getReplaysDirectory() {
+        return replaysDirectory;
+      }
+
+      @Override
+      public Path getCacheDirectory() {
+        return directory;
+      }
+    };
+    I18n i18n = new I18n(null, preferencesService) {
+      @Override
+      public Locale getUserSpecificLocale() {
+        return Locale.US;
+      }
+    };
+    replayFileWriter = new ReplayFileWriterImpl(i18n, clientProperties, preferencesService);
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteWrittenReplay() throws IOException {
+    Files.deleteIfExists(writtenReplayFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    FileSystemUtils.deleteRecursively(directory);
+  }
+
+  @Benchmark
+  public void writeReplayDataToFile() throws IOException {
+    replayFileWriter.writeReplayDataToFile(rawReplayFile, replayInfo);
+  }
+}
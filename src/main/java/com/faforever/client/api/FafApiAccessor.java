@@ -96,6 +96,12 @@ public interface FafApiAccessor {
 
   Optional<MapVersion> findMapByFolderName(String folderName);
 
+  /**
+   * Returns all map versions whose file name contains any of the specified folder names. This may include map versions
+   * whose folder name only partially matches.
+   */
+  List<MapVersion> findMapsByFolderNames(Collection<String> folderNames);
+
   List<com.faforever.client.api.dto.Player> getPlayersByIds(Collection<Integer> playerIds);
 
   GameReview createGameReview(GameReview review);
@@ -114,7 +120,7 @@ public interface FafApiAccessor {
 
   List<TutorialCategory> getTutorialCategories();
 
-  Optional<Clan> getClanByTag(String tag);
+  List<Clan> getClansByTags(Collection<String> tags);
 
   Tuple<List<Map>, java.util.Map<String, ?>> findMapsByQueryWithMeta(SearchConfig searchConfig, int count, int page);
 
@@ -72,6 +72,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
@@ -89,6 +90,8 @@ public class FafApiAccessorImpl implements FafApiAccessor, InitializingBean {
   private static final String COOP_RESULT_INCLUDES = "game.playerStats.player";
   private static final String PLAYER_INCLUDES = "globalRating,ladder1v1Rating,names";
   private static final String MOD_ENDPOINT = "/data/mod";
+  /** The file name of a map version in the vault, by its folder name. */
+  private static final String MAP_FILE_NAME_FORMAT = "maps/%s.zip";
   private static final String OAUTH_TOKEN_PATH = "/oauth/token";
 
   private final EventBus eventBus;
@@ -106,6 +109,13 @@ public class FafApiAccessorImpl implements FafApiAccessor, InitializingBean {
     return eq.query(new RSQLVisitor());
   }
 
+  /**
+   * Quotes an RSQL argument, so that folder names and the like may contain quotes, backslashes and reserved characters.
+   */
+  private static String quoteRsql(String argument) {
+    return '"' + argument.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+  }
+
   private static <T extends QBuilder<T>> QBuilder<T> qBuilder() {
     return new QBuilder<>();
   }
@@ -353,6 +363,17 @@ public class FafApiAccessorImpl implements FafApiAccessor, InitializingBean {
     return Optional.ofNullable(maps.get(0));
   }
 
+  @Override
+  public List<MapVersion> findMapsByFolderNames(Collection<String> folderNames) {
+    // File names in the vault are lower case, so this matches folder names case-insensitively
+    String filter = folderNames.stream()
+        .map(folderName -> quoteRsql(String.format(MAP_FILE_NAME_FORMAT, folderName.toLowerCase(Locale.ROOT))))
+        .collect(Collectors.joining(",", "filename=in=(", ")"));
+    return getMany("/data/mapVersion", folderNames.size(), ImmutableMap.of(
+        "filter", filter,
+        "include", "map,map.statistics,map.versions"));
+  }
+
   @Override
   public List<Player> getPlayersByIds(Collection<Integer> playerIds) {
     List<String> ids = playerIds.stream().map(String::valueOf).collect(Collectors.toList());
@@ -462,16 +483,11 @@ public class FafApiAccessorImpl implements FafApiAccessor, InitializingBean {
   }
 
   @Override
-  @Cacheable(value = CacheNames.CLAN, sync = true)
-  public Optional<Clan> getClanByTag(String tag) {
-    List<Clan> clans = getMany("/data/clan", 1, ImmutableMap.of(
+  public List<Clan> getClansByTags(Collection<String> tags) {
+    return getMany("/data/clan", tags.size(), ImmutableMap.of(
         "include", "leader,founder,memberships,memberships.player",
-        "filter", rsql(qBuilder().string("tag").eq(tag))
+        "filter", rsql(qBuilder().string("tag").in(tags))
     ));
-    if (clans.isEmpty()) {
-      return Optional.empty();
-    }
-    return Optional.ofNullable(clans.get(0));
   }
 
   @Override
@@ -203,6 +203,11 @@ public class MockFafApiAccessor implements FafApiAccessor {
     return Optional.empty();
   }
 
+  @Override
+  public List<MapVersion> findMapsByFolderNames(Collection<String> folderNames) {
+    return Collections.emptyList();
+  }
+
   @Override
   public List<com.faforever.client.api.dto.Player> getPlayersByIds(Collection<Integer> playerIds) {
     return Collections.emptyList();
@@ -249,8 +254,8 @@ public class MockFafApiAccessor implements FafApiAccessor {
   }
 
   @Override
-  public Optional<Clan> getClanByTag(String tag) {
-    return Optional.empty();
+  public List<Clan> getClansByTags(Collection<String> tags) {
+    return Collections.emptyList();
   }
 
   @Override
@@ -1,6 +1,7 @@
 package com.faforever.client.chat;
 
 import com.faforever.client.audio.AudioService;
+import com.faforever.client.chat.MentionMatcher.Span;
 import com.faforever.client.fx.Controller;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.fx.WebViewConfigurer;
@@ -19,6 +20,7 @@ import com.faforever.client.uploader.ImageUploadService;
 import com.faforever.client.user.UserService;
 import com.faforever.client.util.ConcurrentUtil;
 import com.faforever.client.util.IdenticonUtil;
+import com.faforever.client.util.ProgrammingError;
 import com.faforever.client.util.TimeService;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -63,7 +65,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import static com.faforever.client.theme.UiService.CHAT_CONTAINER;
@@ -74,7 +76,6 @@ import static com.faforever.client.theme.UiService.CHAT_TEXT_EXTENDED;
 import static com.github.nocatch.NoCatch.noCatch;
 import static com.google.common.html.HtmlEscapers.htmlEscaper;
 import static java.time.temporal.ChronoUnit.MINUTES;
-import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static javafx.scene.AccessibleAttribute.ITEM_AT_INDEX;
 
 /**
@@ -94,13 +95,6 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
   private static final org.springframework.core.io.Resource JQUERY_JS_RESOURCE = new ClassPathResource("js/jquery-2.1.4.min.js");
   private static final org.springframework.core.io.Resource JQUERY_HIGHLIGHT_JS_RESOURCE = new ClassPathResource("js/jquery.highlight-5.closure.js");
 
-  public static final String CHANNEL_NAME_GROUP_NAME = "channelName";
-  /**
-   * A pattern identifying all strings with a # in front and not starting with a number. Those are interpreted as
-   * irc-channels.
-   */
-  private static final Pattern CHANNEL_USER_PATTERN = Pattern.compile("(^|\\s)(?<" + CHANNEL_NAME_GROUP_NAME + ">#[a-zA-Z]\\S+)", CASE_INSENSITIVE);
-
   private static final String ACTION_PREFIX = "/me ";
   private static final String JOIN_PREFIX = "/join ";
   private static final String WHOIS_PREFIX = "/whois ";
@@ -139,7 +133,10 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
    * Either a channel like "#aeolus" or a user like "Visionik".
    */
   private String receiver;
-  private Pattern mentionPattern;
+  private MentionMatcher mentionMatcher;
+  /** The highlight words and friend names {@link #mentionMatcher} has been built with. */
+  private List<String> mentionMatcherHighlightWords;
+  private Set<String> mentionMatcherFriendNames;
   private ChatMessage lastMessage;
   WebEngine engine;
 
@@ -251,8 +248,6 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
   }
 
   public void initialize() {
-    mentionPattern = Pattern.compile("\\b(" + Pattern.quote(userService.getUsername()) + ")\\b", CASE_INSENSITIVE);
-
     initChatView();
 
     addFocusListeners();
@@ -575,11 +570,10 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
 
     String text = htmlEscaper().escape(chatMessage.getMessage()).replace("\\", "\\\\");
     text = convertUrlsToHyperlinks(text);
-    text = replaceChannelNamesWithHyperlinks(text);
 
-    Matcher matcher = mentionPattern.matcher(text);
-    if (matcher.find()) {
-      text = matcher.replaceAll("<span class='self'>" + matcher.group(1) + "</span>");
+    List<Span> spans = getMentionMatcher().match(text);
+    text = decorateText(text, spans);
+    if (spans.stream().anyMatch(Span::isMention)) {
       onMention(chatMessage);
     }
 
@@ -590,14 +584,60 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
         .replace("{text}", text);
   }
 
+  /**
+   * Returns the matcher for mentions and channel names. Since the matcher is expensive to build, it is only rebuilt if
+   * the highlight words or the friends have changed.
+   */
+  private MentionMatcher getMentionMatcher() {
+    List<String> highlightWords = preferencesService.getPreferences().getChat().getHighlightWords();
+    Set<String> friendNames = playerService.getFriendNames();
+    if (mentionMatcher == null
+        || !highlightWords.equals(mentionMatcherHighlightWords)
+        || !friendNames.equals(mentionMatcherFriendNames)) {
+      mentionMatcherHighlightWords = new ArrayList<>(highlightWords);
+      mentionMatcherFriendNames = friendNames;
+      mentionMatcher = MentionMatcher.create(userService.getUsername(), highlightWords, friendNames);
+    }
+    return mentionMatcher;
+  }
+
   @VisibleForTesting
-  protected String replaceChannelNamesWithHyperlinks(String text) {
-    Matcher channelMatcher = CHANNEL_USER_PATTERN.matcher(text);
-    while (channelMatcher.find()) {
-      String channelName = channelMatcher.group(CHANNEL_NAME_GROUP_NAME);
-      text = text.replace(channelName, "<a href=\"javascript:void(0);\" onClick=\"java.openChannel('" + channelName + "')\">" + channelName + "</a>");
+  protected String decorateText(String text) {
+    return decorateText(text, getMentionMatcher().match(text));
+  }
+
+  /**
+   * Replaces channel names with hyperlinks and wraps mentions into spans, in a single pass.
+   */
+  private String decorateText(String text, List<Span> spans) {
+    if (spans.isEmpty()) {
+      return text;
+    }
+    StringBuilder stringBuilder = new StringBuilder(text.length() + spans.size() * 64);
+    int position = 0;
+    for (Span span : spans) {
+      stringBuilder.append(text, position, span.getStart());
+      String spanText = text.substring(span.getStart(), span.getEnd());
+      switch (span.getType()) {
+        case CHANNEL:
+          stringBuilder.append("<a href=\"javascript:void(0);\" onClick=\"java.openChannel('").append(spanText).append("')\">")
+              .append(spanText).append("</a>");
+          break;
+        case SELF:
+          stringBuilder.append("<span class='self'>").append(spanText).append("</span>");
+          break;
+        case HIGHLIGHT:
+          stringBuilder.append("<span class='highlight-word'>").append(spanText).append("</span>");
+          break;
+        case FRIEND:
+          stringBuilder.append("<span class='friend-mention'>").append(spanText).append("</span>");
+          break;
+        default:
+          throw new ProgrammingError("Uncovered span type: " + span.getType());
+      }
+      position = span.getEnd();
     }
-    return text;
+    return stringBuilder.append(text, position, text.length()).toString();
   }
 
   protected void onMention(ChatMessage chatMessage) {
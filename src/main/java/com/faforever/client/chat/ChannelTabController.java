@@ -68,8 +68,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
@@ -79,14 +81,21 @@ import java.util.stream.Collectors;
 import static com.faforever.client.chat.ChatColorMode.DEFAULT;
 import static com.faforever.client.fx.PlatformService.URL_REGEX_PATTERN;
 import static com.faforever.client.player.SocialStatus.FOE;
+import static com.faforever.client.player.SocialStatus.FRIEND;
 import static java.util.Locale.US;
 
 @Slf4j
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ChannelTabController extends AbstractChatTabController {
+
   private static final String USER_CSS_CLASS_FORMAT = "user-%s";
 
+  /** Maximum number of players outside of the channel that are proposed when completing usernames. */
+  private static final int MAX_PLAYER_NAME_COMPLETIONS = 50;
+  /** Number of most recent speakers that are proposed first when completing usernames. */
+  private static final int RECENT_SPEAKERS_CAPACITY = 30;
+
   private static final Comparator<CategoryOrChatUserListItem> CHAT_USER_ITEM_COMPARATOR = (o1, o2) -> {
     ChatChannelUser left = o1.getUser();
     ChatChannelUser right = o2.getUser();
@@ -126,7 +135,14 @@ public class ChannelTabController extends AbstractChatTabController {
   private final Map<ChatUserCategory, CategoryOrChatUserListItem> categoriesToCategoryListItems;
 
   /** Maps usernames to all chat user list items that belong to that user. */
-  private final Map<String, List<CategoryOrChatUserListItem>> userNamesToListItems;
+  private final NavigableMap<String, List<CategoryOrChatUserListItem>> userNamesToListItems;
+
+  /**
+   * Maps the case-folded names of users who recently sent a message to the sequence number of their last message. Only
+   * accessed on the application thread.
+   */
+  private final Map<String, Long> recentSpeakers;
+  private long messageSequence;
 
   private final FilteredList<CategoryOrChatUserListItem> filteredChatUserList;
 
@@ -184,12 +200,14 @@ public class ChannelTabController extends AbstractChatTabController {
     chatUserListItems = FXCollections.observableArrayList();
     filteredChatUserList = new FilteredList<>(chatUserListItems);
 
-    autoCompletionHelper = new AutoCompletionHelper(
-        currentWord -> userNamesToListItems.keySet().stream()
-            .filter(playerName -> playerName.toLowerCase(US).startsWith(currentWord.toLowerCase()))
-            .sorted()
-            .collect(Collectors.toList())
-    );
+    // Insertion order, so that looking up speakers while completing doesn't count as speaking
+    recentSpeakers = new LinkedHashMap<>(RECENT_SPEAKERS_CAPACITY) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > RECENT_SPEAKERS_CAPACITY;
+      }
+    };
+    autoCompletionHelper = new AutoCompletionHelper(this::getUsernameCompletions);
 
     chatColorModeChangeListener = (observable, oldValue, newValue) -> {
       if (newValue != DEFAULT) {
@@ -343,10 +361,8 @@ public class ChannelTabController extends AbstractChatTabController {
     getJsObject().call("removeAllMessageColors");
   }
 
-  @VisibleForTesting
-  boolean isUsernameMatch(ChatChannelUser user) {
-    String lowerCaseSearchString = user.getUsername().toLowerCase(US);
-    return lowerCaseSearchString.contains(userSearchTextField.getText().toLowerCase(US));
+  String getUserSearchText() {
+    return userSearchTextField.getText();
   }
 
   @Override
@@ -364,6 +380,47 @@ public class ChannelTabController extends AbstractChatTabController {
     return messagesWebView;
   }
 
+  @Override
+  protected void onChatMessage(ChatMessage chatMessage) {
+    super.onChatMessage(chatMessage);
+    JavaFxUtil.runLater(() -> {
+      String username = chatMessage.getUsername().toLowerCase(US);
+      // Removing first moves the speaker to the end
+      recentSpeakers.remove(username);
+      recentSpeakers.put(username, messageSequence++);
+    });
+  }
+
+  /**
+   * Returns the names of all channel members and up to {@link #MAX_PLAYER_NAME_COMPLETIONS} other players that start
+   * with the specified prefix, ignoring case. Channel members come first, with recent speakers before friends before
+   * everyone else.
+   */
+  @VisibleForTesting
+  List<String> getUsernameCompletions(String prefix) {
+    List<String> channelMembers = new ArrayList<>(
+        userNamesToListItems.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+    // The sort is stable, so names of the same rank stay in alphabetical order
+    channelMembers.sort(Comparator.<String>comparingLong(this::getLastMessageSequence).reversed()
+        .thenComparing(this::isFriend, Comparator.reverseOrder()));
+
+    List<String> completions = new ArrayList<>(channelMembers);
+    playerService.getPlayerNamesByPrefix(prefix, MAX_PLAYER_NAME_COMPLETIONS).stream()
+        .filter(username -> !userNamesToListItems.containsKey(username))
+        .forEach(completions::add);
+    return completions;
+  }
+
+  private long getLastMessageSequence(String username) {
+    return recentSpeakers.getOrDefault(username.toLowerCase(US), -1L);
+  }
+
+  private boolean isFriend(String username) {
+    return playerService.getPlayerForUsername(username)
+        .map(player -> player.getSocialStatus() == FRIEND)
+        .orElse(false);
+  }
+
   @Override
   protected void onMention(ChatMessage chatMessage) {
     if (preferencesService.getPreferences().getNotification().getNotifyOnAtMentionOnlyEnabled()
@@ -665,6 +722,13 @@ public class ChannelTabController extends AbstractChatTabController {
     return String.format("%s%s", color, display);
   }
 
+  /**
+   * Returns a copy of the (unfiltered) user list items. Must be called on the JavaFX application thread.
+   */
+  List<CategoryOrChatUserListItem> getChatUserListItemsSnapshot() {
+    return new ArrayList<>(chatUserListItems);
+  }
+
   @SuppressWarnings("unchecked")
   void setUserFilter(Predicate<CategoryOrChatUserListItem> predicate) {
     filteredChatUserList.setPredicate(predicate);
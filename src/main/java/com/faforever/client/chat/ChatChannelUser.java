@@ -9,6 +9,7 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import lombok.ToString;
@@ -33,13 +34,17 @@ public class ChatChannelUser {
   private final ObjectProperty<Image> avatar;
   private final ObjectProperty<Clan> clan;
   private final StringProperty clanTag;
+  /** The image containing all country flags, see {@link #countryFlagViewport}. */
   private final ObjectProperty<Image> countryFlag;
+  /** The region of the user's country flag within {@link #countryFlag}. */
+  private final ObjectProperty<Rectangle2D> countryFlagViewport;
   private final StringProperty countryName;
   private final ObjectProperty<Image> mapImage;
   private final ObjectProperty<Image> statusImage;
   private final StringProperty statusTooltipText;
   private final BooleanProperty displayed;
   private final BooleanProperty populated;
+  private volatile ChatUserFilterKeys filterKeys;
 
   ChatChannelUser(String username, Color color, boolean moderator) {
     this(username, color, moderator, null);
@@ -56,6 +61,7 @@ public class ChatChannelUser {
     this.clan = new SimpleObjectProperty<>();
     this.clanTag = new SimpleStringProperty();
     this.countryFlag = new SimpleObjectProperty<>();
+    this.countryFlagViewport = new SimpleObjectProperty<>();
     this.countryName = new SimpleStringProperty();
     this.mapImage = new SimpleObjectProperty<>();
     this.statusImage = new SimpleObjectProperty<>();
@@ -185,6 +191,18 @@ public class ChatChannelUser {
     return countryFlag;
   }
 
+  public Optional<Rectangle2D> getCountryFlagViewport() {
+    return Optional.ofNullable(countryFlagViewport.get());
+  }
+
+  public void setCountryFlagViewport(Rectangle2D countryFlagViewport) {
+    this.countryFlagViewport.set(countryFlagViewport);
+  }
+
+  public ObjectProperty<Rectangle2D> countryFlagViewportProperty() {
+    return countryFlagViewport;
+  }
+
   public Optional<String> getCountryName() {
     return Optional.ofNullable(countryName.get());
   }
@@ -264,6 +282,20 @@ public class ChatChannelUser {
         && username.get().equalsIgnoreCase(((ChatChannelUser) obj).username.get());
   }
 
+  /**
+   * Returns the keys used to filter this user. The keys are cached and only recomputed if the player or one of its
+   * relevant properties changed. May be called from any thread.
+   */
+  ChatUserFilterKeys getFilterKeys() {
+    Player currentPlayer = player.get();
+    ChatUserFilterKeys keys = filterKeys;
+    if (keys == null || !keys.isUpToDate(currentPlayer)) {
+      keys = ChatUserFilterKeys.of(username.get(), currentPlayer);
+      filterKeys = keys;
+    }
+    return keys;
+  }
+
   Set<ChatUserCategory> getChatUserCategories() {
     Set<ChatUserCategory> userCategories = new HashSet<>();
 
@@ -0,0 +1,286 @@
+package com.faforever.client.chat;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.pircbotx.User;
+import org.pircbotx.hooks.Event;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.PartEvent;
+import org.pircbotx.hooks.events.QuitEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.util.Locale.US;
+
+/**
+ * Decouples the PircBotX input thread from the processing of IRC events. Events are put into a bounded queue and
+ * processed on a dedicated thread so that a slow consumer never stalls the socket reader for long.
+ * <p>
+ * JOIN, PART and QUIT events tend to arrive in storms (netsplits, server restarts). Whenever such an event is taken
+ * from the queue, further events are collected for {@code coalesceWindow} and consecutive membership events are
+ * merged into one {@link MembershipBatch}. All other events are passed on one by one, in their original order.
+ */
+@Slf4j
+class ChatEventPipeline {
+
+  /** Lag above which a warning is logged. */
+  private static final long LAG_WARN_THRESHOLD_MILLIS = 2000;
+
+  private final BlockingQueue<QueuedEvent> queue;
+  private final Duration coalesceWindow;
+  private final Consumer<Event> eventHandler;
+  private final Consumer<MembershipBatch> membershipBatchHandler;
+
+  /** Number of events processed since the pipeline has been started. */
+  private final AtomicLong processedEvents = new AtomicLong();
+  /** Number of times the producer had to wait because the queue was full. */
+  private final AtomicLong producerStalls = new AtomicLong();
+  /** Time between enqueuing and processing of the most recently processed event. */
+  private final AtomicLong lastLagMillis = new AtomicLong();
+  private final AtomicLong maxLagMillis = new AtomicLong();
+  @Getter
+  private final int capacity;
+
+  private volatile Thread thread;
+
+  ChatEventPipeline(int capacity, Duration coalesceWindow, Consumer<Event> eventHandler, Consumer<MembershipBatch> membershipBatchHandler) {
+    this.capacity = capacity;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.coalesceWindow = coalesceWindow;
+    this.eventHandler = eventHandler;
+    this.membershipBatchHandler = membershipBatchHandler;
+  }
+
+  void start() {
+    if (thread != null) {
+      return;
+    }
+    thread = new Thread(this::run, "irc-event-pipeline");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  void stop() {
+    Thread thread = this.thread;
+    this.thread = null;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    queue.clear();
+  }
+
+  /**
+   * Enqueues an event for processing. If the queue is full, this blocks until there is space again since dropping
+   * events would corrupt the channel state.
+   */
+  void submit(Event event) {
+    QueuedEvent queuedEvent = new QueuedEvent(event, System.currentTimeMillis());
+    if (queue.offer(queuedEvent)) {
+      return;
+    }
+    producerStalls.incrementAndGet();
+    log.warn("IRC event queue is full ({} events), waiting for consumer", capacity);
+    try {
+      queue.put(queuedEvent);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted while waiting for space in the IRC event queue, dropping: {}", event);
+    }
+  }
+
+  int getQueueDepth() {
+    return queue.size();
+  }
+
+  long getProcessedEvents() {
+    return processedEvents.get();
+  }
+
+  long getProducerStalls() {
+    return producerStalls.get();
+  }
+
+  long getLastLagMillis() {
+    return lastLagMillis.get();
+  }
+
+  long getMaxLagMillis() {
+    return maxLagMillis.get();
+  }
+
+  private void run() {
+    List<QueuedEvent> events = new ArrayList<>();
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        QueuedEvent first = queue.take();
+        events.add(first);
+        if (isMembershipEvent(first.getEvent())) {
+          long remainingMillis = first.getEnqueuedAt() + coalesceWindow.toMillis() - System.currentTimeMillis();
+          if (remainingMillis > 0) {
+            Thread.sleep(remainingMillis);
+          }
+        }
+        queue.drainTo(events);
+        process(events);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        log.warn("Error while processing IRC events", e);
+      } finally {
+        events.clear();
+      }
+    }
+    log.debug("IRC event pipeline terminated");
+  }
+
+  @VisibleForTesting
+  void process(List<QueuedEvent> events) {
+    MembershipBatch batch = null;
+    for (QueuedEvent queuedEvent : events) {
+      Event event = queuedEvent.getEvent();
+      if (isMembershipEvent(event)) {
+        if (batch == null) {
+          batch = new MembershipBatch();
+        }
+        batch.add(event);
+      } else {
+        if (batch != null) {
+          membershipBatchHandler.accept(batch);
+          batch = null;
+        }
+        eventHandler.accept(event);
+      }
+    }
+    if (batch != null) {
+      membershipBatchHandler.accept(batch);
+    }
+
+    if (!events.isEmpty()) {
+      updateMetrics(events);
+    }
+  }
+
+  private void updateMetrics(List<QueuedEvent> events) {
+    long lag = System.currentTimeMillis() - events.get(0).getEnqueuedAt();
+    lastLagMillis.set(lag);
+    maxLagMillis.accumulateAndGet(lag, Math::max);
+    processedEvents.addAndGet(events.size());
+
+    if (lag > LAG_WARN_THRESHOLD_MILLIS) {
+      log.warn("Processed {} IRC events with a lag of {} ms, {} events still queued", events.size(), lag, queue.size());
+    } else if (events.size() > 1) {
+      log.debug("Processed {} IRC events with a lag of {} ms, {} events still queued", events.size(), lag, queue.size());
+    }
+  }
+
+  static boolean isMembershipEvent(Event event) {
+    return event instanceof JoinEvent || event instanceof PartEvent || event instanceof QuitEvent;
+  }
+
+  @Getter
+  @VisibleForTesting
+  static class QueuedEvent {
+    private final Event event;
+    private final long enqueuedAt;
+
+    QueuedEvent(Event event, long enqueuedAt) {
+      this.event = event;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+
+  /**
+   * The net effect of a sequence of JOIN, PART and QUIT events. Applying the quits first, then the parts and then the
+   * joins yields the same state as applying all original events in order. Users are identified case-insensitively.
+   */
+  static class MembershipBatch {
+    /** Nicks of users who quit. */
+    @Getter
+    private final Set<String> quits = new LinkedHashSet<>();
+    /** Key is the channel name, values are the nicks of users who left the channel. */
+    private final Map<String, Map<String, String>> partsByChannel = new LinkedHashMap<>();
+    /** Key is the channel name, values are users who joined the channel. */
+    private final Map<String, Map<String, User>> joinsByChannel = new LinkedHashMap<>();
+
+    private void add(Event event) {
+      if (event instanceof JoinEvent) {
+        JoinEvent joinEvent = (JoinEvent) event;
+        addJoin(joinEvent.getChannel().getName(), joinEvent.getUser());
+      } else if (event instanceof PartEvent) {
+        PartEvent partEvent = (PartEvent) event;
+        addPart(partEvent.getChannel().getName(), partEvent.getUser().getNick());
+      } else if (event instanceof QuitEvent) {
+        addQuit(((QuitEvent) event).getUser().getNick());
+      }
+    }
+
+    @VisibleForTesting
+    void addJoin(String channelName, User user) {
+      String key = fold(user.getNick());
+      Map<String, String> parts = partsByChannel.get(channelName);
+      if (parts != null) {
+        parts.remove(key);
+      }
+      joinsByChannel.computeIfAbsent(channelName, name -> new LinkedHashMap<>()).put(key, user);
+    }
+
+    @VisibleForTesting
+    void addPart(String channelName, String nick) {
+      String key = fold(nick);
+      Map<String, User> joins = joinsByChannel.get(channelName);
+      if (joins != null) {
+        joins.remove(key);
+      }
+      partsByChannel.computeIfAbsent(channelName, name -> new LinkedHashMap<>()).put(key, nick);
+    }
+
+    @VisibleForTesting
+    void addQuit(String nick) {
+      String key = fold(nick);
+      joinsByChannel.values().forEach(joins -> joins.remove(key));
+      partsByChannel.values().forEach(parts -> parts.remove(key));
+      quits.add(nick);
+    }
+
+    /**
+     * Returns the nicks of the users who left a channel, by channel name.
+     */
+    Map<String, List<String>> getParts() {
+      Map<String, List<String>> parts = new LinkedHashMap<>();
+      partsByChannel.forEach((channelName, nicks) -> {
+        if (!nicks.isEmpty()) {
+          parts.put(channelName, new ArrayList<>(nicks.values()));
+        }
+      });
+      return parts;
+    }
+
+    /**
+     * Returns the users who joined a channel, by channel name.
+     */
+    Map<String, List<User>> getJoins() {
+      Map<String, List<User>> joins = new LinkedHashMap<>();
+      joinsByChannel.forEach((channelName, users) -> {
+        if (!users.isEmpty()) {
+          joins.put(channelName, new ArrayList<>(users.values()));
+        }
+      });
+      return joins;
+    }
+
+    private static String fold(String nick) {
+      return nick.toLowerCase(US);
+    }
+  }
+}
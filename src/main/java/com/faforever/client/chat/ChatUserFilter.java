@@ -0,0 +1,107 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.game.PlayerStatus;
+import com.faforever.client.player.Player;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.faforever.client.game.PlayerStatus.HOSTING;
+import static com.faforever.client.game.PlayerStatus.LOBBYING;
+
+/**
+ * An immutable snapshot of the user filter criteria. Since it does not access any UI controls, it can be evaluated on
+ * any thread.
+ */
+class ChatUserFilter implements Predicate<CategoryOrChatUserListItem> {
+
+  /** Case-folded search text, never {@code null}. */
+  private final String username;
+  /** Case-folded clan search text or {@code null} if not filtered by clan. */
+  private final String clan;
+  private final Integer minRating;
+  private final Integer maxRating;
+  private final PlayerStatus playerStatus;
+  /** Country codes to accept or {@code null} if not filtered by country. */
+  private final Set<String> countries;
+
+  ChatUserFilter(String username, String clan, Integer minRating, Integer maxRating, PlayerStatus playerStatus, Set<String> countries) {
+    this.username = username;
+    this.clan = clan;
+    this.minRating = minRating;
+    this.maxRating = maxRating;
+    this.playerStatus = playerStatus;
+    this.countries = countries;
+  }
+
+  @Override
+  public boolean test(CategoryOrChatUserListItem userListItem) {
+    if (userListItem.getCategory() != null) {
+      // The categories should display in the list independently of a filter
+      return true;
+    }
+    return test(userListItem.getUser());
+  }
+
+  boolean test(ChatChannelUser chatUser) {
+    ChatUserFilterKeys keys = chatUser.getFilterKeys();
+    return isUsernameMatch(keys)
+        && isInClan(keys)
+        && isBoundByRating(keys)
+        && isGameStatusMatch(chatUser)
+        && isCountryMatch(keys);
+  }
+
+  boolean isUsernameMatch(ChatUserFilterKeys keys) {
+    return keys.getFoldedUsername().contains(username);
+  }
+
+  boolean isInClan(ChatUserFilterKeys keys) {
+    if (clan == null) {
+      return true;
+    }
+    return keys.getFoldedClan() != null && keys.getFoldedClan().contains(clan);
+  }
+
+  boolean isBoundByRating(ChatUserFilterKeys keys) {
+    if (minRating == null && maxRating == null) {
+      return true;
+    }
+    Integer globalRating = keys.getGlobalRating();
+    if (globalRating == null) {
+      return false;
+    }
+    return (minRating == null || globalRating >= minRating)
+        && (maxRating == null || globalRating <= maxRating);
+  }
+
+  boolean isGameStatusMatch(ChatChannelUser chatUser) {
+    if (playerStatus == null) {
+      return true;
+    }
+
+    // The status changes too often to be precomputed
+    Player player = chatUser.getPlayer().orElse(null);
+    if (player == null) {
+      return false;
+    }
+
+    PlayerStatus status = player.getStatus();
+    if (playerStatus == LOBBYING) {
+      return LOBBYING == status || HOSTING == status;
+    } else {
+      return playerStatus == status;
+    }
+  }
+
+  boolean isCountryMatch(ChatUserFilterKeys keys) {
+    if (countries == null) {
+      return true;
+    }
+    return keys.getCountry() != null && countries.contains(keys.getCountry());
+  }
+
+  boolean isActive() {
+    return clan != null || minRating != null || maxRating != null || playerStatus != null || countries != null;
+  }
+}
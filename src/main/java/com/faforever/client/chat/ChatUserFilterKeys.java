@@ -0,0 +1,70 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.player.Player;
+import com.faforever.client.util.RatingUtil;
+import lombok.Getter;
+
+import static java.util.Locale.US;
+
+/**
+ * Precomputed values a chat user is filtered by, so that filtering a large channel does not need to lower-case strings
+ * or calculate ratings for every user on every keystroke.
+ */
+@Getter
+final class ChatUserFilterKeys {
+
+  private final String foldedUsername;
+  /** The case-folded clan tag or {@code null} if the user has no player or the player is not in a clan. */
+  private final String foldedClan;
+  /** The country code or {@code null} if the user has no player. */
+  private final String country;
+  /** The global rating or {@code null} if the user has no player. */
+  private final Integer globalRating;
+
+  /** The values the keys have been computed from, used to detect when they need to be recomputed. */
+  private final Player player;
+  private final String clan;
+  private final float globalRatingMean;
+  private final float globalRatingDeviation;
+
+  private ChatUserFilterKeys(String username, Player player) {
+    this.player = player;
+    this.foldedUsername = username.toLowerCase(US);
+    if (player == null) {
+      clan = null;
+      foldedClan = null;
+      country = null;
+      globalRatingMean = 0;
+      globalRatingDeviation = 0;
+      globalRating = null;
+    } else {
+      clan = player.getClan();
+      foldedClan = clan == null ? null : clan.toLowerCase(US);
+      country = player.getCountry();
+      globalRatingMean = player.getGlobalRatingMean();
+      globalRatingDeviation = player.getGlobalRatingDeviation();
+      globalRating = RatingUtil.getRating(globalRatingMean, globalRatingDeviation);
+    }
+  }
+
+  static ChatUserFilterKeys of(String username, Player player) {
+    return new ChatUserFilterKeys(username, player);
+  }
+
+  /**
+   * Checks whether these keys still reflect the specified player. This is a cheap check that does not allocate.
+   */
+  boolean isUpToDate(Player player) {
+    if (player != this.player) {
+      return false;
+    }
+    if (player == null) {
+      return true;
+    }
+    // Strings are compared by identity on purpose; they are only replaced when a player is updated
+    return player.getClan() == clan
+        && player.getCountry() == country
+        && player.getGlobalRatingMean() == globalRatingMean
+        && player.getGlobalRatingDeviation() == globalRatingDeviation;
+  }
+}
@@ -295,6 +295,7 @@ public class ChatUserItemController implements Controller<Node> {
     JavaFxUtil.unbind(avatarImageView.imageProperty());
     JavaFxUtil.unbind(clanMenu.textProperty());
     JavaFxUtil.unbind(countryImageView.imageProperty());
+    JavaFxUtil.unbind(countryImageView.viewportProperty());
     JavaFxUtil.unbind(playerMapImage.imageProperty());
     JavaFxUtil.unbind(playerStatusIndicator.imageProperty());
     JavaFxUtil.unbind(avatarTooltip.textProperty());
@@ -312,6 +313,7 @@ public class ChatUserItemController implements Controller<Node> {
       JavaFxUtil.bind(usernameLabel.textProperty(), this.chatUser.usernameProperty());
       JavaFxUtil.bind(avatarImageView.imageProperty(), this.chatUser.avatarProperty());
       JavaFxUtil.bind(clanMenu.textProperty(), this.chatUser.clanTagProperty());
+      JavaFxUtil.bind(countryImageView.viewportProperty(), this.chatUser.countryFlagViewportProperty());
       JavaFxUtil.bind(countryImageView.imageProperty(), this.chatUser.countryFlagProperty());
       JavaFxUtil.bind(countryTooltip.textProperty(), this.chatUser.countryNameProperty());
       JavaFxUtil.bind(playerMapImage.imageProperty(), this.chatUser.mapImageProperty());
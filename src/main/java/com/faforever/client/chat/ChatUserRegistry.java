@@ -0,0 +1,144 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.fx.JavaFxUtil;
+import javafx.collections.MapChangeListener;
+import javafx.collections.ObservableMap;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static java.util.Locale.US;
+import static javafx.collections.FXCollections.observableHashMap;
+
+/**
+ * Thread safe registry of chat users, organized per channel. Usernames and channel names are case-folded, so lookups
+ * are case insensitive. The registry may be modified from any thread; changes to {@link #chatUsersByName} are batched
+ * and applied on the JavaFX application thread.
+ */
+class ChatUserRegistry {
+
+  /** Key is the case-folded channel name, the value maps case-folded usernames to users. */
+  private final Map<String, Map<String, ChatChannelUser>> chatUsersByChannel = new ConcurrentHashMap<>();
+  /** Key is the case-folded username, the value contains the (original) names of the channels the user is in. */
+  private final Map<String, Set<String>> channelNamesByUsername = new ConcurrentHashMap<>();
+  /**
+   * Contains one entry per user that is in at least one channel. Must only be accessed on the JavaFX application
+   * thread.
+   */
+  private final ObservableMap<String, ChatChannelUser> chatUsersByName = observableHashMap();
+  private final Queue<Runnable> pendingChanges = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  ChatChannelUser get(String channelName, String username) {
+    Map<String, ChatChannelUser> chatUsers = chatUsersByChannel.get(fold(channelName));
+    if (chatUsers == null) {
+      return null;
+    }
+    return chatUsers.get(fold(username));
+  }
+
+  /**
+   * Adds the specified user to the specified channel unless a user with the same name is already in it.
+   *
+   * @return the user that was already in the channel, or {@code null} if the specified user has been added
+   */
+  ChatChannelUser putIfAbsent(String channelName, ChatChannelUser chatChannelUser) {
+    String username = chatChannelUser.getUsername();
+    AtomicReference<ChatChannelUser> previous = new AtomicReference<>();
+
+    // All modifications concerning one user are serialized by computing on the user's key
+    channelNamesByUsername.compute(fold(username), (key, channelNames) -> {
+      previous.set(chatUsersByChannel.computeIfAbsent(fold(channelName), name -> new ConcurrentHashMap<>())
+          .putIfAbsent(key, chatChannelUser));
+      if (previous.get() != null) {
+        return channelNames;
+      }
+      if (channelNames == null) {
+        channelNames = new HashSet<>();
+        enqueueChange(() -> chatUsersByName.put(username, chatChannelUser));
+      }
+      channelNames.add(channelName);
+      return channelNames;
+    });
+    return previous.get();
+  }
+
+  ChatChannelUser remove(String channelName, String username) {
+    AtomicReference<ChatChannelUser> removed = new AtomicReference<>();
+
+    channelNamesByUsername.computeIfPresent(fold(username), (key, channelNames) -> {
+      Map<String, ChatChannelUser> chatUsers = chatUsersByChannel.get(fold(channelName));
+      if (chatUsers == null) {
+        return channelNames;
+      }
+      removed.set(chatUsers.remove(key));
+      if (removed.get() == null) {
+        return channelNames;
+      }
+      channelNames.removeIf(name -> name.equalsIgnoreCase(channelName));
+      if (!channelNames.isEmpty()) {
+        return channelNames;
+      }
+      ChatChannelUser lastChatUser = removed.get();
+      enqueueChange(() -> chatUsersByName.remove(lastChatUser.getUsername()));
+      return null;
+    });
+    return removed.get();
+  }
+
+  /**
+   * Returns a copy of the names of all channels the specified user is in.
+   */
+  Set<String> getChannelNames(String username) {
+    Set<String> channelNames = new HashSet<>();
+    channelNamesByUsername.computeIfPresent(fold(username), (key, names) -> {
+      channelNames.addAll(names);
+      return names;
+    });
+    return channelNames;
+  }
+
+  /**
+   * Returns a snapshot of all users of all channels.
+   */
+  Collection<ChatChannelUser> getAllUsers() {
+    return chatUsersByChannel.values().stream()
+        .flatMap(chatUsers -> chatUsers.values().stream())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Adds a listener that is notified on the JavaFX application thread whenever a user joins their first or leaves
+   * their last channel. The map is keyed by username.
+   */
+  void addChatUsersByNameListener(MapChangeListener<String, ChatChannelUser> listener) {
+    JavaFxUtil.addListener(chatUsersByName, listener);
+  }
+
+  private void enqueueChange(Runnable change) {
+    pendingChanges.add(change);
+    if (flushScheduled.compareAndSet(false, true)) {
+      JavaFxUtil.runLater(this::flushChanges);
+    }
+  }
+
+  private void flushChanges() {
+    flushScheduled.set(false);
+    Runnable change;
+    while ((change = pendingChanges.poll()) != null) {
+      change.run();
+    }
+  }
+
+  private static String fold(String name) {
+    return name.toLowerCase(US);
+  }
+}
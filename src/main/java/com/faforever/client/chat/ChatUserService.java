@@ -1,5 +1,6 @@
 package com.faforever.client.chat;
 
+import com.faforever.client.chat.CountryFlagService.CountryFlag;
 import com.faforever.client.chat.avatar.AvatarService;
 import com.faforever.client.chat.event.ChatUserGameChangeEvent;
 import com.faforever.client.chat.event.ChatUserPopulateEvent;
@@ -18,7 +19,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -80,13 +80,12 @@ public class ChatUserService implements InitializingBean {
   public void populateCountry(ChatChannelUser chatChannelUser) {
     if (chatChannelUser.getCountryFlag().isEmpty()) {
       chatChannelUser.getPlayer()
-          .ifPresent(player -> {
-            Optional<Image> countryFlag = countryFlagService.loadCountryFlag(player.getCountry());
-            Platform.runLater(() -> {
-              chatChannelUser.setCountryFlag(countryFlag.orElse(null));
-              chatChannelUser.setCountryName(i18n.getCountryNameLocalized(player.getCountry()));
-            });
-          });
+          .ifPresent(player -> countryFlagService.getCountryFlag(player.getCountry())
+              .thenAccept(countryFlag -> Platform.runLater(() -> {
+                chatChannelUser.setCountryFlagViewport(countryFlag.map(CountryFlag::getViewport).orElse(null));
+                chatChannelUser.setCountryFlag(countryFlag.map(CountryFlag::getImage).orElse(null));
+                chatChannelUser.setCountryName(i18n.getCountryNameLocalized(player.getCountry()));
+              })));
     }
   }
 
@@ -129,6 +128,7 @@ public class ChatUserService implements InitializingBean {
       chatChannelUser.setClanTag(null);
       chatChannelUser.setAvatar(null);
       chatChannelUser.setCountryFlag(null);
+      chatChannelUser.setCountryFlagViewport(null);
       chatChannelUser.setCountryName(null);
       chatChannelUser.setStatus(null);
       chatChannelUser.setMapImage(null);
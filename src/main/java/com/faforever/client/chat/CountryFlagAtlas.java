@@ -0,0 +1,97 @@
+package com.faforever.client.chat;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * All country flags packed into one image. A single flag is shown by setting its viewport on an {@link
+ * javafx.scene.image.ImageView}, so that all image views share the same image (and texture) instead of one image per
+ * flag.
+ */
+@Slf4j
+class CountryFlagAtlas {
+
+  private static final int COLUMNS = 16;
+  /** Transparent space between flags so that smoothing at their edges doesn't pick up pixels of neighboring flags. */
+  private static final int PADDING = 1;
+
+  private final Image image;
+  /** Maps lower case flag names (file names without extension) to the flag's position in {@link #image}. */
+  private final Map<String, Rectangle2D> viewportsByName;
+
+  private CountryFlagAtlas(Image image, Map<String, Rectangle2D> viewportsByName) {
+    this.image = image;
+    this.viewportsByName = viewportsByName;
+  }
+
+  /**
+   * Packs all PNG images matching the specified resource pattern, like {@code classpath:/images/flags/*.png}.
+   */
+  static CountryFlagAtlas load(String locationPattern) throws IOException {
+    Resource[] resources = new PathMatchingResourcePatternResolver().getResources(locationPattern);
+
+    List<String> names = new ArrayList<>(resources.length);
+    List<Image> flags = new ArrayList<>(resources.length);
+    int cellWidth = 0;
+    int cellHeight = 0;
+    for (Resource resource : resources) {
+      String filename = resource.getFilename();
+      if (filename == null) {
+        continue;
+      }
+      Image flag;
+      try (InputStream inputStream = resource.getInputStream()) {
+        flag = new Image(inputStream);
+      }
+      if (flag.isError()) {
+        log.warn("Could not load country flag: {}", resource, flag.getException());
+        continue;
+      }
+      names.add(filename.substring(0, filename.lastIndexOf('.')).toLowerCase(Locale.US));
+      flags.add(flag);
+      cellWidth = Math.max(cellWidth, (int) flag.getWidth() + PADDING);
+      cellHeight = Math.max(cellHeight, (int) flag.getHeight() + PADDING);
+    }
+
+    int columns = Math.max(1, Math.min(COLUMNS, flags.size()));
+    int rows = Math.max(1, (flags.size() + columns - 1) / columns);
+    WritableImage atlas = new WritableImage(Math.max(1, columns * cellWidth), Math.max(1, rows * cellHeight));
+    PixelWriter pixelWriter = atlas.getPixelWriter();
+
+    Map<String, Rectangle2D> viewportsByName = new HashMap<>();
+    for (int i = 0; i < flags.size(); i++) {
+      Image flag = flags.get(i);
+      int x = (i % columns) * cellWidth;
+      int y = (i / columns) * cellHeight;
+      int width = (int) flag.getWidth();
+      int height = (int) flag.getHeight();
+      pixelWriter.setPixels(x, y, width, height, flag.getPixelReader(), 0, 0);
+      viewportsByName.put(names.get(i), new Rectangle2D(x, y, width, height));
+    }
+
+    log.debug("Packed {} country flags into an image of {}x{} pixels", flags.size(), atlas.getWidth(), atlas.getHeight());
+    return new CountryFlagAtlas(atlas, viewportsByName);
+  }
+
+  Image getImage() {
+    return image;
+  }
+
+  Optional<Rectangle2D> getViewport(String name) {
+    return Optional.ofNullable(viewportsByName.get(name.toLowerCase(Locale.US)));
+  }
+}
@@ -1,13 +1,19 @@
 package com.faforever.client.chat;
 
+import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.i18n.I18n;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
@@ -18,10 +24,12 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
-import static com.faforever.client.config.CacheNames.COUNTRY_FLAGS;
 import static com.faforever.client.config.CacheNames.COUNTRY_NAMES;
+import static com.github.nocatch.NoCatch.noCatch;
 
 @Lazy
 @Service
@@ -31,16 +39,56 @@ public class CountryFlagService {
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private static final Collection<String> NON_COUNTRY_CODES = Arrays.asList("A1", "A2", "");
+  private static final String FLAGS_LOCATION_PATTERN = "classpath:/images/flags/*.png";
+
   private final I18n i18n;
+  private final ExecutorService executorService;
+
+  private CompletableFuture<CountryFlagAtlas> countryFlagAtlas;
 
-  @Cacheable(value = COUNTRY_FLAGS, sync = true)
-  public Optional<Image> loadCountryFlag(final String country) {
+  /**
+   * Starts building the atlas of all flags once the client has started, so that it is usually ready before the first
+   * flag is shown.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    getAtlas();
+  }
+
+  /**
+   * Returns the flag of the specified country, which is a region of an image that contains the flags of all countries.
+   * The returned future completes once that image has been built, without blocking the calling thread. It completes
+   * with an empty optional if there is no flag for the country.
+   */
+  public CompletableFuture<Optional<CountryFlag>> getCountryFlag(String country) {
     if (country == null) {
-      return Optional.empty();
+      return CompletableFuture.completedFuture(Optional.empty());
     }
+    return getAtlas().handle((atlas, throwable) -> atlas == null
+        ? Optional.empty()
+        : atlas.getViewport(getFlagName(country)).map(viewport -> new CountryFlag(atlas.getImage(), viewport)));
+  }
+
+  /**
+   * Shows the flag of the specified country in the specified image view as soon as it is available. Leaves the image
+   * view untouched if there is no flag for the country.
+   */
+  public void showCountryFlag(ImageView imageView, String country) {
+    getCountryFlag(country).thenAccept(countryFlag -> countryFlag.ifPresent(flag -> JavaFxUtil.runLater(() -> {
+      imageView.setImage(flag.getImage());
+      imageView.setViewport(flag.getViewport());
+    })));
+  }
 
-    return getCountryFlagUrl(country)
-        .map(url -> new Image(url.toString(), true));
+  private synchronized CompletableFuture<CountryFlagAtlas> getAtlas() {
+    if (countryFlagAtlas == null) {
+      countryFlagAtlas = CompletableFuture.supplyAsync(() -> noCatch(() -> CountryFlagAtlas.load(FLAGS_LOCATION_PATTERN)), executorService);
+      countryFlagAtlas.exceptionally(throwable -> {
+        logger.warn("Country flags could not be loaded", throwable);
+        return null;
+      });
+    }
+    return countryFlagAtlas;
   }
 
   @Cacheable(value = COUNTRY_NAMES, sync = true)
@@ -69,18 +117,26 @@ public class CountryFlagService {
     if (country == null) {
       return Optional.empty();
     }
-    String imageName;
-    if (NON_COUNTRY_CODES.contains(country)) {
-      imageName = "earth";
-    } else {
-      imageName = country.toLowerCase();
-    }
-
-    String path = "/images/flags/" + imageName + ".png";
+    String path = "/images/flags/" + getFlagName(country) + ".png";
     ClassPathResource classPathResource = new ClassPathResource(path);
     if (!classPathResource.exists()) {
       return Optional.empty();
     }
     return Optional.of(classPathResource.getURL());
   }
+
+  private String getFlagName(String country) {
+    if (NON_COUNTRY_CODES.contains(country)) {
+      return "earth";
+    }
+    return country.toLowerCase();
+  }
+
+  @Value
+  public static class CountryFlag {
+    /** The image that contains the flags of all countries. */
+    Image image;
+    /** The region of this flag within {@link #image}. */
+    Rectangle2D viewport;
+  }
 }
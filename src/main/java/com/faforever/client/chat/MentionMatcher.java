@@ -0,0 +1,226 @@
+package com.faforever.client.chat;
+
+import lombok.Value;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds mentions of the own username, of user-defined highlight words, of friends' names and of channel names (like
+ * {@code #aeolus}) in a chat message. All patterns are matched case-insensitively in a single pass over the text using
+ * an Aho-Corasick automaton.
+ * <p>
+ * Words only match at word boundaries. Channel names must be preceded by whitespace or the beginning of the text, must
+ * start with a letter and span until the next whitespace. Since messages are matched after they have been converted to
+ * HTML, anything inside of HTML tags is ignored.
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public class MentionMatcher {
+
+  /** Types in order of precedence, if a word is registered with several types. */
+  public enum SpanType {
+    SELF, HIGHLIGHT, FRIEND, CHANNEL
+  }
+
+  @Value
+  public static class Span {
+    int start;
+    int end;
+    SpanType type;
+
+    /**
+     * Whether this span should notify the user.
+     */
+    public boolean isMention() {
+      return type == SpanType.SELF || type == SpanType.HIGHLIGHT;
+    }
+  }
+
+  private static final Comparator<Span> LEFTMOST_LONGEST = Comparator.comparingInt(Span::getStart)
+      .thenComparing(Comparator.comparingInt(Span::getEnd).reversed());
+
+  private final Node root;
+
+  private MentionMatcher(Node root) {
+    this.root = root;
+  }
+
+  public static MentionMatcher create(String ownUsername, Collection<String> highlightWords, Collection<String> friendNames) {
+    Node root = new Node();
+    if (ownUsername != null) {
+      addWord(root, ownUsername, SpanType.SELF);
+    }
+    highlightWords.forEach(word -> addWord(root, word, SpanType.HIGHLIGHT));
+    friendNames.forEach(name -> addWord(root, name, SpanType.FRIEND));
+    buildFailureLinks(root);
+    return new MentionMatcher(root);
+  }
+
+  /**
+   * Returns all non-overlapping spans in the specified text, ordered by their position. If two spans overlap, the one
+   * starting first (or, if they start at the same position, the longer one) wins.
+   */
+  public List<Span> match(CharSequence text) {
+    List<Span> candidates = new ArrayList<>();
+    Node node = root;
+    boolean insideTag = false;
+    int length = text.length();
+
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (insideTag) {
+        if (c == '>') {
+          insideTag = false;
+        }
+        continue;
+      }
+      if (c == '<') {
+        insideTag = true;
+        node = root;
+        continue;
+      }
+
+      if (c == '#' && (i == 0 || Character.isWhitespace(text.charAt(i - 1)))) {
+        int end = findChannelNameEnd(text, i);
+        if (end > 0) {
+          candidates.add(new Span(i, end, SpanType.CHANNEL));
+        }
+      }
+
+      node = node.next(Character.toLowerCase(c));
+      for (Node output = node.wordType != null ? node : node.outputLink; output != null; output = output.outputLink) {
+        int start = i + 1 - output.depth;
+        if (isWordBoundary(text, start - 1) && isWordBoundary(text, i + 1)) {
+          candidates.add(new Span(start, i + 1, output.wordType));
+        }
+      }
+    }
+
+    return selectNonOverlapping(candidates);
+  }
+
+  private static List<Span> selectNonOverlapping(List<Span> candidates) {
+    if (candidates.size() <= 1) {
+      return candidates;
+    }
+    candidates.sort(LEFTMOST_LONGEST);
+    List<Span> result = new ArrayList<>();
+    int lastEnd = 0;
+    for (Span candidate : candidates) {
+      if (candidate.getStart() >= lastEnd) {
+        result.add(candidate);
+        lastEnd = candidate.getEnd();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the exclusive end index of the channel name starting at {@code start} or {@code -1} if there is no valid
+   * channel name.
+   */
+  private static int findChannelNameEnd(CharSequence text, int start) {
+    int length = text.length();
+    if (start + 2 >= length || !isAsciiLetter(text.charAt(start + 1))) {
+      return -1;
+    }
+    int end = start + 2;
+    while (end < length && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '<') {
+      end++;
+    }
+    // At least one character has to follow the first letter
+    return end > start + 2 ? end : -1;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isWordBoundary(CharSequence text, int index) {
+    if (index < 0 || index >= text.length()) {
+      return true;
+    }
+    char c = text.charAt(index);
+    return !Character.isLetterOrDigit(c) && c != '_';
+  }
+
+  private static void addWord(Node root, String word, SpanType type) {
+    if (word == null || word.isBlank()) {
+      return;
+    }
+    Node node = root;
+    for (int i = 0; i < word.length(); i++) {
+      char c = Character.toLowerCase(word.charAt(i));
+      Node parent = node;
+      node = node.children.computeIfAbsent(c, character -> new Node(parent.depth + 1));
+    }
+    if (node.wordType == null || type.ordinal() < node.wordType.ordinal()) {
+      node.wordType = type;
+    }
+  }
+
+  private static void buildFailureLinks(Node root) {
+    Queue<Node> queue = new ArrayDeque<>();
+    root.failure = root;
+    for (Node child : root.children.values()) {
+      child.failure = root;
+      queue.add(child);
+    }
+
+    while (!queue.isEmpty()) {
+      Node node = queue.poll();
+      for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+        char c = entry.getKey();
+        Node child = entry.getValue();
+
+        Node failure = node.failure;
+        while (failure != root && !failure.children.containsKey(c)) {
+          failure = failure.failure;
+        }
+        Node failureTarget = failure.children.get(c);
+        child.failure = failureTarget != null && failureTarget != child ? failureTarget : root;
+        child.outputLink = child.failure.wordType != null ? child.failure : child.failure.outputLink;
+        queue.add(child);
+      }
+    }
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final int depth;
+    private Node failure;
+    /** The next node in the failure chain that terminates a word. */
+    private Node outputLink;
+    /** If this node terminates a word, the word's type. */
+    private SpanType wordType;
+
+    private Node() {
+      this(0);
+    }
+
+    private Node(int depth) {
+      this.depth = depth;
+    }
+
+    private Node next(char c) {
+      Node node = this;
+      while (true) {
+        Node child = node.children.get(c);
+        if (child != null) {
+          return child;
+        }
+        if (node.failure == node || node.failure == null) {
+          return node;
+        }
+        node = node.failure;
+      }
+    }
+  }
+}
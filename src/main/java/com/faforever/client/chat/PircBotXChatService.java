@@ -1,6 +1,7 @@
 package com.faforever.client.chat;
 
 import com.faforever.client.FafClientApplication;
+import com.faforever.client.chat.ChatEventPipeline.MembershipBatch;
 import com.faforever.client.chat.event.ChatMessageEvent;
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.config.ClientProperties.Irc;
@@ -24,7 +25,6 @@ import com.faforever.client.user.UserService;
 import com.faforever.client.user.event.LoggedOutEvent;
 import com.faforever.client.user.event.LoginSuccessEvent;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.hash.Hashing;
@@ -53,14 +53,11 @@ import org.pircbotx.hooks.Event;
 import org.pircbotx.hooks.events.ActionEvent;
 import org.pircbotx.hooks.events.ConnectEvent;
 import org.pircbotx.hooks.events.DisconnectEvent;
-import org.pircbotx.hooks.events.JoinEvent;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.pircbotx.hooks.events.MotdEvent;
 import org.pircbotx.hooks.events.NoticeEvent;
 import org.pircbotx.hooks.events.OpEvent;
-import org.pircbotx.hooks.events.PartEvent;
 import org.pircbotx.hooks.events.PrivateMessageEvent;
-import org.pircbotx.hooks.events.QuitEvent;
 import org.pircbotx.hooks.events.TopicEvent;
 import org.pircbotx.hooks.events.UserListEvent;
 import org.pircbotx.hooks.types.GenericEvent;
@@ -74,11 +71,11 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -91,7 +88,6 @@ import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Locale.US;
 import static javafx.collections.FXCollections.observableHashMap;
-import static javafx.collections.FXCollections.observableMap;
 import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
 
 @Lazy
@@ -125,8 +121,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
    * Maps channels by name.
    */
   private ObservableMap<String, Channel> channels = observableHashMap();
-  /** Key is the result of {@link #mapKey(String, String)}. */
-  private ObservableMap<String, ChatChannelUser> chatChannelUsersByChannelAndName = observableMap(new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+  private final ChatUserRegistry chatUserRegistry = new ChatUserRegistry();
   private SimpleIntegerProperty unreadMessagesCount = new SimpleIntegerProperty();
 
   private Configuration configuration;
@@ -134,6 +129,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
   /** Called when the IRC server has confirmed our identity. */
   private CompletableFuture<Void> identifiedFuture = new CompletableFuture<>();
   private Task<Void> connectionTask;
+  private ChatEventPipeline chatEventPipeline;
   /**
    * A list of channels the server wants us to join.
    */
@@ -162,9 +158,6 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     addEventListener(ConnectEvent.class, event -> connectionState.set(ConnectionState.CONNECTED));
     addEventListener(DisconnectEvent.class, event -> connectionState.set(ConnectionState.DISCONNECTED));
     addEventListener(UserListEvent.class, event -> onChatUserList(event.getChannel().getName(), chatUsers(event.getUsers(), event.getChannel().getName())));
-    addEventListener(JoinEvent.class, this::onJoinEvent);
-    addEventListener(PartEvent.class, event -> onChatUserLeftChannel(event.getChannel().getName(), event.getUser().getNick()));
-    addEventListener(QuitEvent.class, event -> onChatUserQuit(event.getUser().getNick()));
     addEventListener(TopicEvent.class, event -> getOrCreateChannel(event.getChannel().getName()).setTopic(event.getTopic()));
     addEventListener(MessageEvent.class, this::onMessage);
     addEventListener(ActionEvent.class, this::onAction);
@@ -172,30 +165,32 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     addEventListener(MotdEvent.class, this::onMotd);
     addEventListener(OpEvent.class, this::onOp);
 
+    Irc irc = clientProperties.getIrc();
+    chatEventPipeline = new ChatEventPipeline(irc.getEventQueueCapacity(), irc.getMembershipCoalesceWindow(), this::dispatchEvent, this::onMembershipBatch);
+    chatEventPipeline.start();
+
     ChatPrefs chatPrefs = preferencesService.getPreferences().getChat();
     JavaFxUtil.addListener(chatPrefs.userToColorProperty(),
         (MapChangeListener<? super String, ? super Color>) change -> preferencesService.store()
     );
     JavaFxUtil.addListener(chatPrefs.chatColorModeProperty(), (observable, oldValue, newValue) -> {
-      synchronized (chatChannelUsersByChannelAndName) {
-        switch (newValue) {
-          case CUSTOM:
-            chatChannelUsersByChannelAndName.values().stream()
-                .filter(chatUser -> chatPrefs.getUserToColor().containsKey(userToColorKey(chatUser.getUsername())))
-                .forEach(chatUser -> chatUser.setColor(chatPrefs.getUserToColor().get(userToColorKey(chatUser.getUsername()))));
-            break;
-
-          case RANDOM:
-            for (ChatChannelUser chatUser : chatChannelUsersByChannelAndName.values()) {
-              chatUser.setColor(ColorGeneratorUtil.generateRandomColor(chatUser.getUsername().hashCode()));
-            }
-            break;
-
-          default:
-            for (ChatChannelUser chatUser : chatChannelUsersByChannelAndName.values()) {
-              chatUser.setColor(null);
-            }
-        }
+      switch (newValue) {
+        case CUSTOM:
+          chatUserRegistry.getAllUsers().stream()
+              .filter(chatUser -> chatPrefs.getUserToColor().containsKey(userToColorKey(chatUser.getUsername())))
+              .forEach(chatUser -> chatUser.setColor(chatPrefs.getUserToColor().get(userToColorKey(chatUser.getUsername()))));
+          break;
+
+        case RANDOM:
+          for (ChatChannelUser chatUser : chatUserRegistry.getAllUsers()) {
+            chatUser.setColor(ColorGeneratorUtil.generateRandomColor(chatUser.getUsername().hashCode()));
+          }
+          break;
+
+        default:
+          for (ChatChannelUser chatUser : chatUserRegistry.getAllUsers()) {
+            chatUser.setColor(null);
+          }
       }
     });
   }
@@ -212,12 +207,6 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     return username.toLowerCase(US);
   }
 
-  private void onJoinEvent(JoinEvent event) {
-    User user = Objects.requireNonNull(event.getUser());
-    log.debug("User joined channel: {}", user);
-    onJoinEvent(event.getChannel().getName(), getOrCreateChatUser(user, event.getChannel().getName()));
-  }
-
   private ChatChannelUser getOrCreateChatUser(User user, String channelName) {
     String username = user.getNick() != null ? user.getNick() : user.getLogin();
 
@@ -324,12 +313,17 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     getOrCreateChannel(channelName).addUsers(users);
   }
 
-  private List<ChatChannelUser> chatUsers(ImmutableSortedSet<User> users, String channel) {
+  private List<ChatChannelUser> chatUsers(Collection<User> users, String channel) {
     return users.stream().map(user -> getOrCreateChatUser(user, channel)).collect(Collectors.toList());
   }
 
-  private void onJoinEvent(String channelName, ChatChannelUser chatUser) {
-    getOrCreateChannel(channelName).addUser(chatUser);
+  private void onMembershipBatch(MembershipBatch batch) {
+    batch.getQuits().forEach(this::onChatUserQuit);
+    batch.getParts().forEach((channelName, usernames) -> usernames.forEach(username -> onChatUserLeftChannel(channelName, username)));
+    batch.getJoins().forEach((channelName, users) -> {
+      log.debug("{} users joined channel: {}", users.size(), channelName);
+      onChatUserList(channelName, chatUsers(users, channelName));
+    });
   }
 
   private void onChatUserLeftChannel(String channelName, String username) {
@@ -342,9 +336,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
         channels.remove(channelName);
       }
     }
-    synchronized (chatChannelUsersByChannelAndName) {
-      chatChannelUsersByChannelAndName.remove(mapKey(username, channelName));
-    }
+    chatUserRegistry.remove(channelName, username);
     // The server doesn't yet tell us when a user goes offline, so we have to rely on the user leaving IRC.
     if (defaultChannelName.equals(channelName)) {
       eventBus.post(new UserOfflineEvent(username));
@@ -352,8 +344,19 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
   }
 
   private void onChatUserQuit(String username) {
+    for (String channelName : chatUserRegistry.getChannelNames(username)) {
+      if (isChannelJoined(channelName)) {
+        onChatUserLeftChannel(channelName, username);
+      } else {
+        // Private chats are registered under the name of the chat partner and have no channel
+        chatUserRegistry.remove(channelName, username);
+      }
+    }
+  }
+
+  private boolean isChannelJoined(String channelName) {
     synchronized (channels) {
-      channels.values().forEach(channel -> onChatUserLeftChannel(channel.getName(), username));
+      return channels.containsKey(channelName);
     }
   }
 
@@ -400,8 +403,19 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     }
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Called on the PircBotX input thread. Events are processed asynchronously so that the socket is never blocked by
+   * slow event handling.
+   */
   private void onEvent(Event event) {
+    if (!eventListeners.containsKey(event.getClass()) && !ChatEventPipeline.isMembershipEvent(event)) {
+      return;
+    }
+    chatEventPipeline.submit(event);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void dispatchEvent(Event event) {
     if (!eventListeners.containsKey(event.getClass())) {
       return;
     }
@@ -523,24 +537,28 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public ChatChannelUser getOrCreateChatUser(String username, String channel, boolean isModerator) {
-    synchronized (chatChannelUsersByChannelAndName) {
-      String key = mapKey(username, channel);
-      if (!chatChannelUsersByChannelAndName.containsKey(key)) {
-        ChatPrefs chatPrefs = preferencesService.getPreferences().getChat();
-        Color color = null;
-
-        if (chatPrefs.getChatColorMode() == CUSTOM && chatPrefs.getUserToColor().containsKey(userToColorKey(username))) {
-          color = chatPrefs.getUserToColor().get(userToColorKey(username));
-        } else if (chatPrefs.getChatColorMode() == RANDOM) {
-          color = ColorGeneratorUtil.generateRandomColor(userToColorKey(username).hashCode());
-        }
+    ChatChannelUser existingUser = chatUserRegistry.get(channel, username);
+    if (existingUser != null) {
+      return existingUser;
+    }
 
-        ChatChannelUser chatChannelUser = new ChatChannelUser(username, color, isModerator);
-        eventBus.post(new ChatUserCreatedEvent(chatChannelUser));
-        chatChannelUsersByChannelAndName.put(key, chatChannelUser);
-      }
-      return chatChannelUsersByChannelAndName.get(key);
+    ChatPrefs chatPrefs = preferencesService.getPreferences().getChat();
+    Color color = null;
+
+    if (chatPrefs.getChatColorMode() == CUSTOM && chatPrefs.getUserToColor().containsKey(userToColorKey(username))) {
+      color = chatPrefs.getUserToColor().get(userToColorKey(username));
+    } else if (chatPrefs.getChatColorMode() == RANDOM) {
+      color = ColorGeneratorUtil.generateRandomColor(userToColorKey(username).hashCode());
     }
+
+    ChatChannelUser chatChannelUser = new ChatChannelUser(username, color, isModerator);
+    existingUser = chatUserRegistry.putIfAbsent(channel, chatChannelUser);
+    if (existingUser != null) {
+      // Another thread was faster
+      return existingUser;
+    }
+    eventBus.post(new ChatUserCreatedEvent(chatChannelUser));
+    return chatChannelUser;
   }
 
   @Override
@@ -550,9 +568,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public void addChatUsersByNameListener(MapChangeListener<String, ChatChannelUser> listener) {
-    synchronized (chatChannelUsersByChannelAndName) {
-      JavaFxUtil.addListener(chatChannelUsersByChannelAndName, listener);
-    }
+    chatUserRegistry.addChatUsersByNameListener(listener);
   }
 
   @Override
@@ -604,6 +620,9 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   public void close() {
     identifiedFuture.cancel(false);
+    if (chatEventPipeline != null) {
+      chatEventPipeline.stop();
+    }
     if (connectionTask != null) {
       connectionTask.cancel();
     }
@@ -640,7 +659,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public ChatChannelUser getChatUser(String username, String channelName) {
-    return Optional.ofNullable(chatChannelUsersByChannelAndName.get(mapKey(username, channelName)))
+    return Optional.ofNullable(chatUserRegistry.get(channelName, username))
         .orElseThrow(() -> new IllegalArgumentException("Chat user '" + username + "' is unknown for channel '" + channelName + "'"));
   }
 
@@ -649,23 +668,18 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     return defaultChannelName;
   }
 
-  private String mapKey(String username, String channelName) {
-    return username + channelName;
-  }
-
   @Subscribe
   public void onPlayerOnline(PlayerOnlineEvent event) {
     Player player = event.getPlayer();
 
-    synchronized (channels) {
-      List<ChatChannelUser> channelUsers = channels.values().stream()
-          .map(channel -> chatChannelUsersByChannelAndName.get(mapKey(player.getUsername(), channel.getName())))
-          .filter(Objects::nonNull)
-          .peek(chatChannelUser -> chatChannelUser.setPlayer(player))
-          .collect(Collectors.toList());
+    List<ChatChannelUser> channelUsers = chatUserRegistry.getChannelNames(player.getUsername()).stream()
+        .filter(this::isChannelJoined)
+        .map(channelName -> chatUserRegistry.get(channelName, player.getUsername()))
+        .filter(Objects::nonNull)
+        .peek(chatChannelUser -> chatChannelUser.setPlayer(player))
+        .collect(Collectors.toList());
 
-      player.getChatChannelUsers().addAll(channelUsers);
-    }
+    player.getChatChannelUsers().addAll(channelUsers);
   }
 
   interface ChatEventListener<T> {
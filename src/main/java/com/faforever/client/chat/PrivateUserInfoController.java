@@ -102,6 +102,7 @@ public class PrivateUserInfoController implements Controller<Node> {
       displayChatUserInfo();
     });
     JavaFxUtil.bind(usernameLabel.textProperty(), this.chatUser.usernameProperty());
+    JavaFxUtil.bind(countryImageView.viewportProperty(), this.chatUser.countryFlagViewportProperty());
     JavaFxUtil.bind(countryImageView.imageProperty(), this.chatUser.countryFlagProperty());
     JavaFxUtil.bind(countryLabel.textProperty(), this.chatUser.countryNameProperty());
     eventBus.post(new ChatUserPopulateEvent(this.chatUser));
@@ -3,10 +3,9 @@ package com.faforever.client.chat;
 import com.faforever.client.fx.Controller;
 import com.faforever.client.game.PlayerStatus;
 import com.faforever.client.i18n.I18n;
-import com.faforever.client.player.Player;
-import com.faforever.client.util.ProgrammingError;
-import com.faforever.client.util.RatingUtil;
 import com.google.common.annotations.VisibleForTesting;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.Node;
@@ -15,24 +14,37 @@ import javafx.scene.control.MenuButton;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.GridPane;
+import javafx.util.Duration;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.faforever.client.game.PlayerStatus.HOSTING;
 import static com.faforever.client.game.PlayerStatus.IDLE;
 import static com.faforever.client.game.PlayerStatus.LOBBYING;
 import static com.faforever.client.game.PlayerStatus.PLAYING;
+import static java.util.Locale.US;
 
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Slf4j
 public class UserFilterController implements Controller<Node> {
 
+  private static final Duration FILTER_DEBOUNCE_DELAY = Duration.millis(200);
+  private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
   private final I18n i18n;
   private final CountryFlagService flagService;
+  private final ExecutorService executorService;
   public MenuButton gameStatusMenu;
   public GridPane filterUserRoot;
   public TextField clanFilterField;
@@ -43,6 +55,9 @@ public class UserFilterController implements Controller<Node> {
 
 
   private final BooleanProperty filterApplied;
+  /** Incremented on every filter run so that outdated runs can be abandoned. */
+  private final AtomicInteger filterGeneration;
+  private PauseTransition filterDebounce;
   @VisibleForTesting
   ChannelTabController channelTabController;
   @VisibleForTesting
@@ -50,10 +65,12 @@ public class UserFilterController implements Controller<Node> {
 
   List<String> currentSelectedCountries;
 
-  public UserFilterController(I18n i18n, CountryFlagService flagService) {
+  public UserFilterController(I18n i18n, CountryFlagService flagService, ExecutorService executorService) {
     this.i18n = i18n;
     this.flagService = flagService;
+    this.executorService = executorService;
     this.filterApplied = new SimpleBooleanProperty(false);
+    this.filterGeneration = new AtomicInteger();
   }
 
   void setChannelController(ChannelTabController channelTabController) {
@@ -61,6 +78,9 @@ public class UserFilterController implements Controller<Node> {
   }
 
   public void initialize() {
+    filterDebounce = new PauseTransition(FILTER_DEBOUNCE_DELAY);
+    filterDebounce.setOnFinished(event -> applyFilter());
+
     clanFilterField.textProperty().addListener((observable, oldValue, newValue) -> filterUsers());
     minRatingFilterField.textProperty().addListener((observable, oldValue, newValue) -> filterUsers());
     maxRatingFilterField.textProperty().addListener((observable, oldValue, newValue) -> filterUsers());
@@ -68,29 +88,96 @@ public class UserFilterController implements Controller<Node> {
     currentSelectedCountries = flagService.getCountries(null);
   }
 
+  /**
+   * Schedules the users to be filtered as soon as the input has been quiet for {@link #FILTER_DEBOUNCE_DELAY}. Must be
+   * called on the JavaFX application thread.
+   */
   public void filterUsers() {
-    channelTabController.setUserFilter(this::filterUser);
-    filterApplied.set(
-        !maxRatingFilterField.getText().isEmpty()
-            || !minRatingFilterField.getText().isEmpty()
-            || !clanFilterField.getText().isEmpty()
-            || playerStatusFilter != null
-            || !countryFilterField.getText().isEmpty()
-    );
+    filterDebounce.playFromStart();
   }
 
-  private boolean filterUser(CategoryOrChatUserListItem userListItem) {
-    if (userListItem.getCategory() != null) {
-      // The categories should display in the list independently of a filter
-      return true;
+  /**
+   * Evaluates the current filter against a snapshot of the user list in background and applies the result on the
+   * application thread. A filter run that is superseded by a newer one is abandoned.
+   */
+  @VisibleForTesting
+  void applyFilter() {
+    ChatUserFilter filter = createFilter();
+    filterApplied.set(filter.isActive());
+
+    List<CategoryOrChatUserListItem> items = channelTabController.getChatUserListItemsSnapshot();
+    int generation = filterGeneration.incrementAndGet();
+    CompletableFuture.supplyAsync(() -> evaluate(filter, items, generation), executorService)
+        .thenAccept(results -> {
+          if (results == null) {
+            return;
+          }
+          Platform.runLater(() -> {
+            if (generation != filterGeneration.get()) {
+              return;
+            }
+            channelTabController.setUserFilter(item -> {
+              if (item.getCategory() != null) {
+                return true;
+              }
+              // Users added after the snapshot was taken are evaluated directly
+              Boolean matches = results.get(item.getUser());
+              return matches != null ? matches : filter.test(item);
+            });
+          });
+        })
+        .exceptionally(throwable -> {
+          log.warn("Filtering chat users failed", throwable);
+          return null;
+        });
+  }
+
+  /**
+   * Returns the filter result per user or {@code null} if the evaluation has been superseded.
+   */
+  private Map<ChatChannelUser, Boolean> evaluate(ChatUserFilter filter, List<CategoryOrChatUserListItem> items, int generation) {
+    Map<ChatChannelUser, Boolean> results = new IdentityHashMap<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      if (i % CANCELLATION_CHECK_INTERVAL == 0 && generation != filterGeneration.get()) {
+        return null;
+      }
+      ChatChannelUser user = items.get(i).getUser();
+      if (user != null && !results.containsKey(user)) {
+        results.put(user, filter.test(user));
+      }
     }
+    return results;
+  }
 
-    ChatChannelUser user = userListItem.getUser();
-    return channelTabController.isUsernameMatch(user)
-        && isInClan(user)
-        && isBoundByRating(user)
-        && isGameStatusMatch(user)
-        && isCountryMatch(user);
+  @VisibleForTesting
+  ChatUserFilter createFilter() {
+    String usernameSearchText = Optional.ofNullable(channelTabController.getUserSearchText()).orElse("");
+    String clan = clanFilterField.getText();
+    String country = countryFilterField.getText();
+
+    return new ChatUserFilter(
+        usernameSearchText.toLowerCase(US),
+        clan.isEmpty() ? null : clan.toLowerCase(US),
+        parseRating(minRatingFilterField.getText(), Integer.MIN_VALUE),
+        parseRating(maxRatingFilterField.getText(), Integer.MAX_VALUE),
+        playerStatusFilter,
+        country.isEmpty() ? null : new HashSet<>(currentSelectedCountries)
+    );
+  }
+
+  /**
+   * Returns {@code null} if the rating field is empty. Any other input filters out users without a player, even if it
+   * is not a number, in which case the bound is unlimited.
+   */
+  private Integer parseRating(String text, int unlimitedBound) {
+    if (text.isEmpty()) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      return unlimitedBound;
+    }
   }
 
   private void filterCountry() {
@@ -108,91 +195,21 @@ public class UserFilterController implements Controller<Node> {
 
   @VisibleForTesting
   boolean isInClan(ChatChannelUser chatUser) {
-    if (clanFilterField.getText().isEmpty()) {
-      return true;
-    }
-
-    Optional<Player> playerOptional = chatUser.getPlayer();
-
-    if (!playerOptional.isPresent()) {
-      return false;
-    }
-
-    Player player = playerOptional.get();
-    String clan = player.getClan();
-    if (clan == null) {
-      return false;
-    }
-
-    String lowerCaseSearchString = clan.toLowerCase();
-    return lowerCaseSearchString.contains(clanFilterField.getText().toLowerCase());
+    return createFilter().isInClan(chatUser.getFilterKeys());
   }
 
   @VisibleForTesting
   boolean isBoundByRating(ChatChannelUser chatUser) {
-    if (minRatingFilterField.getText().isEmpty() && maxRatingFilterField.getText().isEmpty()) {
-      return true;
-    }
-
-    Optional<Player> optionalPlayer = chatUser.getPlayer();
-
-    if (!optionalPlayer.isPresent()) {
-      return false;
-    }
-
-    Player player = optionalPlayer.get();
-
-    int globalRating = RatingUtil.getGlobalRating(player);
-    int minRating;
-    int maxRating;
-
-    try {
-      minRating = Integer.parseInt(minRatingFilterField.getText());
-    } catch (NumberFormatException e) {
-      minRating = Integer.MIN_VALUE;
-    }
-    try {
-      maxRating = Integer.parseInt(maxRatingFilterField.getText());
-    } catch (NumberFormatException e) {
-      maxRating = Integer.MAX_VALUE;
-    }
-
-    return globalRating >= minRating && globalRating <= maxRating;
+    return createFilter().isBoundByRating(chatUser.getFilterKeys());
   }
 
   @VisibleForTesting
   boolean isGameStatusMatch(ChatChannelUser chatUser) {
-    if (playerStatusFilter == null) {
-      return true;
-    }
-
-    Optional<Player> playerOptional = chatUser.getPlayer();
-
-    if (!playerOptional.isPresent()) {
-      return false;
-    }
-
-    PlayerStatus playerStatus = playerOptional.get().getStatus();
-    if (playerStatusFilter == LOBBYING) {
-      return LOBBYING == playerStatus || HOSTING == playerStatus;
-    } else {
-      return playerStatusFilter == playerStatus;
-    }
+    return createFilter().isGameStatusMatch(chatUser);
   }
 
   boolean isCountryMatch(ChatChannelUser chatUser) {
-    // Users of  'chat only' group have no country so that need to check it for empty string
-    if (countryFilterField.getText().isEmpty()) {
-      return true;
-    }
-
-    Optional<Player> playerOptional = chatUser.getPlayer();
-    if (playerOptional.isEmpty()) {
-      return false;
-    }
-
-    String country = playerOptional.get().getCountry();
-    return currentSelectedCountries.contains(country);
+    return createFilter().isCountryMatch(chatUser.getFilterKeys());
   }
 
   public void onGameStatusPlaying() {
@@ -205,7 +205,7 @@ public class UserInfoWindowController implements Controller<Node> {
     this.player = player;
 
     usernameLabel.setText(player.getUsername());
-    countryFlagService.loadCountryFlag(player.getCountry()).ifPresent(image -> countryImageView.setImage(image));
+    countryFlagService.showCountryFlag(countryImageView, player.getCountry());
     gamesPlayedLabel.setText(i18n.number(player.getNumberOfGames()));
     ratingLabelGlobal.setText(i18n.number(RatingUtil.getGlobalRating(player)));
     ratingLabel1v1.setText(i18n.number(RatingUtil.getLeaderboardRating(player)));
@@ -0,0 +1,90 @@
+package com.faforever.client.clan;
+
+import com.faforever.client.player.Player;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The persisted form of a {@link Clan}. Only contains what is needed to display a clan in the chat.
+ */
+@Data
+class CachedClan {
+  private String id;
+  private String name;
+  private String tag;
+  private String description;
+  private String tagColor;
+  private String websiteUrl;
+  private Long createTime;
+  private CachedPlayer founder;
+  private CachedPlayer leader;
+  private List<CachedPlayer> members = new ArrayList<>();
+  /** Epoch millis of when the clan has been retrieved from the API. */
+  private long cachedAt;
+
+  static CachedClan fromClan(Clan clan, Instant cachedAt) {
+    CachedClan cachedClan = new CachedClan();
+    cachedClan.setId(clan.getId());
+    cachedClan.setName(clan.getName());
+    cachedClan.setTag(clan.getTag());
+    cachedClan.setDescription(clan.getDescription());
+    cachedClan.setTagColor(clan.getTagColor());
+    cachedClan.setWebsiteUrl(clan.getWebsiteUrl());
+    cachedClan.setCreateTime(clan.getCreateTime() != null ? clan.getCreateTime().toEpochMilli() : null);
+    cachedClan.setFounder(CachedPlayer.fromPlayer(clan.getFounder()));
+    cachedClan.setLeader(CachedPlayer.fromPlayer(clan.getLeader()));
+    cachedClan.setMembers(clan.getMembers().stream()
+        .map(CachedPlayer::fromPlayer)
+        .collect(Collectors.toList()));
+    cachedClan.setCachedAt(cachedAt.toEpochMilli());
+    return cachedClan;
+  }
+
+  Clan toClan() {
+    Clan clan = new Clan();
+    clan.setId(id);
+    clan.setName(name);
+    clan.setTag(tag);
+    clan.setDescription(description);
+    clan.setTagColor(tagColor);
+    clan.setWebsiteUrl(websiteUrl);
+    clan.setCreateTime(createTime != null ? Instant.ofEpochMilli(createTime) : null);
+    clan.setFounder(founder != null ? founder.toPlayer() : null);
+    clan.setLeader(leader != null ? leader.toPlayer() : null);
+    clan.membersProperty().setAll(members.stream()
+        .map(CachedPlayer::toPlayer)
+        .collect(Collectors.toList()));
+    return clan;
+  }
+
+  boolean isOlderThan(Duration maxAge, Instant now) {
+    return Instant.ofEpochMilli(cachedAt).plus(maxAge).isBefore(now);
+  }
+
+  @Data
+  static class CachedPlayer {
+    private int id;
+    private String username;
+
+    private static CachedPlayer fromPlayer(Player player) {
+      if (player == null) {
+        return null;
+      }
+      CachedPlayer cachedPlayer = new CachedPlayer();
+      cachedPlayer.setId(player.getId());
+      cachedPlayer.setUsername(player.getUsername());
+      return cachedPlayer;
+    }
+
+    private Player toPlayer() {
+      Player player = new Player(username);
+      player.setId(id);
+      return player;
+    }
+  }
+}
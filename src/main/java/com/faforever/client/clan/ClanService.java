@@ -1,23 +1,189 @@
 package com.faforever.client.clan;
 
+import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.FafService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Resolves clans by their tag. Lookups are collected for a short moment and then resolved with as few API requests as
+ * possible. Every tag is only requested once, no matter how many callers ask for it at the same time. Resolved clans
+ * are persisted in the cache directory so that they don't need to be requested again after a restart.
+ */
 @Lazy
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class ClanService {
 
+  /** Time during which lookups are collected into the same API request. */
+  private static final Duration BATCH_DELAY = Duration.ofMillis(100);
+  /** Maximum number of tags per API request, to keep the request URL reasonably short. */
+  private static final int MAX_BATCH_SIZE = 50;
+  /** Age after which a persisted clan is requested again. */
+  private static final Duration PERSISTED_CLAN_MAX_AGE = Duration.ofDays(1);
+  private static final String CLAN_CACHE_FILE_NAME = "clans.json";
+  private static final Type CACHED_CLANS_TYPE = new TypeToken<Map<String, CachedClan>>() {
+  }.getType();
+
   private final FafService fafService;
+  private final PreferencesService preferencesService;
+  private final TaskScheduler taskScheduler;
+
+  /** Lookup results by clan tag, including clans that don't exist and lookups that are still in progress. */
+  private final Cache<String, CompletableFuture<Optional<Clan>>> clansByTag = Caffeine.newBuilder()
+      .expireAfterWrite(1, HOURS)
+      .build();
+  /** Lookups that have not yet been sent to the API, by clan tag. */
+  private final Map<String, CompletableFuture<Optional<Clan>>> pendingLookups = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final Gson gson = new GsonBuilder().create();
+  /** Persisted clans by tag, loaded lazily. */
+  private Map<String, CachedClan> cachedClans;
 
   public CompletableFuture<Optional<Clan>> getClanByTag(String tag) {
-    return fafService.getClanByTag(tag);
+    return clansByTag.get(tag, key -> {
+      CompletableFuture<Optional<Clan>> future = new CompletableFuture<>();
+      pendingLookups.put(key, future);
+      if (flushScheduled.compareAndSet(false, true)) {
+        taskScheduler.schedule(this::flushPendingLookups, Instant.now().plus(BATCH_DELAY));
+      }
+      return future;
+    });
   }
-}
 
+  private void flushPendingLookups() {
+    flushScheduled.set(false);
+
+    Map<String, CompletableFuture<Optional<Clan>>> lookups = new HashMap<>();
+    for (String tag : new ArrayList<>(pendingLookups.keySet())) {
+      CompletableFuture<Optional<Clan>> future = pendingLookups.remove(tag);
+      if (future != null) {
+        lookups.put(tag, future);
+      }
+    }
+
+    Instant now = Instant.now();
+    List<String> tagsToRequest = new ArrayList<>();
+    synchronized (this) {
+      Map<String, CachedClan> cachedClans = getCachedClans();
+      lookups.forEach((tag, future) -> {
+        CachedClan cachedClan = cachedClans.get(tag);
+        if (cachedClan != null && !cachedClan.isOlderThan(PERSISTED_CLAN_MAX_AGE, now)) {
+          future.complete(Optional.of(cachedClan.toClan()));
+        } else {
+          tagsToRequest.add(tag);
+        }
+      });
+    }
+
+    Lists.partition(tagsToRequest, MAX_BATCH_SIZE).forEach(tags -> requestClans(tags, lookups));
+  }
+
+  private void requestClans(List<String> tags, Map<String, CompletableFuture<Optional<Clan>>> lookups) {
+    log.debug("Requesting {} clans", tags.size());
+    fafService.getClansByTags(tags).whenComplete((clans, throwable) -> {
+      if (throwable != null) {
+        log.warn("Clans could not be loaded: {}", tags, throwable);
+        // Allow the next lookup to try again
+        clansByTag.invalidateAll(tags);
+        tags.forEach(tag -> lookups.get(tag).completeExceptionally(throwable));
+        return;
+      }
+
+      Map<String, Clan> clansByRequestedTag = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      clans.forEach(clan -> clansByRequestedTag.put(clan.getTag(), clan));
+      tags.forEach(tag -> lookups.get(tag).complete(Optional.ofNullable(clansByRequestedTag.get(tag))));
+
+      if (!clans.isEmpty()) {
+        persistClans(clans);
+      }
+    });
+  }
+
+  private Map<String, CachedClan> getCachedClans() {
+    if (cachedClans == null) {
+      cachedClans = readCachedClans();
+    }
+    return cachedClans;
+  }
+
+  private Map<String, CachedClan> readCachedClans() {
+    Path file = getClanCacheFile();
+    Map<String, CachedClan> result = new HashMap<>();
+    if (Files.notExists(file)) {
+      return result;
+    }
+
+    try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+      Map<String, CachedClan> persisted = gson.fromJson(reader, CACHED_CLANS_TYPE);
+      if (persisted != null) {
+        // Outdated clans would be requested again anyway
+        Instant now = Instant.now();
+        persisted.forEach((tag, cachedClan) -> {
+          if (!cachedClan.isOlderThan(PERSISTED_CLAN_MAX_AGE, now)) {
+            result.put(tag, cachedClan);
+          }
+        });
+      }
+    } catch (IOException | JsonParseException e) {
+      log.warn("Clan cache could not be read from: {}", file, e);
+    }
+    return result;
+  }
 
+  private synchronized void persistClans(List<Clan> clans) {
+    Map<String, CachedClan> cachedClans = getCachedClans();
+    Instant now = Instant.now();
+    clans.forEach(clan -> cachedClans.put(clan.getTag(), CachedClan.fromClan(clan, now)));
+
+    Path file = getClanCacheFile();
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), CLAN_CACHE_FILE_NAME, null);
+      try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        gson.toJson(cachedClans, CACHED_CLANS_TYPE, writer);
+      }
+      Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Clan cache could not be written to: {}", file, e);
+    }
+  }
+
+  private Path getClanCacheFile() {
+    return preferencesService.getCacheDirectory().resolve(CLAN_CACHE_FILE_NAME);
+  }
+}
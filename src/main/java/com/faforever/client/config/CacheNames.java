@@ -2,8 +2,6 @@ package com.faforever.client.config;
 
 public final class CacheNames {
 
-  public static final String AVATARS = "avatars";
-  public static final String COUNTRY_FLAGS = "countryFlags";
   public static final String COUNTRY_NAMES = "countryNames";
   public static final String MAP_PREVIEW = "mapPreview";
   public static final String URL_PREVIEW = "urlPreview";
@@ -16,7 +14,6 @@ public final class CacheNames {
   public static final String MAPS = "maps";
   public static final String MAP_GENERATOR = "mapGenerator";
   public static final String THEME_IMAGES = "themeImages";
-  public static final String MOD_THUMBNAIL = "modThumbnail";
   public static final String COOP_MAPS = "coopMaps";
   public static final String AVAILABLE_AVATARS = "availableAvatars";
   public static final String NEWS = "news";
@@ -24,7 +21,6 @@ public final class CacheNames {
   public static final String FEATURED_MODS = "featuredMods";
   public static final String FEATURED_MOD_FILES = "featuredModFiles";
   public static final String COOP_LEADERBOARD = "coopLeaderboard";
-  public static final String CLAN = "clan";
 
   private CacheNames() {
     throw new AssertionError("Not instantiatable");
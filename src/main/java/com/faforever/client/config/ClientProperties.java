@@ -69,6 +69,14 @@ public class ClientProperties {
     @Deprecated
     private String defaultChannel = "#aeolus";
     private int reconnectDelay = (int) Duration.ofSeconds(5).toMillis();
+    /**
+     * Maximum number of IRC events waiting to be processed. If exceeded, reading from the IRC socket is paused.
+     */
+    private int eventQueueCapacity = 10_000;
+    /**
+     * How long to collect JOIN, PART and QUIT events before applying them in one batch.
+     */
+    private Duration membershipCoalesceWindow = Duration.ofMillis(250);
   }
 
   @Data
@@ -96,6 +104,15 @@ public class ClientProperties {
     private String replayFileGlob = "*.fafreplay";
     // TODO this should acutally be reported by the server
     private int watchDelaySeconds = 300;
+    /**
+     * Maximum number of bytes relayed to the replay server at once. Data is relayed as soon as it has been received, so
+     * a larger buffer doesn't delay it.
+     */
+    private int relayBufferSize = 8192;
+    /** Whether to disable Nagle's algorithm on the connection to the replay server, so that data is sent immediately. */
+    private boolean relayTcpNoDelay = true;
+    /** Maximum number of bytes of downloaded replays to keep, least recently watched ones are deleted first. */
+    private long downloadedReplaysMaxSize = 512L * 1024 * 1024;
   }
 
   @Data
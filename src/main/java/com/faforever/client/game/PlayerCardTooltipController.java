@@ -42,7 +42,7 @@ public class PlayerCardTooltipController implements Controller<Node> {
     if (player == null) {
       return;
     }
-    countryFlagService.loadCountryFlag(player.getCountry()).ifPresent(image -> countryImageView.setImage(image));
+    countryFlagService.showCountryFlag(countryImageView, player.getCountry());
 
     String playerInfoLocalized = i18n.get("userInfo.tooltipFormat", player.getUsername(), rating);
     setFactionIcon(faction);
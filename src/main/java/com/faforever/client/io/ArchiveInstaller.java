@@ -0,0 +1,251 @@
+package com.faforever.client.io;
+
+import com.faforever.commons.io.ByteCountListener;
+import com.google.common.io.CountingInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+/**
+ * Installs a zip archive while it is being read, for instance from a download, so that extracting doesn't need to
+ * wait for the download to finish and the archive doesn't need to be stored. Entries are extracted into a staging
+ * directory inside the target directory and each one is verified against the size and CRC-32 recorded in the archive.
+ * Only after the whole archive has been extracted, its top level entries are moved into the target directory,
+ * replacing existing entries of the same name. This way, a failed download never leaves a partially extracted map or
+ * mod behind, and each installed folder appears at once. If an entry can't be moved into place, the entries that have
+ * been moved already are moved back and the replaced ones are restored. Staging directories left behind by an
+ * installation that has been interrupted, for instance by a crash, are deleted before the next installation into the
+ * same target directory.
+ */
+@Slf4j
+public final class ArchiveInstaller {
+
+  /** Staging directories are created in the target directory, so that they can be renamed atomically. */
+  private static final String STAGING_DIRECTORY_PREFIX = ".installing-";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** Staging directories of installations in progress, which must not be deleted as leftovers. */
+  private static final Set<Path> activeStagingDirectories = ConcurrentHashMap.newKeySet();
+
+  private final InputStream inputStream;
+  private Path targetDirectory;
+  private long totalBytes = -1;
+  private long zipBombByteCountThreshold = Long.MAX_VALUE;
+  private ByteCountListener listener;
+
+  private ArchiveInstaller(InputStream inputStream) {
+    this.inputStream = inputStream;
+  }
+
+  public static ArchiveInstaller from(InputStream inputStream) {
+    return new ArchiveInstaller(inputStream);
+  }
+
+  /**
+   * Returns whether the specified directory is the staging directory of an installation in progress, which needs to be
+   * ignored by anything reading the target directory.
+   */
+  public static boolean isStagingDirectory(Path path) {
+    return path.getFileName().toString().startsWith(STAGING_DIRECTORY_PREFIX);
+  }
+
+  public ArchiveInstaller to(Path targetDirectory) {
+    this.targetDirectory = targetDirectory;
+    return this;
+  }
+
+  /**
+   * @param totalBytes the size of the archive, used to report progress, or {@code -1} if unknown
+   */
+  public ArchiveInstaller totalBytes(long totalBytes) {
+    this.totalBytes = totalBytes;
+    return this;
+  }
+
+  /**
+   * @param zipBombByteCountThreshold the maximum number of bytes to extract
+   */
+  public ArchiveInstaller zipBombByteCountThreshold(long zipBombByteCountThreshold) {
+    this.zipBombByteCountThreshold = zipBombByteCountThreshold;
+    return this;
+  }
+
+  /**
+   * @param listener gets notified about the number of archive bytes that have been read
+   */
+  public ArchiveInstaller listener(ByteCountListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * @return the installed top level entries in the target directory
+   */
+  public List<Path> install() throws IOException {
+    Objects.requireNonNull(targetDirectory, "targetDirectory has not been set");
+
+    Files.createDirectories(targetDirectory);
+    deleteLeftoverStagingDirectories(targetDirectory);
+    Path stagingDirectory = Files.createTempDirectory(targetDirectory, STAGING_DIRECTORY_PREFIX);
+    activeStagingDirectories.add(stagingDirectory);
+    try {
+      extract(stagingDirectory);
+      return moveToTargetDirectory(stagingDirectory);
+    } finally {
+      try {
+        FileUtils.deleteRecursively(stagingDirectory);
+      } catch (IOException e) {
+        log.warn("Could not delete staging directory: {}", stagingDirectory, e);
+      } finally {
+        activeStagingDirectories.remove(stagingDirectory);
+      }
+    }
+  }
+
+  private static void deleteLeftoverStagingDirectories(Path targetDirectory) {
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(targetDirectory, STAGING_DIRECTORY_PREFIX + "*")) {
+      for (Path stagingDirectory : directoryStream) {
+        if (activeStagingDirectories.contains(stagingDirectory)) {
+          continue;
+        }
+        log.debug("Deleting leftover staging directory: {}", stagingDirectory);
+        try {
+          FileUtils.deleteRecursively(stagingDirectory);
+        } catch (IOException e) {
+          log.warn("Could not delete leftover staging directory: {}", stagingDirectory, e);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not list staging directories in: {}", targetDirectory, e);
+    }
+  }
+
+  private void extract(Path stagingDirectory) throws IOException {
+    CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long extractedBytes = 0;
+    boolean empty = true;
+
+    try (ZipArchiveInputStream zipInputStream = new ZipArchiveInputStream(countingInputStream, UTF_8.name(), true, true)) {
+      ZipArchiveEntry entry;
+      while ((entry = zipInputStream.getNextZipEntry()) != null) {
+        empty = false;
+        Path entryPath = stagingDirectory.resolve(entry.getName()).normalize();
+        if (!entryPath.startsWith(stagingDirectory) || entryPath.equals(stagingDirectory)) {
+          throw new ZipException("Illegal entry: " + entry.getName());
+        }
+        if (entry.isDirectory()) {
+          Files.createDirectories(entryPath);
+          continue;
+        }
+
+        Files.createDirectories(entryPath.getParent());
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (OutputStream outputStream = Files.newOutputStream(entryPath)) {
+          int read;
+          while ((read = zipInputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+            crc.update(buffer, 0, read);
+            size += read;
+            extractedBytes += read;
+            if (extractedBytes > zipBombByteCountThreshold) {
+              throw new ZipException("Archive exceeds the maximum size of " + zipBombByteCountThreshold + " bytes");
+            }
+            if (listener != null) {
+              listener.updateBytesProcessed(countingInputStream.getCount(), totalBytes);
+            }
+          }
+        }
+        verify(entry, size, crc.getValue());
+      }
+    }
+
+    if (empty) {
+      throw new ZipException("Archive is empty or not a zip archive");
+    }
+  }
+
+  /**
+   * Entries that are followed by a data descriptor only know their size and checksum after they have been read, which
+   * is why entries are verified afterwards.
+   */
+  private static void verify(ZipArchiveEntry entry, long size, long crc) throws ZipException {
+    if (entry.getSize() != ArchiveEntry.SIZE_UNKNOWN && entry.getSize() != size) {
+      throw new ZipException("Entry " + entry.getName() + " has " + size + " bytes instead of " + entry.getSize());
+    }
+    if (entry.getCrc() != -1 && entry.getCrc() != crc) {
+      throw new ZipException("Entry " + entry.getName() + " has an invalid CRC-32");
+    }
+  }
+
+  private List<Path> moveToTargetDirectory(Path stagingDirectory) throws IOException {
+    List<Path> extractedEntries = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(stagingDirectory)) {
+      directoryStream.forEach(extractedEntries::add);
+    }
+
+    // Replaced entries are moved into the staging directory, which is deleted afterwards
+    Path replacedDirectory = Files.createTempDirectory(stagingDirectory, "replaced");
+    List<Path> installedEntries = new ArrayList<>();
+    try {
+      for (Path extractedEntry : extractedEntries) {
+        String fileName = extractedEntry.getFileName().toString();
+        Path installedEntry = targetDirectory.resolve(fileName);
+        if (Files.exists(installedEntry)) {
+          log.debug("Replacing {}", installedEntry);
+          Files.move(installedEntry, replacedDirectory.resolve(fileName), ATOMIC_MOVE);
+        }
+        Files.move(extractedEntry, installedEntry, ATOMIC_MOVE);
+        installedEntries.add(installedEntry);
+      }
+    } catch (IOException e) {
+      rollBack(stagingDirectory, replacedDirectory, installedEntries);
+      throw e;
+    }
+    return installedEntries;
+  }
+
+  /**
+   * Moves the installed entries back into the staging directory and the replaced entries back into the target
+   * directory. Failures are only logged, so that the original exception is thrown.
+   */
+  private void rollBack(Path stagingDirectory, Path replacedDirectory, List<Path> installedEntries) {
+    for (Path installedEntry : installedEntries) {
+      try {
+        Files.move(installedEntry, stagingDirectory.resolve(installedEntry.getFileName().toString()), ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Could not remove installed entry: {}", installedEntry, e);
+      }
+    }
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(replacedDirectory)) {
+      for (Path replacedEntry : directoryStream) {
+        Path originalEntry = targetDirectory.resolve(replacedEntry.getFileName().toString());
+        try {
+          Files.move(replacedEntry, originalEntry, ATOMIC_MOVE);
+        } catch (IOException e) {
+          log.warn("Could not restore replaced entry: {}", originalEntry, e);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not list replaced entries in: {}", replacedDirectory, e);
+    }
+  }
+}
@@ -0,0 +1,356 @@
+package com.faforever.client.io;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches directories for entries being created or deleted, using a single thread for all directories. Changes are
+ * not reported one by one, but in batches once the changed entries have been quiet for a while, so that extracting an
+ * archive or copying many folders results in a single notification after the last file has been written. Entries that
+ * are only modified, like a folder whose files change, are not reported, but delay the notification like other
+ * changes. Directories that can't be watched by the file system, and directories whose watcher lost events, are scanned
+ * instead.
+ */
+@Lazy
+@Service
+@Slf4j
+public class DirectoryWatchService implements DisposableBean {
+
+  /** How long changed entries need to be quiet before they are reported. */
+  static final long QUIET_PERIOD_MILLIS = 1000;
+  /** How often directories that can't be watched are scanned for changes. */
+  static final long SCAN_INTERVAL_MILLIS = 5000;
+  /** Entries that keep changing are reported after this time anyway. */
+  private static final long MAX_DELAY_MILLIS = 30_000;
+
+  private final Object lock = new Object();
+  private final List<Registration> registrations = new ArrayList<>();
+  /** The same directory may be watched by several registrations, which then share their watch key. */
+  private final Map<WatchKey, List<Registration>> registrationsByWatchKey = new HashMap<>();
+  private volatile WatchService watchService;
+  private Thread watcherThread;
+
+  /**
+   * Starts watching the direct entries of the specified directory. The listener is called on the watcher thread, but
+   * without holding any lock of this service, so it may take its time and watch or cancel registrations.
+   *
+   * @return the registration, which needs to be cancelled to stop watching
+   */
+  public Registration watch(Path directory, Consumer<DirectoryChanges> listener) throws IOException {
+    synchronized (lock) {
+      Registration registration = new Registration(directory, listener, listEntries(directory));
+      try {
+        registration.watchKey = directory.register(getWatchService(), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        registrationsByWatchKey.computeIfAbsent(registration.watchKey, watchKey -> new ArrayList<>()).add(registration);
+      } catch (IOException | UnsupportedOperationException e) {
+        log.info("Directory can't be watched and will be scanned periodically instead: {}", directory, e);
+        registration.lastModified = Files.getLastModifiedTime(directory).toMillis();
+      }
+      registrations.add(registration);
+      startWatcherThread();
+      return registration;
+    }
+  }
+
+  private WatchService getWatchService() throws IOException {
+    if (watchService == null) {
+      watchService = FileSystems.getDefault().newWatchService();
+    }
+    return watchService;
+  }
+
+  private void startWatcherThread() {
+    if (watcherThread != null) {
+      return;
+    }
+    watcherThread = new Thread(this::watch, "directory-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  private void watch() {
+    long nextScan = System.currentTimeMillis() + SCAN_INTERVAL_MILLIS;
+    try {
+      while (!Thread.interrupted()) {
+        WatchKey watchKey = watchService != null
+            ? watchService.poll(QUIET_PERIOD_MILLIS / 4, TimeUnit.MILLISECONDS)
+            : null;
+        if (watchService == null) {
+          Thread.sleep(QUIET_PERIOD_MILLIS / 4);
+        }
+
+        Map<Registration, DirectoryChanges> notifications = new LinkedHashMap<>();
+        synchronized (lock) {
+          while (watchKey != null) {
+            onWatchKeySignalled(watchKey);
+            watchKey = watchService.poll();
+          }
+          if (System.currentTimeMillis() >= nextScan) {
+            registrations.stream()
+                .filter(registration -> registration.watchKey == null)
+                .forEach(this::scan);
+            nextScan = System.currentTimeMillis() + SCAN_INTERVAL_MILLIS;
+          }
+          for (Registration registration : registrations) {
+            collectChangesIfQuiet(registration).ifPresent(changes -> notifications.put(registration, changes));
+          }
+        }
+        notifications.forEach(this::notifyListener);
+      }
+    } catch (InterruptedException e) {
+      log.debug("Directory watcher terminated ({})", e.getMessage());
+    } catch (RuntimeException e) {
+      log.warn("Directory watcher failed", e);
+    }
+  }
+
+  private void onWatchKeySignalled(WatchKey watchKey) {
+    List<WatchEvent<?>> events = watchKey.pollEvents();
+    List<Registration> keyRegistrations = registrationsByWatchKey.getOrDefault(watchKey, List.of());
+    long now = System.currentTimeMillis();
+    for (Registration registration : keyRegistrations) {
+      for (WatchEvent<?> event : events) {
+        if (event.kind() == OVERFLOW) {
+          // Events have been lost, so only a scan can tell what has changed
+          registration.overflowed = true;
+          scan(registration);
+          continue;
+        }
+        registration.touch(registration.directory.resolve((Path) event.context()), now, event.kind() == ENTRY_DELETE);
+      }
+    }
+    if (!watchKey.reset()) {
+      log.debug("Watched directory is not accessible anymore: {}", watchKey.watchable());
+      registrationsByWatchKey.remove(watchKey);
+      keyRegistrations.forEach(registration -> registration.watchKey = null);
+    }
+  }
+
+  /**
+   * Compares the entries of the registration's directory with the ones seen before, if the directory has been modified
+   * since its last scan.
+   */
+  private void scan(Registration registration) {
+    try {
+      long lastModified = Files.getLastModifiedTime(registration.directory).toMillis();
+      if (lastModified == registration.lastModified && !registration.overflowed) {
+        return;
+      }
+      registration.lastModified = lastModified;
+      registration.overflowed = false;
+
+      Set<Path> entries = listEntries(registration.directory);
+      long now = System.currentTimeMillis();
+      for (Path entry : entries) {
+        if (!registration.entries.contains(entry)) {
+          registration.touch(entry, now, false);
+        }
+      }
+      for (Path entry : registration.entries) {
+        if (!entries.contains(entry)) {
+          registration.touch(entry, now, true);
+        }
+      }
+    } catch (NoSuchFileException e) {
+      log.debug("Watched directory does not exist anymore: {}", registration.directory);
+    } catch (IOException e) {
+      log.warn("Watched directory could not be scanned: {}", registration.directory, e);
+    }
+  }
+
+  /**
+   * Collects all pending changes of a registration, if none of the changed entries has been modified during the quiet
+   * period.
+   *
+   * @return the changes to notify the listener about, if any
+   */
+  private Optional<DirectoryChanges> collectChangesIfQuiet(Registration registration) {
+    if (registration.pendingSince.isEmpty()) {
+      return Optional.empty();
+    }
+    long now = System.currentTimeMillis();
+    boolean overdue = now - registration.firstPendingChange >= MAX_DELAY_MILLIS;
+    if (!overdue) {
+      // Checking events first avoids touching the file system while entries are still being created
+      if (registration.pendingSince.values().stream().anyMatch(lastChange -> now - lastChange < QUIET_PERIOD_MILLIS)) {
+        return Optional.empty();
+      }
+      if (registration.pendingSince.keySet().stream().anyMatch(entry -> now - getLastModified(entry) < QUIET_PERIOD_MILLIS)) {
+        return Optional.empty();
+      }
+    }
+
+    Set<Path> created = new HashSet<>();
+    Set<Path> deleted = new HashSet<>();
+    for (Path entry : registration.pendingSince.keySet()) {
+      boolean existed = registration.entries.contains(entry);
+      boolean exists = Files.exists(entry);
+      if (exists) {
+        if (existed && !registration.deletedEntries.contains(entry)) {
+          // Only modified
+          continue;
+        }
+        // An entry that has been replaced counts as deleted and created
+        if (existed) {
+          deleted.add(entry);
+        }
+        created.add(entry);
+        registration.entries.add(entry);
+      } else if (existed) {
+        deleted.add(entry);
+        registration.entries.remove(entry);
+      }
+    }
+    registration.pendingSince.clear();
+    registration.deletedEntries.clear();
+
+    if (created.isEmpty() && deleted.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(new DirectoryChanges(registration.directory, created, deleted));
+  }
+
+  private void notifyListener(Registration registration, DirectoryChanges changes) {
+    if (registration.cancelled) {
+      return;
+    }
+    log.debug("Changes in {}: {} created, {} deleted", registration.directory, changes.getCreated().size(), changes.getDeleted().size());
+    try {
+      registration.listener.accept(changes);
+    } catch (RuntimeException e) {
+      log.warn("Listener failed to handle changes in: {}", registration.directory, e);
+    }
+  }
+
+  /**
+   * Returns when the specified entry was last modified. For directories, this includes their direct entries since
+   * files being written to a directory don't change the directory's modification time.
+   */
+  private static long getLastModified(Path entry) {
+    try {
+      long lastModified = Files.getLastModifiedTime(entry).toMillis();
+      if (!Files.isDirectory(entry)) {
+        return lastModified;
+      }
+      try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(entry)) {
+        for (Path child : directoryStream) {
+          lastModified = Math.max(lastModified, Files.getLastModifiedTime(child).toMillis());
+        }
+      }
+      return lastModified;
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static Set<Path> listEntries(Path directory) throws IOException {
+    Set<Path> entries = new HashSet<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+      directoryStream.forEach(entries::add);
+    }
+    return entries;
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    synchronized (lock) {
+      if (watcherThread != null) {
+        watcherThread.interrupt();
+      }
+      if (watchService != null) {
+        watchService.close();
+      }
+    }
+  }
+
+  /**
+   * Entries of a watched directory that have been created or deleted since the last notification. An entry that has
+   * been replaced is contained in both.
+   */
+  @Value
+  public static class DirectoryChanges {
+    Path directory;
+    Set<Path> created;
+    Set<Path> deleted;
+  }
+
+  public class Registration {
+    private final Path directory;
+    private final Consumer<DirectoryChanges> listener;
+    /** The entries of the directory as of the last notification. */
+    private final Set<Path> entries;
+    /** Changed entries and when they were last changed. */
+    private final Map<Path, Long> pendingSince = new HashMap<>();
+    /** Changed entries that have been deleted at some point, as opposed to just modified. */
+    private final Set<Path> deletedEntries = new HashSet<>();
+    private long firstPendingChange;
+    private WatchKey watchKey;
+    /** The last modification time of the directory, for directories that are scanned. */
+    private long lastModified;
+    private boolean overflowed;
+    private volatile boolean cancelled;
+
+    private Registration(Path directory, Consumer<DirectoryChanges> listener, Set<Path> entries) {
+      this.directory = directory;
+      this.listener = listener;
+      this.entries = entries;
+    }
+
+    private void touch(Path entry, long time, boolean deleted) {
+      if (pendingSince.isEmpty()) {
+        firstPendingChange = time;
+      }
+      pendingSince.put(entry, time);
+      if (deleted) {
+        deletedEntries.add(entry);
+      }
+    }
+
+    /**
+     * Stops watching the directory. Pending changes are discarded.
+     */
+    public void cancel() {
+      synchronized (lock) {
+        cancelled = true;
+        registrations.remove(this);
+        if (watchKey == null) {
+          return;
+        }
+        List<Registration> keyRegistrations = registrationsByWatchKey.get(watchKey);
+        keyRegistrations.remove(this);
+        if (keyRegistrations.isEmpty()) {
+          registrationsByWatchKey.remove(watchKey);
+          watchKey.cancel();
+        }
+      }
+    }
+  }
+}
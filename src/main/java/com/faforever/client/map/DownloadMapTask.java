@@ -1,9 +1,9 @@
 package com.faforever.client.map;
 
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.ArchiveInstaller;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.task.CompletableTask;
-import com.faforever.commons.io.Unzipper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -52,12 +52,12 @@ public class DownloadMapTask extends CompletableTask<Void> {
     Path targetDirectory = preferencesService.getPreferences().getForgedAlliance().getCustomMapsDirectory();
 
     try (InputStream inputStream = urlConnection.getInputStream()) {
-      Unzipper.from(inputStream)
+      ArchiveInstaller.from(inputStream)
           .zipBombByteCountThreshold(100_000_000)
           .to(targetDirectory)
           .totalBytes(bytesToRead)
           .listener(this::updateProgress)
-          .unzip();
+          .install();
     }
 
     return null;
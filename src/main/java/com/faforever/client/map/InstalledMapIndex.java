@@ -0,0 +1,302 @@
+package com.faforever.client.map;
+
+import com.faforever.client.map.MapBean.Type;
+import com.faforever.client.preferences.PreferencesService;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps the metadata of all installed maps in a file in the cache directory, so that the maps don't need to be read
+ * at every start. A map is only read again if the size or the last modification time of its scenario file changed.
+ * Maps that need to be read are read using a small pool of threads, since evaluating the scenario file is expensive.
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InstalledMapIndex {
+
+  private static final String INDEX_FILE_NAME = "installed-maps.json";
+  private static final String SCENARIO_FILE_SUFFIX = "_scenario.lua";
+  /** Reading maps is partly CPU bound (Lua) and partly I/O bound, but too many threads would just compete for the disk. */
+  private static final int MAX_READER_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+  private final PreferencesService preferencesService;
+
+  private final Gson gson = new Gson();
+  /** Indexed maps by absolute folder path, loaded lazily. */
+  private Map<String, IndexedMap> indexedMaps;
+
+  /**
+   * Brings the index up to date with the specified map folders and returns the maps in the same order. Folders that
+   * don't contain a readable map are left out.
+   *
+   * @param mapReader reads a map folder that isn't indexed or has changed
+   */
+  public synchronized List<MapBean> update(List<Path> mapFolders, Function<Path, MapBean> mapReader) {
+    return update(mapFolders, mapReader, (done, total) -> {
+    });
+  }
+
+  /**
+   * Like {@link #update(List, Function)}, but reports the number of maps that are done, whenever a map has been read.
+   */
+  public synchronized List<MapBean> update(List<Path> mapFolders, Function<Path, MapBean> mapReader, ProgressListener progressListener) {
+    return index(mapFolders, mapReader, true, progressListener);
+  }
+
+  /**
+   * Like {@link #update(List, Function)}, but keeps all other indexed maps. Used for maps that have been added to a
+   * map directory.
+   */
+  public synchronized List<MapBean> add(List<Path> mapFolders, Function<Path, MapBean> mapReader) {
+    return index(mapFolders, mapReader, false, (done, total) -> {
+    });
+  }
+
+  /**
+   * @param complete whether the specified folders are all installed maps, in which case all other maps are removed from
+   * the index
+   */
+  private List<MapBean> index(List<Path> mapFolders, Function<Path, MapBean> mapReader, boolean complete, ProgressListener progressListener) {
+    Map<String, IndexedMap> previousMaps = getIndexedMaps();
+    Map<String, IndexedMap> currentMaps = complete ? new HashMap<>() : new HashMap<>(previousMaps);
+    List<MapBean> maps = new ArrayList<>();
+    List<Integer> foldersToRead = new ArrayList<>();
+
+    for (Path mapFolder : mapFolders) {
+      String folder = mapFolder.toAbsolutePath().toString();
+      IndexedMap indexedMap = previousMaps.get(folder);
+      if (indexedMap != null && isUnchanged(mapFolder, indexedMap)) {
+        currentMaps.put(folder, indexedMap);
+        maps.add(indexedMap.toMapBean());
+      } else {
+        foldersToRead.add(maps.size());
+        maps.add(null);
+      }
+    }
+
+    int total = mapFolders.size();
+    AtomicInteger done = new AtomicInteger(total - foldersToRead.size());
+    progressListener.updateProgress(done.get(), total);
+    Runnable onMapRead = () -> progressListener.updateProgress(done.incrementAndGet(), total);
+
+    readMaps(mapFolders, foldersToRead, maps, mapReader, onMapRead).forEach(indexedMap -> currentMaps.put(indexedMap.getFolder(), indexedMap));
+    log.debug("Indexed {} installed maps, {} of which had to be read", mapFolders.size(), foldersToRead.size());
+
+    indexedMaps = currentMaps;
+    writeIndex(currentMaps);
+    return maps.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Reads the maps at the specified positions in parallel and puts them into the list of maps.
+   *
+   * @param onMapRead called on the reading thread after each map, whether it could be read or not
+   * @return the entries for all maps that could be read
+   */
+  private List<IndexedMap> readMaps(List<Path> mapFolders, List<Integer> positions, List<MapBean> maps, Function<Path, MapBean> mapReader, Runnable onMapRead) {
+    if (positions.isEmpty()) {
+      return List.of();
+    }
+
+    int threads = Math.min(positions.size(), MAX_READER_THREADS);
+    ExecutorService readerPool = Executors.newFixedThreadPool(threads);
+    try {
+      List<CompletableFuture<Optional<IndexedMap>>> futures = positions.stream()
+          .map(position -> CompletableFuture.supplyAsync(() -> readMap(mapFolders.get(position), mapReader), readerPool)
+              .whenComplete((indexedMap, throwable) -> onMapRead.run()))
+          .collect(Collectors.toList());
+
+      List<IndexedMap> readMaps = new ArrayList<>();
+      for (int i = 0; i < positions.size(); i++) {
+        int position = positions.get(i);
+        futures.get(i).join().ifPresent(indexedMap -> {
+          maps.set(position, indexedMap.toMapBean());
+          readMaps.add(indexedMap);
+        });
+      }
+      return readMaps;
+    } finally {
+      readerPool.shutdown();
+    }
+  }
+
+  private Optional<IndexedMap> readMap(Path mapFolder, Function<Path, MapBean> mapReader) {
+    try {
+      Path scenarioFile = findScenarioFile(mapFolder);
+      BasicFileAttributes attributes = Files.readAttributes(scenarioFile, BasicFileAttributes.class);
+      MapBean mapBean = mapReader.apply(mapFolder);
+      return Optional.of(IndexedMap.of(mapFolder, scenarioFile, attributes, mapBean));
+    } catch (IOException | MapLoadException e) {
+      log.warn("Map could not be read: {}", mapFolder.getFileName(), e);
+      return Optional.empty();
+    }
+  }
+
+  private static Path findScenarioFile(Path mapFolder) throws IOException {
+    if (!Files.isDirectory(mapFolder)) {
+      throw new MapLoadException("Not a folder: " + mapFolder.toAbsolutePath());
+    }
+    try (Stream<Path> files = Files.list(mapFolder)) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(SCENARIO_FILE_SUFFIX))
+          .findFirst()
+          .orElseThrow(() -> new MapLoadException("Map folder does not contain a *_scenario.lua: " + mapFolder.toAbsolutePath()));
+    }
+  }
+
+  private static boolean isUnchanged(Path mapFolder, IndexedMap indexedMap) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(mapFolder.resolve(indexedMap.getScenarioFileName()), BasicFileAttributes.class);
+      return attributes.size() == indexedMap.getScenarioSize()
+          && attributes.lastModifiedTime().toMillis() == indexedMap.getScenarioLastModified();
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException e) {
+      log.debug("Scenario file of indexed map could not be checked: {}", mapFolder, e);
+      return false;
+    }
+  }
+
+  private Map<String, IndexedMap> getIndexedMaps() {
+    if (indexedMaps == null) {
+      indexedMaps = readIndex();
+    }
+    return indexedMaps;
+  }
+
+  private Map<String, IndexedMap> readIndex() {
+    Path file = getIndexFile();
+    Map<String, IndexedMap> maps = new HashMap<>();
+    if (Files.notExists(file)) {
+      return maps;
+    }
+
+    try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+      Index persisted = gson.fromJson(reader, Index.class);
+      if (persisted != null && persisted.getMaps() != null) {
+        persisted.getMaps().forEach(indexedMap -> maps.put(indexedMap.getFolder(), indexedMap));
+      }
+    } catch (IOException | JsonParseException e) {
+      log.warn("Installed map index could not be read from: {}", file, e);
+    }
+    return maps;
+  }
+
+  private void writeIndex(Map<String, IndexedMap> maps) {
+    Path file = getIndexFile();
+    Index index = new Index();
+    index.setMaps(new ArrayList<>(maps.values()));
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), INDEX_FILE_NAME, null);
+      try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        gson.toJson(index, writer);
+      }
+      Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Installed map index could not be written to: {}", file, e);
+    }
+  }
+
+  private Path getIndexFile() {
+    return preferencesService.getCacheDirectory().resolve(INDEX_FILE_NAME);
+  }
+
+  @Data
+  private static class Index {
+    private List<IndexedMap> maps = new ArrayList<>();
+  }
+
+  /**
+   * The metadata of an installed map as read from its scenario file. {@link MapBean} itself consists of JavaFX
+   * properties, which can't be serialized.
+   */
+  @Data
+  private static class IndexedMap {
+    private String folder;
+    private String scenarioFileName;
+    private long scenarioSize;
+    /** Epoch millis of the last modification of the scenario file. */
+    private long scenarioLastModified;
+
+    private String folderName;
+    private String displayName;
+    private String description;
+    private Type type;
+    private int widthInPixels;
+    private int heightInPixels;
+    private int players;
+    private String version;
+
+    static IndexedMap of(Path mapFolder, Path scenarioFile, BasicFileAttributes attributes, MapBean mapBean) {
+      IndexedMap indexedMap = new IndexedMap();
+      indexedMap.setFolder(mapFolder.toAbsolutePath().toString());
+      indexedMap.setScenarioFileName(scenarioFile.getFileName().toString());
+      indexedMap.setScenarioSize(attributes.size());
+      indexedMap.setScenarioLastModified(attributes.lastModifiedTime().toMillis());
+      indexedMap.setFolderName(mapBean.getFolderName());
+      indexedMap.setDisplayName(mapBean.getDisplayName());
+      indexedMap.setDescription(mapBean.getDescription());
+      indexedMap.setType(mapBean.getType());
+      indexedMap.setWidthInPixels(mapBean.getSize().getWidthInPixels());
+      indexedMap.setHeightInPixels(mapBean.getSize().getHeightInPixels());
+      indexedMap.setPlayers(mapBean.getPlayers());
+      indexedMap.setVersion(mapBean.getVersion() != null ? mapBean.getVersion().toString() : null);
+      return indexedMap;
+    }
+
+    MapBean toMapBean() {
+      MapBean mapBean = new MapBean();
+      mapBean.setFolderName(folderName);
+      mapBean.setDisplayName(displayName);
+      mapBean.setDescription(description);
+      mapBean.setType(type);
+      mapBean.setSize(MapSize.valueOf(widthInPixels, heightInPixels));
+      mapBean.setPlayers(players);
+      if (version != null) {
+        mapBean.setVersion(new ComparableVersion(version));
+      }
+      return mapBean;
+    }
+  }
+
+  @FunctionalInterface
+  public interface ProgressListener {
+    void updateProgress(long done, long total);
+  }
+}
@@ -0,0 +1,250 @@
+package com.faforever.client.map;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.commons.map.PreviewGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Renders previews of installed maps from their {@code .scmap} file, so that they don't need to be fetched from the
+ * vault and are available offline. Each map is rendered once in all {@link Variant variants}, which are stored in the
+ * cache directory until the map's {@code .scmap} file changes. Rendering requires reading the whole {@code .scmap}
+ * file, so it is done on a single low priority thread and previews are only available once they have been rendered.
+ * The {@code .scmap} file of a map and its last modification time are looked up once and kept in memory until the map
+ * is {@link #render(Collection) rendered} again or {@link #forget(Collection) forgotten}.
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalMapPreviewCache implements DisposableBean {
+
+  private static final Path CACHE_SUB_FOLDER = Paths.get("maps", "local");
+  private static final String SCMAP_FILE_SUFFIX = ".scmap";
+  private static final String PREVIEW_FORMAT = "png";
+
+  private final PreferencesService preferencesService;
+
+  /** The {@code .scmap} files of the map folders that have been looked up, if they have one. */
+  private final Map<Path, Optional<ScmapFile>> scmapFiles = new ConcurrentHashMap<>();
+  /** Map folders that are waiting to be rendered. */
+  private final Set<Path> pendingMapFolders = ConcurrentHashMap.newKeySet();
+  /**
+   * Map folders that could not be rendered, with the last modification time of their {@code .scmap} file. They are
+   * not tried again until it changes.
+   */
+  private final Map<Path, Long> failedMapFolders = new ConcurrentHashMap<>();
+  private final ExecutorService renderer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "map-preview-renderer");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  /**
+   * Returns the smallest cached preview of the specified map that is at least {@code size} pixels wide, or the largest
+   * one if none is. If the map has no up to date previews yet, they are rendered in background.
+   */
+  public Optional<Path> getPreview(Path mapFolder, int size) {
+    Optional<ScmapFile> scmapFile = getScmapFile(mapFolder);
+    if (scmapFile.isEmpty()) {
+      return Optional.empty();
+    }
+    Path previewFile = getPreviewFile(mapFolder, Variant.forSize(size));
+    if (isUpToDate(previewFile, scmapFile.get())) {
+      return Optional.of(previewFile);
+    }
+    render(mapFolder);
+    return Optional.empty();
+  }
+
+  /**
+   * Renders the previews of the specified maps in background, unless they are up to date already. Their {@code .scmap}
+   * files are looked up again, since the maps may have been replaced.
+   */
+  public void render(Collection<Path> mapFolders) {
+    forget(mapFolders);
+    mapFolders.forEach(this::render);
+  }
+
+  /**
+   * Forgets the {@code .scmap} files of the specified maps, for instance because they have been deleted.
+   */
+  public void forget(Collection<Path> mapFolders) {
+    mapFolders.forEach(mapFolder -> {
+      scmapFiles.remove(mapFolder);
+      failedMapFolders.remove(mapFolder);
+    });
+  }
+
+  private void render(Path mapFolder) {
+    if (!pendingMapFolders.add(mapFolder)) {
+      return;
+    }
+    renderer.execute(() -> {
+      try {
+        renderIfOutdated(mapFolder);
+      } finally {
+        pendingMapFolders.remove(mapFolder);
+      }
+    });
+  }
+
+  private void renderIfOutdated(Path mapFolder) {
+    Optional<ScmapFile> scmapFile = getScmapFile(mapFolder);
+    if (scmapFile.isEmpty()) {
+      return;
+    }
+    boolean upToDate = Stream.of(Variant.values())
+        .allMatch(variant -> isUpToDate(getPreviewFile(mapFolder, variant), scmapFile.get()));
+    long scmapLastModified = scmapFile.get().getLastModified();
+    if (upToDate || Objects.equals(failedMapFolders.get(mapFolder), scmapLastModified)) {
+      return;
+    }
+
+    log.debug("Rendering previews of map: {}", mapFolder.getFileName());
+    try {
+      Variant largest = Variant.values()[Variant.values().length - 1];
+      BufferedImage preview = PreviewGenerator.generatePreview(mapFolder, largest.size, largest.size);
+      for (Variant variant : Variant.values()) {
+        writePreview(scaleDown(preview, variant.size), getPreviewFile(mapFolder, variant));
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Preview of map could not be rendered: {}", mapFolder.getFileName(), e);
+      failedMapFolders.put(mapFolder, scmapLastModified);
+    }
+  }
+
+  private static BufferedImage scaleDown(BufferedImage image, int size) {
+    if (image.getWidth() <= size && image.getHeight() <= size) {
+      return image;
+    }
+    double scale = Math.min((double) size / image.getWidth(), (double) size / image.getHeight());
+    int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+    BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
+  }
+
+  private static void writePreview(BufferedImage image, Path previewFile) throws IOException {
+    Files.createDirectories(previewFile.getParent());
+    Path tempFile = Files.createTempFile(previewFile.getParent(), previewFile.getFileName().toString(), null);
+    try {
+      ImageIO.write(image, PREVIEW_FORMAT, tempFile.toFile());
+      Files.move(tempFile, previewFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Returns whether the preview has been rendered after the last modification of the {@code .scmap} file.
+   */
+  private static boolean isUpToDate(Path previewFile, ScmapFile scmapFile) {
+    try {
+      return Files.getLastModifiedTime(previewFile).toMillis() >= scmapFile.getLastModified();
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException e) {
+      log.debug("Preview could not be checked: {}", previewFile, e);
+      return false;
+    }
+  }
+
+  private Optional<ScmapFile> getScmapFile(Path mapFolder) {
+    return scmapFiles.computeIfAbsent(mapFolder, LocalMapPreviewCache::findScmapFile);
+  }
+
+  private static Optional<ScmapFile> findScmapFile(Path mapFolder) {
+    try (Stream<Path> files = Files.list(mapFolder)) {
+      Optional<Path> scmapFile = files
+          .filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(SCMAP_FILE_SUFFIX))
+          .findFirst();
+      if (scmapFile.isEmpty()) {
+        return Optional.empty();
+      }
+      return Optional.of(new ScmapFile(scmapFile.get(), Files.getLastModifiedTime(scmapFile.get()).toMillis()));
+    } catch (IOException e) {
+      log.debug("Map folder could not be listed: {}", mapFolder, e);
+      return Optional.empty();
+    }
+  }
+
+  private Path getPreviewFile(Path mapFolder, Variant variant) {
+    String folderName = mapFolder.getFileName().toString().toLowerCase(Locale.ROOT);
+    return preferencesService.getCacheDirectory()
+        .resolve(CACHE_SUB_FOLDER)
+        .resolve(variant.folderName)
+        .resolve(folderName + "." + PREVIEW_FORMAT);
+  }
+
+  @Override
+  public void destroy() {
+    renderer.shutdownNow();
+  }
+
+  @Value
+  private static class ScmapFile {
+    Path path;
+    long lastModified;
+  }
+
+  /**
+   * The sizes in which previews are rendered. Small and large match the size of the vault's previews.
+   */
+  enum Variant {
+    SMALL("small", 128), MEDIUM("medium", 256), LARGE("large", 512);
+
+    private final String folderName;
+    private final int size;
+
+    Variant(String folderName, int size) {
+      this.folderName = folderName;
+      this.size = size;
+    }
+
+    static Variant forSize(int size) {
+      for (Variant variant : values()) {
+        if (variant.size >= size) {
+          return variant;
+        }
+      }
+      return LARGE;
+    }
+  }
+}
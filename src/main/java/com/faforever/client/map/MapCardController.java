@@ -82,7 +82,7 @@ public class MapCardController implements Controller<Node> {
     this.map = map;
     Image image;
     if (map.getLargeThumbnailUrl() != null) {
-      image = mapService.loadPreview(map.getLargeThumbnailUrl(), PreviewSize.LARGE);
+      image = mapService.loadPreview(map, PreviewSize.LARGE, (int) thumbnailImageView.getFitWidth());
     } else {
       image = IdenticonUtil.createIdenticon(map.getId());
     }
@@ -6,6 +6,10 @@ import com.faforever.client.config.ClientProperties.Vault;
 import com.faforever.client.fa.FaStrings;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.ArchiveInstaller;
+import com.faforever.client.io.DirectoryWatchService;
+import com.faforever.client.io.DirectoryWatchService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatchService.Registration;
 import com.faforever.client.map.MapBean.Type;
 import com.faforever.client.map.generator.MapGeneratedEvent;
 import com.faforever.client.map.generator.MapGeneratorService;
@@ -24,15 +28,16 @@ import com.faforever.client.util.Tuple;
 import com.faforever.client.vault.search.SearchController.SearchConfig;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.image.Image;
 import lombok.SneakyThrows;
+import lombok.Value;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -53,12 +58,12 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -66,6 +71,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import static com.faforever.client.util.LuaUtil.loadFile;
@@ -73,9 +79,9 @@ import static com.github.nocatch.NoCatch.noCatch;
 import static com.google.common.net.UrlEscapers.urlFragmentEscaper;
 import static java.lang.String.format;
 import static java.nio.file.Files.list;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 
 @Lazy
@@ -84,6 +90,8 @@ public class MapService implements InitializingBean, DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   public static final String DEBUG = "debug";
+  /** Maximum number of folder names per map lookup, to keep the request URL reasonably short. */
+  private static final int MAX_FOLDER_NAMES_PER_REQUEST = 50;
 
   private final PreferencesService preferencesService;
   private final TaskService taskService;
@@ -97,13 +105,19 @@ public class MapService implements InitializingBean, DisposableBean {
   private final EventBus eventBus;
   private final ForgedAlliancePrefs forgedAlliancePreferences;
   private final PlayerService playerService;
+  private final InstalledMapIndex installedMapIndex;
+  private final DirectoryWatchService directoryWatchService;
+  private final LocalMapPreviewCache localMapPreviewCache;
 
   private final String mapDownloadUrlFormat;
   private final String mapPreviewUrlFormat;
-  private final Map<Path, MapBean> pathToMap = new HashMap<>();
   private final ObservableList<MapBean> installedMaps = FXCollections.observableArrayList();
-  private final Map<String, MapBean> mapsByFolderName = new HashMap<>();
-  private Thread directoryWatcherThread;
+  /**
+   * Installed maps by lower case folder name. Read from any thread, changed together with {@link #installedMaps} while
+   * holding its lock.
+   */
+  private final Map<String, InstalledMap> installedMapsByFolderKey = new ConcurrentHashMap<>();
+  private Registration directoryWatchRegistration;
 
   @Inject
   public MapService(PreferencesService preferencesService,
@@ -115,7 +129,9 @@ public class MapService implements InitializingBean, DisposableBean {
                     UiService uiService,
                     MapGeneratorService mapGeneratorService,
                     ClientProperties clientProperties,
-                    EventBus eventBus, PlayerService playerService) {
+                    EventBus eventBus, PlayerService playerService,
+                    InstalledMapIndex installedMapIndex, DirectoryWatchService directoryWatchService,
+                    LocalMapPreviewCache localMapPreviewCache) {
     this.preferencesService = preferencesService;
     this.taskService = taskService;
     this.applicationContext = applicationContext;
@@ -128,20 +144,12 @@ public class MapService implements InitializingBean, DisposableBean {
     this.eventBus = eventBus;
     forgedAlliancePreferences = preferencesService.getPreferences().getForgedAlliance();
     this.playerService = playerService;
+    this.installedMapIndex = installedMapIndex;
+    this.directoryWatchService = directoryWatchService;
+    this.localMapPreviewCache = localMapPreviewCache;
     Vault vault = clientProperties.getVault();
     this.mapDownloadUrlFormat = vault.getMapDownloadUrlFormat();
     this.mapPreviewUrlFormat = vault.getMapPreviewUrlFormat();
-
-    installedMaps.addListener((ListChangeListener<MapBean>) change -> {
-      while (change.next()) {
-        for (MapBean mapBean : change.getRemoved()) {
-          mapsByFolderName.remove(mapBean.getFolderName().toLowerCase());
-        }
-        for (MapBean mapBean : change.getAddedSubList()) {
-          mapsByFolderName.put(mapBean.getFolderName().toLowerCase(), mapBean);
-        }
-      }
-    });
   }
 
   @VisibleForTesting
@@ -183,47 +191,37 @@ public class MapService implements InitializingBean, DisposableBean {
 
     try {
       Files.createDirectories(mapsDirectory);
-      Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
-      directoryWatcherThread = startDirectoryWatcher(mapsDirectory);
+      Optional.ofNullable(directoryWatchRegistration).ifPresent(Registration::cancel);
+      directoryWatchRegistration = directoryWatchService.watch(mapsDirectory, this::onMapsDirectoryChanged);
     } catch (IOException e) {
       logger.warn("Could not start map directory watcher", e);
       // TODO notify user
     }
 
-    installedMaps.clear();
+    synchronized (installedMaps) {
+      installedMapsByFolderKey.clear();
+      installedMaps.clear();
+    }
     loadInstalledMaps();
   }
 
-  private Thread startDirectoryWatcher(Path mapsDirectory) {
-    Thread thread = new Thread(() -> noCatch(() -> {
-      try (WatchService watcher = mapsDirectory.getFileSystem().newWatchService()) {
-        forgedAlliancePreferences.getCustomMapsDirectory().register(watcher, ENTRY_DELETE, ENTRY_CREATE);
-        while (!Thread.interrupted()) {
-          WatchKey key = watcher.take();
-          key.pollEvents().stream()
-              .filter(event -> event.kind() == ENTRY_DELETE || event.kind() == ENTRY_CREATE)
-              .forEach(event -> {
-                if (event.kind() == ENTRY_DELETE) {
-                  removeMap(mapsDirectory.resolve((Path) event.context()));
-                } else if (event.kind() == ENTRY_CREATE) {
-                  Path mapPath = mapsDirectory.resolve((Path) event.context());
-                  try {
-                    Thread.sleep(1000);
-                  } catch (InterruptedException e) {
-                    logger.debug("Thread interrupted ({})", e.getMessage());
-                  }
-                  addInstalledMap(mapPath);
-                }
-              });
-          key.reset();
-        }
-      } catch (InterruptedException e) {
-        logger.debug("Watcher terminated ({})", e.getMessage());
-      }
-    }));
-    thread.setDaemon(true);
-    thread.start();
-    return thread;
+  /**
+   * Updates the installed maps after maps have been added to or removed from the custom maps directory, for instance by
+   * extracting a map pack.
+   */
+  private void onMapsDirectoryChanged(DirectoryChanges changes) {
+    // Replaced maps are contained in both, so they are removed and read again
+    removeInstalledMaps(changes.getDeleted());
+    localMapPreviewCache.forget(changes.getDeleted());
+
+    List<Path> mapPaths = changes.getCreated().stream()
+        .filter(mapPath -> Files.isDirectory(mapPath) && isMapFolderCandidate(mapPath))
+        .collect(toList());
+    if (!mapPaths.isEmpty()) {
+      addInstalledMaps(mapPaths, installedMapIndex.add(mapPaths, this::readMap));
+      // New maps are likely to be looked at soon
+      localMapPreviewCache.render(mapPaths);
+    }
   }
 
   private void loadInstalledMaps() {
@@ -234,20 +232,15 @@ public class MapService implements InitializingBean, DisposableBean {
         Path officialMapsPath = forgedAlliancePreferences.getInstallationPath().resolve("maps");
         try (Stream<Path> customMapsDirectoryStream = list(forgedAlliancePreferences.getCustomMapsDirectory())) {
           List<Path> mapPaths = new ArrayList<>();
-          customMapsDirectoryStream.collect(toCollection(() -> mapPaths));
+          customMapsDirectoryStream
+              .filter(MapService::isMapFolderCandidate)
+              .collect(toCollection(() -> mapPaths));
           officialMaps.stream()
               .map(officialMapsPath::resolve)
               .collect(toCollection(() -> mapPaths));
 
-          long totalMaps = mapPaths.size();
-          long mapsRead = 0;
-          for (Path mapPath : mapPaths) {
-            if (mapPath.getFileName().toString().equals(DEBUG)) {
-              continue;
-            }
-            updateProgress(++mapsRead, totalMaps);
-            addInstalledMap(mapPath);
-          }
+          List<MapBean> mapBeans = installedMapIndex.update(mapPaths, MapService.this::readMap, this::updateProgress);
+          addInstalledMaps(mapPaths, mapBeans);
         } catch (IOException e) {
           logger.warn("Maps could not be read from: " + forgedAlliancePreferences.getCustomMapsDirectory(), e);
         }
@@ -256,22 +249,67 @@ public class MapService implements InitializingBean, DisposableBean {
     });
   }
 
-  private void removeMap(Path path) {
-    installedMaps.remove(pathToMap.remove(path));
+  /**
+   * Returns whether an entry of the custom maps directory may be a map, excluding the debug folder and maps that are
+   * still being installed.
+   */
+  private static boolean isMapFolderCandidate(Path mapPath) {
+    return !mapPath.getFileName().toString().equals(DEBUG) && !ArchiveInstaller.isStagingDirectory(mapPath);
+  }
+
+  /**
+   * Adds the specified maps with a single change to the list of installed maps, so that listeners are notified only
+   * once.
+   */
+  private void addInstalledMaps(List<Path> mapPaths, List<MapBean> mapBeans) {
+    Map<String, Path> pathsByFolderName = new HashMap<>();
+    mapPaths.forEach(mapPath -> pathsByFolderName.putIfAbsent(mapPath.getFileName().toString(), mapPath));
+
+    synchronized (installedMaps) {
+      List<MapBean> newMaps = new ArrayList<>();
+      for (MapBean mapBean : mapBeans) {
+        // If a map is installed twice, like an official map that has been copied to the custom maps, the first one wins
+        InstalledMap installedMap = new InstalledMap(pathsByFolderName.get(mapBean.getFolderName()), mapBean);
+        if (installedMapsByFolderKey.putIfAbsent(getFolderKey(mapBean.getFolderName()), installedMap) == null) {
+          newMaps.add(mapBean);
+        }
+      }
+      installedMaps.addAll(newMaps);
+    }
   }
 
   private void addInstalledMap(Path path) throws MapLoadException {
     try {
-      MapBean mapBean = readMap(path);
-      pathToMap.put(path, mapBean);
-      if (!mapsByFolderName.containsKey(mapBean.getFolderName())) {
-        installedMaps.add(mapBean);
-      }
+      addInstalledMaps(List.of(path), List.of(readMap(path)));
     } catch (MapLoadException e) {
       logger.warn("Map could not be read: " + path.getFileName(), e);
     }
   }
 
+  /**
+   * Removes the maps in the specified folders with a single change to the list of installed maps.
+   */
+  private void removeInstalledMaps(Collection<Path> mapPaths) {
+    synchronized (installedMaps) {
+      List<MapBean> removedMaps = new ArrayList<>();
+      for (Path mapPath : mapPaths) {
+        String folderKey = getFolderKey(mapPath.getFileName().toString());
+        InstalledMap installedMap = installedMapsByFolderKey.get(folderKey);
+        if (installedMap != null && mapPath.equals(installedMap.getPath())) {
+          installedMapsByFolderKey.remove(folderKey);
+          removedMaps.add(installedMap.getMap());
+        }
+      }
+      if (!removedMaps.isEmpty()) {
+        installedMaps.removeAll(removedMaps);
+      }
+    }
+  }
+
+  private static String getFolderKey(String folderName) {
+    return folderName.toLowerCase(Locale.ROOT);
+  }
+
   @Subscribe
   public void onMapGenerated(MapGeneratedEvent event) {
     addInstalledMap(getPathForMap(event.getMapName()));
@@ -325,7 +363,19 @@ public class MapService implements InitializingBean, DisposableBean {
         return mapGeneratorService.getGeneratedMapPreviewImage();
       }
     }
-    return loadPreview(getPreviewUrl(mapName, mapPreviewUrlFormat, previewSize), previewSize);
+    return loadLocalPreview(mapName, previewSize.size)
+        .orElseGet(() -> loadPreview(getPreviewUrl(mapName, mapPreviewUrlFormat, previewSize), previewSize));
+  }
+
+  /**
+   * Loads the preview of an installed map from the previews rendered from its map file, if they have been rendered
+   * already. Loaded previews are kept in memory by the asset service.
+   */
+  private Optional<Image> loadLocalPreview(String mapFolderName, int size) {
+    return Optional.ofNullable(installedMapsByFolderKey.get(getFolderKey(mapFolderName)))
+        .map(InstalledMap::getPath)
+        .flatMap(mapPath -> localMapPreviewCache.getPreview(mapPath, size))
+        .map(previewFile -> assetService.loadAndCacheLocalImage(previewFile, size, size));
   }
 
 
@@ -335,8 +385,7 @@ public class MapService implements InitializingBean, DisposableBean {
 
   public Optional<MapBean> getMapLocallyFromName(String mapFolderName) {
     logger.debug("Trying to find map '{}' locally", mapFolderName);
-    String mapFolderKey = mapFolderName.toLowerCase();
-    return Optional.ofNullable(mapsByFolderName.get(mapFolderKey));
+    return Optional.ofNullable(installedMapsByFolderKey.get(getFolderKey(mapFolderName))).map(InstalledMap::getMap);
   }
 
   public boolean isOfficialMap(String mapName) {
@@ -349,7 +398,7 @@ public class MapService implements InitializingBean, DisposableBean {
    */
 
   public boolean isInstalled(String mapFolderName) {
-    return mapsByFolderName.containsKey(mapFolderName.toLowerCase());
+    return installedMapsByFolderKey.containsKey(getFolderKey(mapFolderName));
   }
 
 
@@ -389,9 +438,22 @@ public class MapService implements InitializingBean, DisposableBean {
   /**
    * Loads the preview of a map or returns a "unknown map" image.
    */
-
-  @Cacheable(value = CacheNames.MAP_PREVIEW)
   public Image loadPreview(MapBean map, PreviewSize previewSize) {
+    return loadPreview(map, previewSize, 0);
+  }
+
+  /**
+   * Loads the preview of a map, scaled down to fit into {@code maxSize} x {@code maxSize} pixels, or returns a "unknown
+   * map" image. Installed maps use their locally rendered preview, if available.
+   */
+  public Image loadPreview(MapBean map, PreviewSize previewSize, int maxSize) {
+    if (map.getFolderName() != null) {
+      Optional<Image> localPreview = loadLocalPreview(map.getFolderName(), maxSize > 0 ? maxSize : previewSize.size);
+      if (localPreview.isPresent()) {
+        return localPreview.get();
+      }
+    }
+
     URL url;
     switch (previewSize) {
       case SMALL:
@@ -403,13 +465,20 @@ public class MapService implements InitializingBean, DisposableBean {
       default:
         throw new ProgrammingError("Uncovered preview size: " + previewSize);
     }
-    return loadPreview(url, previewSize);
+    return loadPreview(url, previewSize, maxSize);
   }
 
-  @Cacheable(value = CacheNames.MAP_PREVIEW)
   public Image loadPreview(URL url, PreviewSize previewSize) {
+    return loadPreview(url, previewSize, 0);
+  }
+
+  /**
+   * Loads the preview of a map, scaled down to fit into {@code maxSize} x {@code maxSize} pixels, or returns a "unknown
+   * map" image. A {@code maxSize} of {@code 0} keeps the original size.
+   */
+  public Image loadPreview(URL url, PreviewSize previewSize, int maxSize) {
     return assetService.loadAndCacheImage(url, Paths.get("maps").resolve(previewSize.folderName),
-        () -> uiService.getThemeImage(UiService.UNKNOWN_MAP_IMAGE));
+        () -> uiService.getThemeImage(UiService.UNKNOWN_MAP_IMAGE), maxSize, maxSize);
   }
 
 
@@ -442,11 +511,24 @@ public class MapService implements InitializingBean, DisposableBean {
     return path;
   }
 
+  /**
+   * Returns the folder of the specified map, ignoring the case of its name. Only maps that aren't known to be installed
+   * yet, like maps that have just been downloaded, require the maps directory to be listed.
+   */
   public Path getPathForMapInsensitive(String approxName) {
-    for (Path entry : noCatch(() -> Files.newDirectoryStream(getMapsDirectory(approxName)))) {
-      if (entry.getFileName().toString().equalsIgnoreCase(approxName)) {
-        return entry;
+    InstalledMap installedMap = installedMapsByFolderKey.get(getFolderKey(approxName));
+    if (installedMap != null && installedMap.getPath() != null) {
+      return installedMap.getPath();
+    }
+
+    try (DirectoryStream<Path> directoryStream = noCatch(() -> Files.newDirectoryStream(getMapsDirectory(approxName)))) {
+      for (Path entry : directoryStream) {
+        if (entry.getFileName().toString().equalsIgnoreCase(approxName)) {
+          return entry;
+        }
       }
+    } catch (IOException e) {
+      logger.warn("Maps directory could not be listed", e);
     }
     return null;
   }
@@ -475,6 +557,40 @@ public class MapService implements InitializingBean, DisposableBean {
     return fafService.findMapByFolderName(folderName);
   }
 
+  /**
+   * Tries to find maps by their folder names, first locally then on the server. Maps that are not installed are looked
+   * up with as few requests as possible.
+   *
+   * @return the found maps by lower case folder name
+   */
+  public CompletableFuture<Map<String, MapBean>> findByMapFolderNames(Collection<String> folderNames) {
+    Map<String, MapBean> mapsByFolderName = new HashMap<>();
+    List<String> missingFolderNames = new ArrayList<>();
+    folderNames.stream()
+        .distinct()
+        .forEach(folderName -> getMapLocallyFromName(folderName).ifPresentOrElse(
+            map -> mapsByFolderName.put(folderName.toLowerCase(), map),
+            () -> missingFolderNames.add(folderName)
+        ));
+    if (missingFolderNames.isEmpty()) {
+      return CompletableFuture.completedFuture(mapsByFolderName);
+    }
+
+    List<CompletableFuture<List<MapBean>>> futures = Lists.partition(missingFolderNames, MAX_FOLDER_NAMES_PER_REQUEST).stream()
+        .map(fafService::findMapsByFolderNames)
+        .collect(toList());
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignoredVoid -> {
+      Set<String> missingKeys = missingFolderNames.stream().map(String::toLowerCase).collect(toSet());
+      futures.stream()
+          .flatMap(future -> future.join().stream())
+          // Only maps of the requested folder names are used, whatever the server returns
+          .filter(map -> map.getFolderName() != null && missingKeys.contains(map.getFolderName().toLowerCase()))
+          .forEach(map -> mapsByFolderName.putIfAbsent(map.getFolderName().toLowerCase(), map));
+      return mapsByFolderName;
+    });
+  }
+
   public CompletableFuture<Boolean> hasPlayedMap(int playerId, String mapVersionId) {
     return fafService.getLastGameOnMap(playerId, mapVersionId)
         .thenApply(Optional::isPresent);
@@ -539,17 +655,26 @@ public class MapService implements InitializingBean, DisposableBean {
 
   @Override
   public void destroy() {
-    Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
+    Optional.ofNullable(directoryWatchRegistration).ifPresent(Registration::cancel);
+  }
+
+  @Value
+  private static class InstalledMap {
+    Path path;
+    MapBean map;
   }
 
   public enum PreviewSize {
     // These must match the preview URLs
-    SMALL("small"), LARGE("large");
+    SMALL("small", 128), LARGE("large", 512);
 
     String folderName;
+    /** The width and height of the previews, in pixels. */
+    int size;
 
-    PreviewSize(String folderName) {
+    PreviewSize(String folderName, int size) {
       this.folderName = folderName;
+      this.size = size;
     }
   }
 }
@@ -1,13 +1,10 @@
 package com.faforever.client.mod;
 
 import com.faforever.client.i18n.I18n;
-import com.faforever.client.io.FileUtils;
+import com.faforever.client.io.ArchiveInstaller;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.task.CompletableTask;
 import com.faforever.client.task.ResourceLocks;
-import com.faforever.commons.io.ByteCopier;
-import com.faforever.commons.io.Unzipper;
-import org.apache.commons.compress.archivers.ArchiveException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -15,18 +12,12 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Objects;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import static com.faforever.client.task.CompletableTask.Priority.HIGH;
 
@@ -53,82 +44,29 @@ public class InstallModTask extends CompletableTask<Void> {
   protected Void call() throws Exception {
     Objects.requireNonNull(url, "url has not been set");
 
-    Path tempFile = Files.createTempFile(preferencesService.getCacheDirectory(), "mod", null);
+    Path modsDirectory = preferencesService.getPreferences().getForgedAlliance().getModsDirectory();
 
-    logger.info("Downloading mod {} to {}", url, tempFile);
+    logger.info("Downloading mod {} to {}", url, modsDirectory);
     updateTitle(i18n.get("downloadingModTask.downloading", url));
 
-    Files.createDirectories(tempFile.getParent());
-
     URLConnection urlConnection = url.openConnection();
     int contentLength = urlConnection.getContentLength();
 
     ResourceLocks.acquireDownloadLock();
-    try (InputStream inputStream = urlConnection.getInputStream();
-         OutputStream outputStream = Files.newOutputStream(tempFile)) {
-
-      ByteCopier.from(inputStream)
-          .to(outputStream)
-          .listener(this::updateProgress)
-          .totalBytes(contentLength)
-          .copy();
-
-      extractMod(tempFile);
-    } finally {
-      ResourceLocks.freeDownloadLock();
-      try {
-        Files.deleteIfExists(tempFile);
-      } catch (IOException e) {
-        logger.warn("Could not delete temporary file: " + tempFile.toAbsolutePath(), e);
-      }
-    }
-    return null;
-  }
-
-  private void extractMod(Path tempFile) throws IOException, ArchiveException {
-    Path modsDirectory = preferencesService.getPreferences().getForgedAlliance().getModsDirectory();
-
-    updateTitle(i18n.get("downloadingModTask.unzipping", modsDirectory));
-
-    deleteOldModIfExisting(tempFile, modsDirectory);
-
-    logger.info("Unzipping {} to {}", tempFile, modsDirectory);
-    try (InputStream inputStream = Files.newInputStream(tempFile)) {
-      ResourceLocks.acquireDiskLock();
-
-      Unzipper.from(inputStream)
+    ResourceLocks.acquireDiskLock();
+    try (InputStream inputStream = urlConnection.getInputStream()) {
+      // Replaces the directory of an older version of the mod, if any
+      ArchiveInstaller.from(inputStream)
           .to(modsDirectory)
           .zipBombByteCountThreshold(100_000_000)
           .listener(this::updateProgress)
-          .totalBytes(Files.size(tempFile))
-          .unzip();
-
+          .totalBytes(contentLength)
+          .install();
     } finally {
       ResourceLocks.freeDiskLock();
+      ResourceLocks.freeDownloadLock();
     }
-  }
-
-  private void deleteOldModIfExisting(Path tempFile, Path modsDirectory) {
-    try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(tempFile))) {
-      ZipEntry zipEntry = zipInputStream.getNextEntry();
-      Path pathToEntry = Paths.get(zipEntry.getName());
-      Path topLevelDirectory = getTopLevelDirectory(pathToEntry);
-      Path modDirectory = modsDirectory.resolve(topLevelDirectory);
-      if (Files.isDirectory(modDirectory)) {
-        FileUtils.deleteRecursively(modDirectory);
-        logger.trace("Deleting old version of the mod stored in {}", modDirectory);
-      }
-    } catch (Exception e) {
-      logger.warn("Could not delete directory of old mod", e);
-    }
-  }
-
-  private Path getTopLevelDirectory(Path pathToEntry) {
-    Path cutOffPath = pathToEntry;
-    while (cutOffPath.getParent() != null) {
-      cutOffPath = pathToEntry.getParent();
-    }
-    return cutOffPath;
+    return null;
   }
 
   public void setUrl(URL url) {
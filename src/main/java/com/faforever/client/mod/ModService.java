@@ -4,6 +4,10 @@ import com.faforever.client.config.CacheNames;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.fx.PlatformService;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.ArchiveInstaller;
+import com.faforever.client.io.DirectoryWatchService;
+import com.faforever.client.io.DirectoryWatchService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatchService.Registration;
 import com.faforever.client.mod.ModVersion.ModType;
 import com.faforever.client.notification.Action;
 import com.faforever.client.notification.NotificationService;
@@ -53,13 +57,13 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -68,10 +72,8 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static com.faforever.client.notification.Severity.WARN;
-import static com.github.nocatch.NoCatch.noCatch;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.file.Files.createDirectories;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
@@ -94,13 +96,14 @@ public class ModService implements InitializingBean, DisposableBean {
   private final I18n i18n;
   private final PlatformService platformService;
   private final AssetService assetService;
+  private final DirectoryWatchService directoryWatchService;
   private final ModReader modReader = new ModReader();
 
   private Path modsDirectory;
   private final Map<Path, ModVersion> pathToMod = new HashMap<>();
   private final ObservableList<ModVersion> installedModVersions = FXCollections.observableArrayList();
   private final ObservableList<ModVersion> readOnlyInstalledModVersions = FXCollections.unmodifiableObservableList(installedModVersions);
-  private Thread directoryWatcherThread;
+  private Registration directoryWatchRegistration;
 
   @Override
   public void afterPropertiesSet() {
@@ -125,8 +128,8 @@ public class ModService implements InitializingBean, DisposableBean {
   private void onModDirectoryReady() {
     try {
       createDirectories(modsDirectory);
-      Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
-      directoryWatcherThread = startDirectoryWatcher(modsDirectory);
+      Optional.ofNullable(directoryWatchRegistration).ifPresent(Registration::cancel);
+      directoryWatchRegistration = directoryWatchService.watch(modsDirectory, this::onModsDirectoryChanged);
     } catch (IOException e) {
       logger.warn("Could not start mod directory watcher", e);
       // TODO notify user
@@ -134,35 +137,40 @@ public class ModService implements InitializingBean, DisposableBean {
     loadInstalledMods();
   }
 
-  private Thread startDirectoryWatcher(Path modsDirectory) {
-    Thread thread = new Thread(() -> noCatch(() -> {
-      WatchService watcher = modsDirectory.getFileSystem().newWatchService();
-      modsDirectory.register(watcher, ENTRY_DELETE);
+  /**
+   * Updates the installed mods after mods have been added to or removed from the mods directory.
+   */
+  private void onModsDirectoryChanged(DirectoryChanges changes) {
+    // Replaced mods are contained in both, so they are removed and read again
+    List<ModVersion> removedModVersions = changes.getDeleted().stream()
+        .map(pathToMod::remove)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    logger.debug("Removing mods: {}", removedModVersions);
+    if (!removedModVersions.isEmpty()) {
+      installedModVersions.removeAll(removedModVersions);
+    }
 
-      try {
-        while (!Thread.interrupted()) {
-          WatchKey key = watcher.take();
-          key.pollEvents().stream()
-              .filter(event -> event.kind() == ENTRY_DELETE)
-              .forEach(event -> removeMod(modsDirectory.resolve((Path) event.context())));
-          key.reset();
-        }
-      } catch (InterruptedException e) {
-        logger.debug("Watcher terminated ({})", e.getMessage());
-      }
-    }));
-    thread.start();
-    return thread;
+    addMods(changes.getCreated().stream()
+        .filter(ModService::isModDirectory)
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns whether an entry of the mods directory may be a mod, excluding mods that are still being installed.
+   */
+  private static boolean isModDirectory(Path path) {
+    return Files.isDirectory(path) && !ArchiveInstaller.isStagingDirectory(path);
   }
 
   public void loadInstalledMods() {
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(modsDirectory, entry -> Files.isDirectory(entry))) {
-      for (Path path : directoryStream) {
-        addMod(path);
-      }
+    List<Path> modPaths = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(modsDirectory, ModService::isModDirectory)) {
+      directoryStream.forEach(modPaths::add);
     } catch (IOException e) {
       logger.warn("Mods could not be read from: " + modsDirectory, e);
     }
+    addMods(modPaths);
   }
 
   public ObservableList<ModVersion> getInstalledModVersions() {
@@ -411,19 +419,29 @@ public class ModService implements InitializingBean, DisposableBean {
     Files.write(preferencesFile, preferencesContent.getBytes(US_ASCII));
   }
 
-  private void removeMod(Path path) {
-    logger.debug("Removing mod: {}", path);
-    installedModVersions.remove(pathToMod.remove(path));
+  /**
+   * Reads the specified mods and adds the ones that aren't installed yet with a single change to the list of installed
+   * mods.
+   */
+  private void addMods(List<Path> paths) {
+    List<ModVersion> newModVersions = new ArrayList<>();
+    for (Path path : paths) {
+      readMod(path).ifPresent(modVersion -> {
+        pathToMod.put(path, modVersion);
+        if (!installedModVersions.contains(modVersion) && !newModVersions.contains(modVersion)) {
+          newModVersions.add(modVersion);
+        }
+      });
+    }
+    if (!newModVersions.isEmpty()) {
+      installedModVersions.addAll(newModVersions);
+    }
   }
 
-  private void addMod(Path path) {
+  private Optional<ModVersion> readMod(Path path) {
     logger.debug("Adding mod: {}", path);
     try {
-      ModVersion modVersion = extractModInfo(path);
-      pathToMod.put(path, modVersion);
-      if (!installedModVersions.contains(modVersion)) {
-        installedModVersions.add(modVersion);
-      }
+      return Optional.of(extractModInfo(path));
     } catch (ModLoadException e) {
       logger.debug("Corrupt mod: " + path, e);
 
@@ -436,12 +454,12 @@ public class ModService implements InitializingBean, DisposableBean {
       notificationService.addNotification(new PersistentNotification(i18n.get("corruptedModsError.notification", path.getFileName()), WARN, singletonList(
           new Action(i18n.get("corruptedMods.show"), event -> platformService.reveal(path))
       )));
-
     }
+    return Optional.empty();
   }
 
   @Override
   public void destroy() {
-    Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
+    Optional.ofNullable(directoryWatchRegistration).ifPresent(Registration::cancel);
   }
 }
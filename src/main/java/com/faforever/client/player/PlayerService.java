@@ -41,11 +41,13 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
 import static com.faforever.client.player.SocialStatus.FOE;
@@ -59,6 +61,8 @@ public class PlayerService implements InitializingBean {
 
   private final ObservableMap<String, Player> playersByName;
   private final ObservableMap<Integer, Player> playersById;
+  /** Names of all known players, sorted case-insensitively to allow prefix lookups. */
+  private final NavigableSet<String> sortedPlayerNames;
   private final List<Integer> foeList;
   private final List<Integer> friendList;
   private final ObjectProperty<Player> currentPlayer;
@@ -75,6 +79,7 @@ public class PlayerService implements InitializingBean {
 
     playersByName = FXCollections.observableMap(new ConcurrentHashMap<>());
     playersById = FXCollections.observableHashMap();
+    sortedPlayerNames = new ConcurrentSkipListSet<>(String.CASE_INSENSITIVE_ORDER);
     friendList = new ArrayList<>();
     foeList = new ArrayList<>();
     currentPlayer = new SimpleObjectProperty<>();
@@ -244,6 +249,7 @@ public class PlayerService implements InitializingBean {
           }
         });
         playersByName.put(username, player);
+        sortedPlayerNames.add(username);
       }
     }
 
@@ -254,6 +260,29 @@ public class PlayerService implements InitializingBean {
     return new HashSet<>(playersByName.keySet());
   }
 
+  /**
+   * Returns up to {@code limit} names of known players that start with the specified prefix, ignoring case, in
+   * alphabetical order.
+   */
+  public List<String> getPlayerNamesByPrefix(String prefix, int limit) {
+    return sortedPlayerNames.subSet(prefix, true, prefix + Character.MAX_VALUE, false).stream()
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the usernames of all online friends.
+   */
+  public Set<String> getFriendNames() {
+    synchronized (playersById) {
+      return friendList.stream()
+          .map(playersById::get)
+          .filter(Objects::nonNull)
+          .map(Player::getUsername)
+          .collect(Collectors.toSet());
+    }
+  }
+
   public void updatePlayerChatUsers(Player player) {
     player.getChatChannelUsers().forEach(chatChannelUser -> {
       if (chatChannelUser.isDisplayed()
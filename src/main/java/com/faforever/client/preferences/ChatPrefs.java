@@ -52,6 +52,10 @@ public class ChatPrefs {
   private final ObjectProperty<DateInfo> dateFormat;
   private final ObjectProperty<ChatFormat> chatFormat;
   private final ListProperty<String> autoJoinChannels;
+  /**
+   * Words that are highlighted in chat messages and trigger a mention notification, like the own username.
+   */
+  private final ListProperty<String> highlightWords;
   /**
    * Time in minutes a player has to be inactive to be considered idle.
    */
@@ -71,6 +75,7 @@ public class ChatPrefs {
     idleThreshold = new SimpleIntegerProperty(10);
     chatFormat = new SimpleObjectProperty<>(ChatFormat.COMPACT);
     autoJoinChannels = new SimpleListProperty<>(FXCollections.observableArrayList());
+    highlightWords = new SimpleListProperty<>(FXCollections.observableArrayList());
     playerListShown = new SimpleBooleanProperty(true);
 
     Locale localeLanguage = new Locale(Locale.getDefault().getLanguage());
@@ -219,6 +224,10 @@ public class ChatPrefs {
     return autoJoinChannels.get();
   }
 
+  public ObservableList<String> getHighlightWords() {
+    return highlightWords.get();
+  }
+
   public boolean isPlayerListShown() {
     return playerListShown.get();
   }
@@ -41,6 +41,7 @@ import javafx.beans.value.ChangeListener;
 import javafx.beans.value.WeakChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
@@ -69,6 +70,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -104,6 +106,7 @@ public class SettingsController implements Controller<Node> {
   public TextField gameLocationTextField;
   public CheckBox autoDownloadMapsToggle;
   public TextField maxMessagesTextField;
+  public TextField highlightWordsTextField;
   public CheckBox imagePreviewToggle;
   public CheckBox enableNotificationsToggle;
   public CheckBox enableSoundsToggle;
@@ -237,6 +240,7 @@ public class SettingsController implements Controller<Node> {
     temporarilyDisableUnsupportedSettings(preferences);
 
     JavaFxUtil.bindBidirectional(maxMessagesTextField.textProperty(), preferences.getChat().maxMessagesProperty(), numberToStringConverter);
+    configureHighlightWords(preferences);
     imagePreviewToggle.selectedProperty().bindBidirectional(preferences.getChat().previewImageUrlsProperty());
     enableNotificationsToggle.selectedProperty().bindBidirectional(preferences.getNotification().transientNotificationsEnabledProperty());
 
@@ -444,6 +448,22 @@ public class SettingsController implements Controller<Node> {
   }
 
 
+  private void configureHighlightWords(Preferences preferences) {
+    ObservableList<String> highlightWords = preferences.getChat().getHighlightWords();
+    highlightWordsTextField.setText(String.join(", ", highlightWords));
+    JavaFxUtil.addListener(highlightWordsTextField.textProperty(), (observable, oldValue, newValue) -> {
+      List<String> words = Arrays.stream(newValue.split(","))
+          .map(String::trim)
+          .filter(word -> !word.isEmpty())
+          .distinct()
+          .collect(Collectors.toList());
+      if (!words.equals(highlightWords)) {
+        highlightWords.setAll(words);
+        preferencesService.storeInBackground();
+      }
+    });
+  }
+
   private void configureChatSetting(Preferences preferences) {
     chatComboBox.setButtonCell(new StringListCell<>(chatFormat -> i18n.get(chatFormat.getI18nKey())));
     chatComboBox.setCellFactory(param -> new StringListCell<>(chatFormat -> i18n.get(chatFormat.getI18nKey())));
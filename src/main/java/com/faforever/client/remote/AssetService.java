@@ -2,23 +2,36 @@ package com.faforever.client.remote;
 
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.preferences.PreferencesService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import javafx.beans.InvalidationListener;
 import javafx.scene.image.Image;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static com.github.nocatch.NoCatch.noCatch;
 
 
+/**
+ * Loads images from URLs and caches them on disk and in memory. Images are decoded in background and, if a size is
+ * specified, downscaled while decoding. Concurrent requests for the same image share the same {@link Image} instance.
+ * Loaded images are kept in memory up to a fixed budget of decoded pixel bytes, least recently used ones are evicted
+ * first.
+ */
 @Lazy
 @Service
 @RequiredArgsConstructor
@@ -26,13 +39,29 @@ public class AssetService {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /** Maximum number of bytes of decoded pixel data to keep in memory. */
+  private static final long MAX_CACHED_PIXEL_BYTES = 128L * 1024 * 1024;
+  private static final int BYTES_PER_PIXEL = 4;
+
   private final PreferencesService preferencesService;
 
+  /** Completely loaded images. */
+  private final Cache<ImageKey, Image> images = Caffeine.newBuilder()
+      .maximumWeight(MAX_CACHED_PIXEL_BYTES)
+      .weigher((ImageKey key, Image image) -> getPixelBytes(image))
+      .build();
+  /** Images that are still being loaded. */
+  private final Map<ImageKey, Image> loadingImages = new ConcurrentHashMap<>();
+
   @Nullable
   public Image loadAndCacheImage(URL url, Path cacheSubFolder, @Nullable Supplier<Image> defaultSupplier) {
     return loadAndCacheImage(url, cacheSubFolder, defaultSupplier, 0, 0);
   }
 
+  /**
+   * @param width the width to scale the image down to while decoding, or {@code 0} to use the original width
+   * @param height the height to scale the image down to while decoding, or {@code 0} to use the original height
+   */
   @Nullable
   public Image loadAndCacheImage(URL url, Path cacheSubFolder, @Nullable Supplier<Image> defaultSupplier, int width, int height) {
     if (url == null) {
@@ -42,18 +71,99 @@ public class AssetService {
       return defaultSupplier.get();
     }
 
-    String urlString = url.toString();
+    ImageKey key = new ImageKey(url.toString(), width, height);
+    return getOrLoadImage(key, () -> loadImage(key, cacheSubFolder));
+  }
+
+  /**
+   * Loads an image from a local file and caches it in memory only. The image is loaded again once the file has been
+   * modified.
+   *
+   * @param width the width to scale the image down to while decoding, or {@code 0} to use the original width
+   * @param height the height to scale the image down to while decoding, or {@code 0} to use the original height
+   */
+  public Image loadAndCacheLocalImage(Path imageFile, int width, int height) {
+    String url = imageFile.toUri().toString();
+    long lastModified;
+    try {
+      lastModified = Files.getLastModifiedTime(imageFile).toMillis();
+    } catch (IOException e) {
+      logger.debug("Image file could not be checked: {}", imageFile, e);
+      lastModified = 0;
+    }
+    ImageKey key = new ImageKey(url + "#" + lastModified, width, height);
+    return getOrLoadImage(key, () -> new Image(url, width, height, true, true, true));
+  }
+
+  /**
+   * Returns the cached image or the image that is already being loaded, or starts loading it.
+   */
+  private Image getOrLoadImage(ImageKey key, Supplier<Image> imageLoader) {
+    Image image = images.getIfPresent(key);
+    if (image != null) {
+      return image;
+    }
+    image = loadingImages.get(key);
+    if (image != null) {
+      return image;
+    }
+
+    Image newImage = imageLoader.get();
+    image = loadingImages.putIfAbsent(key, newImage);
+    if (image != null) {
+      // Someone else started loading the same image in the meantime
+      newImage.cancel();
+      return image;
+    }
+
+    InvalidationListener loadingListener = observable -> onLoadingProgress(key, newImage);
+    JavaFxUtil.addListener(newImage.progressProperty(), loadingListener);
+    JavaFxUtil.addListener(newImage.errorProperty(), loadingListener);
+    // Loading may have finished before the listeners were added
+    onLoadingProgress(key, newImage);
+    return newImage;
+  }
+
+  private Image loadImage(ImageKey key, Path cacheSubFolder) {
+    String urlString = key.getUrl();
     String filename = urlString.substring(urlString.lastIndexOf('/') + 1);
-    Path cachePath = preferencesService.getCacheDirectory().resolve(cacheSubFolder).resolve(filename);
+    Path cacheDirectory = preferencesService.getCacheDirectory().resolve(cacheSubFolder);
+    if (key.getWidth() > 0 || key.getHeight() > 0) {
+      // Downscaled images must not be mistaken for the original
+      cacheDirectory = cacheDirectory.resolve(key.getWidth() + "x" + key.getHeight());
+    }
+    Path cachePath = cacheDirectory.resolve(filename);
+
+    Image image;
     if (Files.exists(cachePath)) {
       logger.debug("Using cached image: {}", cachePath);
-      return new Image(noCatch(() -> cachePath.toUri().toURL().toExternalForm()), width, height, true, true);
+      image = new Image(noCatch(() -> cachePath.toUri().toURL().toExternalForm()), key.getWidth(), key.getHeight(), true, true, true);
+    } else {
+      logger.debug("Fetching image {}", urlString);
+      image = new Image(urlString, key.getWidth(), key.getHeight(), true, true, true);
+      JavaFxUtil.persistImage(image, cachePath, filename.substring(filename.lastIndexOf('.') + 1));
     }
+    return image;
+  }
 
-    logger.debug("Fetching image {}", url);
+  private void onLoadingProgress(ImageKey key, Image image) {
+    if (image.isError()) {
+      logger.debug("Image could not be loaded: {}", key.getUrl(), image.getException());
+      loadingImages.remove(key, image);
+    } else if (image.getProgress() >= 1) {
+      images.put(key, image);
+      loadingImages.remove(key, image);
+    }
+  }
 
-    Image image = new Image(url.toString(), width, height, true, true, true);
-    JavaFxUtil.persistImage(image, cachePath, filename.substring(filename.lastIndexOf('.') + 1));
-    return image;
+  private static int getPixelBytes(Image image) {
+    return (int) Math.min(Integer.MAX_VALUE, (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL);
+  }
+
+  @Value
+  private static class ImageKey {
+    String url;
+    int width;
+    int height;
   }
 }
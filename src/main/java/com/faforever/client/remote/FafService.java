@@ -340,6 +340,13 @@ public class FafService {
         .map(MapBean::fromMapVersionDto));
   }
 
+  @Async
+  public CompletableFuture<List<MapBean>> findMapsByFolderNames(Collection<String> folderNames) {
+    return CompletableFuture.completedFuture(fafApiAccessor.findMapsByFolderNames(folderNames).stream()
+        .map(MapBean::fromMapVersionDto)
+        .collect(toList()));
+  }
+
   public CompletableFuture<List<Player>> getPlayersByIds(Collection<Integer> playerIds) {
     return CompletableFuture.completedFuture(fafApiAccessor.getPlayersByIds(playerIds).stream()
         .map(Player::fromDto)
@@ -468,9 +475,10 @@ public class FafService {
   }
 
   @Async
-  public CompletableFuture<Optional<Clan>> getClanByTag(String tag) {
-    return CompletableFuture.completedFuture(fafApiAccessor.getClanByTag(tag)
-        .map(Clan::fromDto));
+  public CompletableFuture<List<Clan>> getClansByTags(Collection<String> tags) {
+    return CompletableFuture.completedFuture(fafApiAccessor.getClansByTags(tags).stream()
+        .map(Clan::fromDto)
+        .collect(toList()));
   }
 
   public Optional<MapBean> findMapById(String id) {
@@ -0,0 +1,366 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.faforever.client.replay.ReplayFiles.writeFully;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Serves live replays to any number of local game instances while pulling each game's replay stream only once from the
+ * replay server. The stream is buffered in a file, so instances that connect later (like a caster's second instance)
+ * get the whole replay from the local buffer and then follow the live stream.
+ *
+ * <p>Game instances talk the same protocol to the hub as to the replay server: they send {@code G/<gameId>/<name>}
+ * terminated by a zero byte and then receive the replay stream.</p>
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LiveReplayHub implements DisposableBean {
+
+  private static final String GPGNET_SCHEME = "gpgnet";
+  private static final String BUFFER_DIRECTORY = "live-replays";
+  private static final int BUFFER_SIZE = 8192;
+  private static final int MAX_REQUEST_LENGTH = 1024;
+  /** Sessions without viewers are closed after this time, even if their game is still running. */
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+  private final PreferencesService preferencesService;
+
+  /** Sessions by game ID. */
+  private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+  private ServerSocketChannel serverChannel;
+  private ScheduledExecutorService idleSessionCloser;
+
+  /**
+   * Makes sure the replay stream of the specified game is being pulled from the replay server and returns the URI a
+   * game instance can watch it from.
+   *
+   * @param path the path of the replay on the replay server, like {@code /<gameId>/<name>.SCFAreplay}
+   */
+  public synchronized URI getLocalReplayUri(int gameId, String remoteHost, int remotePort, String path) throws IOException {
+    if (serverChannel == null) {
+      startServer();
+    }
+
+    Session session = sessions.get(gameId);
+    if (session == null || session.isUpstreamFinished() || session.isClosed()) {
+      if (session != null) {
+        session.close();
+      }
+      session = new Session(createBufferFile(gameId), closedSession -> sessions.remove(gameId, closedSession));
+      sessions.put(gameId, session);
+      Session newSession = session;
+      startThread("live-replay-upstream-" + gameId, () -> pullUpstream(newSession, remoteHost, remotePort, path));
+    }
+
+    try {
+      InetSocketAddress localAddress = (InetSocketAddress) serverChannel.getLocalAddress();
+      return new URI(GPGNET_SCHEME, null, localAddress.getHostString(), localAddress.getPort(), path, null, null);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Invalid replay path: " + path, e);
+    }
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (serverChannel != null) {
+      serverChannel.close();
+      serverChannel = null;
+    }
+    if (idleSessionCloser != null) {
+      idleSessionCloser.shutdownNow();
+      idleSessionCloser = null;
+    }
+    sessions.values().forEach(Session::close);
+    sessions.clear();
+  }
+
+  private void startServer() throws IOException {
+    Path bufferDirectory = getBufferDirectory();
+    // Buffers of a previous run are of no use anymore
+    FileSystemUtils.deleteRecursively(bufferDirectory);
+    Files.createDirectories(bufferDirectory);
+
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    log.debug("Opening local live replay hub on {}", serverChannel.getLocalAddress());
+
+    ServerSocketChannel channel = serverChannel;
+    startThread("live-replay-hub", () -> acceptViewers(channel));
+
+    idleSessionCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "live-replay-idle-closer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long checkIntervalMillis = IDLE_TIMEOUT.toMillis() / 5;
+    idleSessionCloser.scheduleWithFixedDelay(this::closeIdleSessions, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void closeIdleSessions() {
+    long now = System.currentTimeMillis();
+    sessions.values().forEach(session -> session.closeIfIdleSince(now - IDLE_TIMEOUT.toMillis()));
+  }
+
+  private void acceptViewers(ServerSocketChannel channel) {
+    try {
+      while (true) {
+        SocketChannel viewerChannel = channel.accept();
+        startThread("live-replay-viewer", () -> serveViewer(viewerChannel));
+      }
+    } catch (ClosedChannelException e) {
+      log.debug("Local live replay hub has been closed");
+    } catch (IOException e) {
+      log.warn("Local live replay hub failed", e);
+    }
+  }
+
+  private void pullUpstream(Session session, String remoteHost, int remotePort, String path) {
+    log.debug("Pulling live replay '{}' from {}:{}", path, remoteHost, remotePort);
+    try (SocketChannel upstreamChannel = SocketChannel.open(new InetSocketAddress(remoteHost, remotePort))) {
+      // Closing the session stops pulling
+      session.setUpstreamChannel(upstreamChannel);
+      upstreamChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      writeFully(upstreamChannel, ByteBuffer.wrap(("G" + path + "\0").getBytes(US_ASCII)));
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      while (upstreamChannel.read(buffer) != -1) {
+        buffer.flip();
+        session.append(buffer);
+        buffer.clear();
+      }
+      log.debug("Live replay '{}' has ended", path);
+    } catch (ClosedChannelException e) {
+      log.debug("Stopped pulling live replay '{}' since nobody is watching it", path);
+    } catch (Exception e) {
+      log.warn("Could not pull live replay '{}' from {}:{}", path, remoteHost, remotePort, e);
+    } finally {
+      session.finishUpstream();
+    }
+  }
+
+  private void serveViewer(SocketChannel viewerChannel) {
+    try (viewerChannel) {
+      viewerChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      String request = readRequest(viewerChannel);
+      Session session = findSession(request);
+      if (session == null) {
+        log.warn("Local live replay requested for unknown game: {}", request);
+        return;
+      }
+
+      log.debug("Serving live replay '{}' to {}", request, viewerChannel.getRemoteAddress());
+      session.addViewer();
+      try {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = 0;
+        while (session.awaitData(position) > position) {
+          buffer.clear();
+          session.read(buffer, position);
+          buffer.flip();
+          position += writeFully(viewerChannel, buffer);
+        }
+      } finally {
+        session.removeViewer();
+      }
+    } catch (IOException e) {
+      // Also happens if the session has been closed while serving the viewer
+      log.debug("Local live replay viewer disconnected ({})", e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reads a request like {@code G/<gameId>/<name>} terminated by a zero byte.
+   */
+  private static String readRequest(SocketChannel channel) throws IOException {
+    ByteArrayOutputStream request = new ByteArrayOutputStream();
+    ByteBuffer buffer = ByteBuffer.allocate(1);
+    while (request.size() < MAX_REQUEST_LENGTH) {
+      buffer.clear();
+      if (channel.read(buffer) == -1) {
+        break;
+      }
+      byte character = buffer.get(0);
+      if (character == 0) {
+        break;
+      }
+      request.write(character);
+    }
+    return request.toString(US_ASCII);
+  }
+
+  private Session findSession(String request) {
+    String[] parts = request.split("/");
+    if (parts.length < 2 || !"G".equals(parts[0])) {
+      return null;
+    }
+    try {
+      return sessions.get(Integer.parseInt(parts[1]));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private Path createBufferFile(int gameId) throws IOException {
+    return Files.createTempFile(getBufferDirectory(), gameId + "-", ".scfareplay");
+  }
+
+  private Path getBufferDirectory() {
+    return preferencesService.getCacheDirectory().resolve(BUFFER_DIRECTORY);
+  }
+
+  private static void startThread(String name, Runnable runnable) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * The buffered replay stream of a single game. The stream is only ever appended to, so viewers can read any part of
+   * it that has been written without further synchronization.
+   */
+  private static class Session {
+    private final FileChannel bufferChannel;
+    private final Consumer<Session> onClosed;
+    private SocketChannel upstreamChannel;
+    private long size;
+    private boolean upstreamFinished;
+    private boolean closed;
+    private int viewers;
+    private int servedViewers;
+    /** When the session was last used, in epoch millis. */
+    private long lastUsed = System.currentTimeMillis();
+
+    private Session(Path bufferFile, Consumer<Session> onClosed) throws IOException {
+      bufferChannel = FileChannel.open(bufferFile, READ, WRITE, DELETE_ON_CLOSE);
+      this.onClosed = onClosed;
+    }
+
+    synchronized void setUpstreamChannel(SocketChannel upstreamChannel) throws ClosedChannelException {
+      if (closed) {
+        throw new ClosedChannelException();
+      }
+      this.upstreamChannel = upstreamChannel;
+    }
+
+    synchronized void append(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        size += bufferChannel.write(buffer, size);
+      }
+      notifyAll();
+    }
+
+    synchronized void finishUpstream() {
+      upstreamFinished = true;
+      notifyAll();
+      closeIfUnused();
+    }
+
+    synchronized boolean isUpstreamFinished() {
+      return upstreamFinished;
+    }
+
+    /**
+     * Waits until there is data beyond the specified position or the upstream has finished.
+     *
+     * @return the number of bytes available
+     */
+    synchronized long awaitData(long position) throws InterruptedException {
+      while (size <= position && !upstreamFinished && !closed) {
+        wait();
+      }
+      return closed ? position : size;
+    }
+
+    void read(ByteBuffer buffer, long position) throws IOException {
+      bufferChannel.read(buffer, position);
+    }
+
+    synchronized void addViewer() {
+      viewers++;
+      servedViewers++;
+    }
+
+    synchronized void removeViewer() {
+      viewers--;
+      lastUsed = System.currentTimeMillis();
+      closeIfUnused();
+    }
+
+    synchronized boolean isClosed() {
+      return closed;
+    }
+
+    /**
+     * Closes the session if nobody has been watching it since the specified time, so that games that nobody watches
+     * anymore aren't pulled until they end.
+     */
+    synchronized void closeIfIdleSince(long time) {
+      if (viewers == 0 && lastUsed < time) {
+        close();
+      }
+    }
+
+    /**
+     * Closes (and thereby deletes) the buffer once the game has ended and all viewers are done. If no viewer has been
+     * served yet, the buffer is kept since the game instance it has been requested for may still be starting.
+     */
+    private void closeIfUnused() {
+      if (upstreamFinished && viewers == 0 && servedViewers > 0) {
+        close();
+      }
+    }
+
+    synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      notifyAll();
+      try {
+        bufferChannel.close();
+        if (upstreamChannel != null) {
+          upstreamChannel.close();
+        }
+      } catch (IOException e) {
+        log.warn("Could not close live replay buffer", e);
+      }
+      onClosed.accept(this);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps the metadata of all local replay files in a file in the cache directory, so that the local replay vault can be
+ * paged and sorted without reading every replay file. Only replay files that have been added or changed since the
+ * last update are parsed, in a few batches on the shared executor. The replay directory is not even listed as long as its last
+ * modification time didn't change, which is the case unless files have been added, removed or renamed.
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalReplayIndex {
+
+  private static final String INDEX_FILE_NAME = "local-replays.json";
+  /** Parsing is mostly I/O bound, but too many threads would just compete for the disk. */
+  private static final int MAX_PARSER_BATCHES = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+  private final PreferencesService preferencesService;
+  private final ReplayFileReader replayFileReader;
+  private final ExecutorService executorService;
+
+  private final Gson gson = ReplayFiles.gson();
+  /** The current index, loaded lazily. */
+  private Index index;
+
+  /**
+   * Brings the index up to date with the specified directory and returns all indexed replays, most recently modified
+   * first.
+   *
+   * @param corruptedReplayHandler called with every replay file whose metadata could not be read. Such files are not
+   * indexed.
+   */
+  public synchronized List<IndexedReplay> update(Path directory, String replayFileGlob, Consumer<Path> corruptedReplayHandler) throws IOException {
+    Index index = getIndex();
+    long directoryLastModified = Files.getLastModifiedTime(directory).toMillis();
+    String directoryString = directory.toAbsolutePath().toString();
+    if (directoryString.equals(index.getDirectory())
+        && replayFileGlob.equals(index.getReplayFileGlob())
+        && directoryLastModified == index.getDirectoryLastModified()) {
+      return index.getReplays();
+    }
+
+    Map<String, IndexedReplay> previousReplays = new HashMap<>();
+    if (directoryString.equals(index.getDirectory())) {
+      index.getReplays().forEach(replay -> previousReplays.put(replay.getFileName(), replay));
+    }
+
+    List<IndexedReplay> replays = new ArrayList<>();
+    List<IndexedReplay> replaysToParse = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory, replayFileGlob)) {
+      for (Path replayFile : directoryStream) {
+        BasicFileAttributes attributes = Files.readAttributes(replayFile, BasicFileAttributes.class);
+        String fileName = replayFile.getFileName().toString();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        IndexedReplay indexedReplay = previousReplays.get(fileName);
+        if (indexedReplay != null
+            && indexedReplay.getSize() == attributes.size()
+            && indexedReplay.getLastModified() == lastModified) {
+          replays.add(indexedReplay);
+        } else {
+          IndexedReplay replayToParse = new IndexedReplay();
+          replayToParse.setFileName(fileName);
+          replayToParse.setSize(attributes.size());
+          replayToParse.setLastModified(lastModified);
+          replaysToParse.add(replayToParse);
+        }
+      }
+    }
+    parseReplays(directory, replaysToParse, corruptedReplayHandler);
+    replays.addAll(replaysToParse);
+    replays.sort(Comparator.comparingLong(IndexedReplay::getLastModified).reversed());
+    log.debug("Indexed {} local replays, {} of which had to be parsed", replays.size(), replaysToParse.size());
+
+    index.setDirectory(directoryString);
+    index.setReplayFileGlob(replayFileGlob);
+    index.setDirectoryLastModified(directoryLastModified);
+    index.setReplays(replays);
+    writeIndex(index);
+    return replays;
+  }
+
+  /**
+   * Parses the metadata of the specified replays in parallel. Replays that can't be parsed are passed to the corrupted
+   * replay handler and removed from the list.
+   */
+  private void parseReplays(Path directory, List<IndexedReplay> replaysToParse, Consumer<Path> corruptedReplayHandler) {
+    if (replaysToParse.isEmpty()) {
+      return;
+    }
+
+    int batchSize = (replaysToParse.size() + MAX_PARSER_BATCHES - 1) / MAX_PARSER_BATCHES;
+    List<CompletableFuture<List<IndexedReplay>>> batches = Lists.partition(replaysToParse, batchSize).stream()
+        .map(batch -> CompletableFuture.supplyAsync(() -> batch.stream()
+            .filter(indexedReplay -> !parseReplay(directory, indexedReplay))
+            .collect(Collectors.toList()), executorService))
+        .collect(Collectors.toList());
+    List<IndexedReplay> corruptedReplays = batches.stream()
+        .flatMap(batch -> batch.join().stream())
+        .collect(Collectors.toList());
+
+    // Handled here rather than on the parser threads, so the handler doesn't need to be thread safe
+    corruptedReplays.forEach(indexedReplay -> corruptedReplayHandler.accept(directory.resolve(indexedReplay.getFileName())));
+    replaysToParse.removeAll(corruptedReplays);
+  }
+
+  /**
+   * @return whether the replay could be parsed
+   */
+  private boolean parseReplay(Path directory, IndexedReplay indexedReplay) {
+    Path replayFile = directory.resolve(indexedReplay.getFileName());
+    try {
+      indexedReplay.setReplayInfo(replayFileReader.parseMetaData(replayFile));
+      return true;
+    } catch (Exception e) {
+      log.warn("Could not read replay file '{}'", replayFile, e);
+      return false;
+    }
+  }
+
+  private Index getIndex() {
+    if (index == null) {
+      index = readIndex();
+    }
+    return index;
+  }
+
+  private Index readIndex() {
+    Path file = getIndexFile();
+    if (Files.notExists(file)) {
+      return new Index();
+    }
+
+    try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+      Index persisted = gson.fromJson(reader, Index.class);
+      if (persisted != null && persisted.getReplays() != null) {
+        return persisted;
+      }
+    } catch (IOException | JsonParseException e) {
+      log.warn("Local replay index could not be read from: {}", file, e);
+    }
+    return new Index();
+  }
+
+  private void writeIndex(Index index) {
+    Path file = getIndexFile();
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), INDEX_FILE_NAME, null);
+      try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        gson.toJson(index, writer);
+      }
+      Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Local replay index could not be written to: {}", file, e);
+    }
+  }
+
+  private Path getIndexFile() {
+    return preferencesService.getCacheDirectory().resolve(INDEX_FILE_NAME);
+  }
+
+  @Data
+  private static class Index {
+    private String directory;
+    private String replayFileGlob;
+    private long directoryLastModified;
+    private List<IndexedReplay> replays = new ArrayList<>();
+  }
+
+  @Data
+  public static class IndexedReplay {
+    private String fileName;
+    private long size;
+    /** Epoch millis of the last modification of the replay file. */
+    private long lastModified;
+    private LocalReplayInfo replayInfo;
+  }
+}
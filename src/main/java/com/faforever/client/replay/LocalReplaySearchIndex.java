@@ -0,0 +1,356 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.replay.LocalReplayIndex.IndexedReplay;
+import com.faforever.client.replay.ReplaySummaryCache.ReplaySummary;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.nocatch.NoCatch.noCatch;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * An inverted index over the words of local replays: their title, map, featured mod, player names and chat messages.
+ * The index is updated incrementally in background, only replays that have been added or changed since the last update
+ * are read. Searches don't wait for updates, they are answered from the replays that have been indexed so far. The
+ * index is persisted in the cache directory as a compressed dictionary of words plus the word IDs of each replay.
+ *
+ * <p>A query matches a replay if every word of the query is a prefix of one of the replay's words, ignoring case. So
+ * {@code "thomas gg seton"} finds a replay on "Seton's Clutch" in which Thomas took part and someone said "GG".</p>
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalReplaySearchIndex {
+
+  private static final String INDEX_FILE_NAME = "local-replay-search.bin";
+  private static final int FORMAT_VERSION = 1;
+  private static final Pattern WORD_DELIMITER = Pattern.compile("[^\\p{L}\\p{N}]+");
+  /** Reading chat messages means parsing the whole replay, which is CPU bound. */
+  private static final int MAX_INDEXER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  private final PreferencesService preferencesService;
+  private final ReplaySummaryCache replaySummaryCache;
+  private final ExecutorService executorService;
+
+  /** Completes when all updates that have been requested so far are done. Updates are applied one after another. */
+  private CompletableFuture<Void> pendingUpdates = CompletableFuture.completedFuture(null);
+  private String directory;
+  /** Indexed replays by document ID. Removed replays leave a {@code null} entry until the index is written. */
+  private List<Document> documents;
+  private Map<String, Integer> documentIdsByFileName;
+  /** The IDs of the documents containing a word, by word. */
+  private NavigableMap<String, BitSet> postings;
+
+  /**
+   * Brings the index up to date with the replays of the specified directory in background.
+   *
+   * @param replays provides the replays of the directory, as provided by the {@link LocalReplayIndex}. Called in
+   * background, too.
+   */
+  public synchronized CompletableFuture<Void> updateInBackground(Path replayDirectory, Callable<List<IndexedReplay>> replays) {
+    pendingUpdates = pendingUpdates
+        .thenRunAsync(() -> update(replayDirectory, noCatch(replays::call)), executorService)
+        .exceptionally(throwable -> {
+          log.warn("Local replay search index could not be updated", throwable);
+          return null;
+        });
+    return pendingUpdates;
+  }
+
+  /**
+   * Brings the index up to date with the specified replays of the specified directory. Replays are added to the index as
+   * soon as they have been read, so that searches can find them already.
+   */
+  @VisibleForTesting
+  void update(Path replayDirectory, List<IndexedReplay> replays) {
+    List<IndexedReplay> replaysToIndex = new ArrayList<>();
+    boolean changed = false;
+    synchronized (this) {
+      loadIfNecessary();
+
+      String directoryString = replayDirectory.toAbsolutePath().toString();
+      if (!directoryString.equals(directory)) {
+        clear();
+        directory = directoryString;
+        changed = true;
+      }
+
+      Set<String> currentFileNames = new HashSet<>();
+      for (IndexedReplay replay : replays) {
+        currentFileNames.add(replay.getFileName());
+        Integer documentId = documentIdsByFileName.get(replay.getFileName());
+        if (documentId != null) {
+          Document document = documents.get(documentId);
+          if (document.getSize() == replay.getSize() && document.getLastModified() == replay.getLastModified()) {
+            continue;
+          }
+          remove(documentId);
+        }
+        replaysToIndex.add(replay);
+      }
+
+      for (String fileName : new ArrayList<>(documentIdsByFileName.keySet())) {
+        if (!currentFileNames.contains(fileName)) {
+          remove(documentIdsByFileName.get(fileName));
+          changed = true;
+        }
+      }
+    }
+
+    if (!replaysToIndex.isEmpty()) {
+      readDocuments(replayDirectory, replaysToIndex);
+      changed = true;
+    }
+
+    if (changed) {
+      synchronized (this) {
+        write();
+      }
+    }
+  }
+
+  /**
+   * @return the file names of all replays matching the specified query
+   */
+  public synchronized Set<String> search(String query) {
+    loadIfNecessary();
+
+    Set<String> queryWords = toWords(query);
+    if (queryWords.isEmpty()) {
+      return Set.of();
+    }
+
+    BitSet matches = null;
+    for (String queryWord : queryWords) {
+      BitSet wordMatches = new BitSet(documents.size());
+      postings.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true).values().forEach(wordMatches::or);
+      if (matches == null) {
+        matches = wordMatches;
+      } else {
+        matches.and(wordMatches);
+      }
+    }
+
+    return matches.stream()
+        .mapToObj(documents::get)
+        .map(Document::getFileName)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Reads the specified replays on up to {@link #MAX_INDEXER_THREADS} threads and adds each one to the index as soon as
+   * it has been read.
+   */
+  private void readDocuments(Path replayDirectory, List<IndexedReplay> replays) {
+    log.debug("Adding {} local replays to the search index", replays.size());
+    int batchSize = (replays.size() + MAX_INDEXER_THREADS - 1) / MAX_INDEXER_THREADS;
+    CompletableFuture<?>[] batches = Lists.partition(replays, batchSize).stream()
+        .map(batch -> CompletableFuture.runAsync(() -> batch.forEach(replay -> {
+          Document document = readDocument(replayDirectory, replay);
+          synchronized (this) {
+            add(document);
+          }
+        }), executorService))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(batches).join();
+  }
+
+  private Document readDocument(Path replayDirectory, IndexedReplay replay) {
+    Set<String> words = new HashSet<>();
+    LocalReplayInfo replayInfo = replay.getReplayInfo();
+    if (replayInfo != null) {
+      words.addAll(toWords(replayInfo.getTitle()));
+      words.addAll(toWords(replayInfo.getMapname()));
+      words.addAll(toWords(replayInfo.getFeaturedMod()));
+      words.addAll(toWords(replayInfo.getHost()));
+      if (replayInfo.getTeams() != null) {
+        replayInfo.getTeams().values().stream()
+            .flatMap(Collection::stream)
+            .forEach(playerName -> words.addAll(toWords(playerName)));
+      }
+    }
+
+    Path replayFile = replayDirectory.resolve(replay.getFileName());
+    try {
+      ReplaySummary summary = replaySummaryCache.getSummary(replayFile);
+      summary.getChatMessages().forEach(chatMessage -> {
+        words.addAll(toWords(chatMessage.getSender()));
+        words.addAll(toWords(chatMessage.getMessage()));
+      });
+    } catch (Exception e) {
+      // The replay can still be found by its metadata
+      log.debug("Chat messages of replay '{}' could not be indexed", replayFile, e);
+    }
+
+    return new Document(replay.getFileName(), replay.getSize(), replay.getLastModified(), words.toArray(new String[0]));
+  }
+
+  private static Set<String> toWords(String text) {
+    if (text == null || text.isBlank()) {
+      return Set.of();
+    }
+    return WORD_DELIMITER.splitAsStream(text.toLowerCase(Locale.ROOT))
+        .filter(word -> !word.isEmpty())
+        .collect(Collectors.toSet());
+  }
+
+  private void add(Document document) {
+    int documentId = documents.size();
+    documents.add(document);
+    documentIdsByFileName.put(document.getFileName(), documentId);
+    for (String word : document.getWords()) {
+      postings.computeIfAbsent(word, key -> new BitSet()).set(documentId);
+    }
+  }
+
+  private void remove(int documentId) {
+    Document document = documents.set(documentId, null);
+    documentIdsByFileName.remove(document.getFileName());
+    for (String word : document.getWords()) {
+      BitSet documentIds = postings.get(word);
+      documentIds.clear(documentId);
+      if (documentIds.isEmpty()) {
+        postings.remove(word);
+      }
+    }
+  }
+
+  private void clear() {
+    documents = new ArrayList<>();
+    documentIdsByFileName = new HashMap<>();
+    postings = new TreeMap<>();
+  }
+
+  private void loadIfNecessary() {
+    if (documents != null) {
+      return;
+    }
+    clear();
+
+    Path file = getIndexFile();
+    if (Files.notExists(file)) {
+      return;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        log.debug("Discarding local replay search index of an older version");
+        return;
+      }
+      String indexedDirectory = in.readUTF();
+
+      String[] dictionary = new String[in.readInt()];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = in.readUTF();
+      }
+
+      int documentCount = in.readInt();
+      for (int i = 0; i < documentCount; i++) {
+        String fileName = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String[] words = new String[in.readInt()];
+        for (int j = 0; j < words.length; j++) {
+          words[j] = dictionary[in.readInt()];
+        }
+        add(new Document(fileName, size, lastModified, words));
+      }
+      directory = indexedDirectory;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Local replay search index could not be read from: {}", file, e);
+      clear();
+    }
+  }
+
+  /**
+   * Writes the index, leaving out removed documents.
+   */
+  private void write() {
+    List<Document> currentDocuments = documents.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    Map<String, Integer> wordIds = new HashMap<>();
+    List<String> dictionary = new ArrayList<>(postings.keySet());
+    for (int i = 0; i < dictionary.size(); i++) {
+      wordIds.put(dictionary.get(i), i);
+    }
+
+    Path file = getIndexFile();
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), INDEX_FILE_NAME, null);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(directory);
+        out.writeInt(dictionary.size());
+        for (String word : dictionary) {
+          out.writeUTF(word);
+        }
+        out.writeInt(currentDocuments.size());
+        for (Document document : currentDocuments) {
+          out.writeUTF(document.getFileName());
+          out.writeLong(document.getSize());
+          out.writeLong(document.getLastModified());
+          out.writeInt(document.getWords().length);
+          for (String word : document.getWords()) {
+            out.writeInt(wordIds.get(word));
+          }
+        }
+      }
+      Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Local replay search index could not be written to: {}", file, e);
+    }
+
+    // Document IDs are only stable until the index is written
+    clear();
+    currentDocuments.forEach(this::add);
+  }
+
+  private Path getIndexFile() {
+    return preferencesService.getCacheDirectory().resolve(INDEX_FILE_NAME);
+  }
+
+  @Value
+  private static class Document {
+    String fileName;
+    long size;
+    long lastModified;
+    String[] words;
+  }
+}
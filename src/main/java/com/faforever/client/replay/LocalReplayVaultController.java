@@ -40,13 +40,11 @@ public class LocalReplayVaultController extends VaultEntityController<Replay> {
     super.initialize();
     uploadButton.setVisible(false);
     backButton.setVisible(false);
-    searchBox.setVisible(false);
-    searchSeparator.setVisible(false);
 
     searchController.setRootType(Game.class);
     searchController.setSearchableProperties(SearchablePropertyMappings.GAME_PROPERTY_MAPPING);
     searchController.setSortConfig(preferencesService.getPreferences().getVaultPrefs().onlineReplaySortConfigProperty());
-    searchController.setOnlyShowLastYearCheckBoxVisible(true, true);
+    searchController.setFreeTextQuery(i18n.get("vault.replays.localSearchPrompt"));
   }
 
   @Override
@@ -75,7 +73,12 @@ public class LocalReplayVaultController extends VaultEntityController<Replay> {
 
   protected void setSupplier(SearchConfig searchConfig) {
     try {
-      currentSupplier = replayService.loadLocalReplayPage(pageSize, pagination.getCurrentPageIndex() + 1);
+      int page = pagination.getCurrentPageIndex() + 1;
+      if (searchConfig != null && searchConfig.hasQuery()) {
+        currentSupplier = replayService.searchLocalReplays(searchConfig.getSearchQuery(), pageSize, page);
+      } else {
+        currentSupplier = replayService.loadLocalReplayPage(pageSize, page);
+      }
     } catch (IOException e) {
       log.warn("Could not load the local replays", e);
     }
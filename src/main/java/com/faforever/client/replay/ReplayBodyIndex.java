@@ -0,0 +1,274 @@
+package com.faforever.client.replay;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.LittleEndianDataInputStream;
+import com.faforever.client.replay.ReplaySummaryCache.SummaryChatMessage;
+import com.faforever.client.replay.ReplaySummaryCache.SummaryGameOption;
+import lombok.Data;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Describes the binary data of a replay (as provided by {@link ReplayFileReader#openRawReplayData(java.nio.file.Path)})
+ * for the {@link ReplaySummaryCache}: its game options, chat messages, how long the replay lasts, who played and who
+ * issued how many commands, as well as where its header ends. All of it is extracted in a single pass.
+ *
+ * <p>The binary data consists of a header, which contains the scenario including the game options as well as the
+ * armies, followed by the operations of all players. Each operation consists of its type (1 byte), its length including
+ * type and length (2 bytes, little endian) and its data.</p>
+ */
+@Data
+class ReplayBodyIndex {
+
+  private static final int OPERATION_ADVANCE = 0;
+  private static final int OPERATION_SET_COMMAND_SOURCE = 1;
+  private static final int OPERATION_ISSUE_COMMAND = 12;
+  private static final int OPERATION_ISSUE_FACTORY_COMMAND = 13;
+  private static final int OPERATION_LUA_SIM_CALLBACK = 22;
+  private static final int OPERATION_HEADER_LENGTH = 3;
+  private static final int NO_SOURCE = 255;
+  static final int MILLIS_PER_TICK = 100;
+  /** The sim callback that is used to send chat messages. */
+  private static final String CHAT_CALLBACK = "GiveResourcesToPlayer";
+
+  private static final int LUA_NUMBER = 0;
+  private static final int LUA_STRING = 1;
+  private static final int LUA_NIL = 2;
+  private static final int LUA_BOOL = 3;
+  private static final int LUA_TABLE_START = 4;
+  private static final int LUA_TABLE_END = 5;
+
+  /** Length of the header, which is also the offset of the first operation. */
+  private long headerLength;
+  /** Game options of the scenario. */
+  private List<SummaryGameOption> gameOptions;
+  /** Chat messages, in the order they have been sent. */
+  private List<SummaryChatMessage> chatMessages;
+  /** Number of ticks the replay lasts. There are 10 ticks per second of game time. */
+  private int ticks;
+  /** Names of the players that issued commands, in the order of their command source ID. */
+  private List<String> commandSources;
+  /** Number of commands issued by each of the {@link #commandSources}. */
+  private List<Integer> commandCounts;
+  /** Names of the players of all armies, excluding AIs and civilians. */
+  private List<String> armies;
+
+  /**
+   * Reads the specified binary replay data once in order to index it. The stream is not closed.
+   */
+  static ReplayBodyIndex index(InputStream rawReplayData) throws IOException {
+    CountingInputStream countingStream = new CountingInputStream(new BufferedInputStream(rawReplayData));
+    LittleEndianDataInputStream dataStream = new LittleEndianDataInputStream(countingStream);
+    ReplayBodyIndex index = new ReplayBodyIndex();
+
+    // Game version, followed by "\r\n\0"
+    skipString(dataStream);
+    ByteStreams.skipFully(dataStream, 3);
+    // Replay version and map path, followed by "\r\n\u001a\0"
+    skipString(dataStream);
+    ByteStreams.skipFully(dataStream, 4);
+
+    int modsLength = dataStream.readInt();
+    ByteStreams.skipFully(dataStream, modsLength);
+    // The scenario, which contains the game options
+    dataStream.readInt();
+    index.setGameOptions(readGameOptions(readLua(dataStream)));
+
+    int sources = dataStream.readUnsignedByte();
+    List<String> commandSources = new ArrayList<>(sources);
+    for (int i = 0; i < sources; i++) {
+      // Player name and ID
+      commandSources.add(readString(dataStream));
+      dataStream.readInt();
+    }
+    index.setCommandSources(commandSources);
+    List<Integer> commandCounts = new ArrayList<>(Collections.nCopies(sources, 0));
+    index.setCommandCounts(commandCounts);
+    // Cheats enabled
+    dataStream.readUnsignedByte();
+    int armies = dataStream.readUnsignedByte();
+    index.setArmies(new ArrayList<>(armies));
+    // Player names of all armies by their index, null for armies without a player
+    List<String> armyPlayerNames = new ArrayList<>(armies);
+    for (int i = 0; i < armies; i++) {
+      // The length of an army is not reliable, so its table has to be read element by element
+      dataStream.readInt();
+      Object army = readLua(dataStream);
+      String playerName = army instanceof Map && ((Map<?, ?>) army).get("PlayerName") instanceof String
+          ? (String) ((Map<?, ?>) army).get("PlayerName")
+          : null;
+      armyPlayerNames.add(playerName);
+      if (dataStream.readUnsignedByte() != NO_SOURCE) {
+        ByteStreams.skipFully(dataStream, 1);
+        if (playerName != null) {
+          index.getArmies().add(playerName);
+        }
+      }
+    }
+    // Random seed
+    dataStream.readInt();
+    index.setHeaderLength(countingStream.getCount());
+
+    List<SummaryChatMessage> chatMessages = new ArrayList<>();
+    index.setChatMessages(chatMessages);
+    int ticks = 0;
+    int commandSource = NO_SOURCE;
+    while (true) {
+      long offset = countingStream.getCount();
+      int type = dataStream.read();
+      if (type == -1) {
+        break;
+      }
+      int length = dataStream.readUnsignedShort();
+      if (length < OPERATION_HEADER_LENGTH) {
+        throw new IOException("Invalid length of replay operation at offset " + offset + ": " + length);
+      }
+
+      if (type == OPERATION_ADVANCE) {
+        ticks += dataStream.readInt();
+        ByteStreams.skipFully(dataStream, length - OPERATION_HEADER_LENGTH - 4);
+        continue;
+      }
+
+      if (type == OPERATION_SET_COMMAND_SOURCE) {
+        commandSource = dataStream.readUnsignedByte();
+        ByteStreams.skipFully(dataStream, length - OPERATION_HEADER_LENGTH - 1);
+        continue;
+      }
+
+      if (type == OPERATION_LUA_SIM_CALLBACK) {
+        byte[] data = new byte[length - OPERATION_HEADER_LENGTH];
+        dataStream.readFully(data);
+        readChatMessage(data, ticks, armyPlayerNames).ifPresent(chatMessages::add);
+        continue;
+      }
+
+      if ((type == OPERATION_ISSUE_COMMAND || type == OPERATION_ISSUE_FACTORY_COMMAND) && commandSource < sources) {
+        commandCounts.set(commandSource, commandCounts.get(commandSource) + 1);
+      }
+      ByteStreams.skipFully(dataStream, length - OPERATION_HEADER_LENGTH);
+    }
+
+    index.setTicks(ticks);
+    return index;
+  }
+
+  private static List<SummaryGameOption> readGameOptions(Object scenario) {
+    List<SummaryGameOption> gameOptions = new ArrayList<>();
+    if (!(scenario instanceof Map) || !(((Map<?, ?>) scenario).get("Options") instanceof Map)) {
+      return gameOptions;
+    }
+    ((Map<?, ?>) ((Map<?, ?>) scenario).get("Options")).forEach((key, value) -> {
+      SummaryGameOption gameOption = new SummaryGameOption();
+      gameOption.setKey(String.valueOf(key));
+      gameOption.setValue(String.valueOf(value));
+      gameOptions.add(gameOption);
+    });
+    return gameOptions;
+  }
+
+  /**
+   * Reads the chat message of a sim callback, which consists of the callback's name and its arguments. The data is read
+   * from a copy, so that malformed arguments can't affect reading the following operations.
+   *
+   * <p>Every recipient of a chat message issues the callback, with its own army as sender army. Only the one issued by
+   * the army of the sender is read, so that each message is read once.</p>
+   */
+  private static Optional<SummaryChatMessage> readChatMessage(byte[] data, int ticks, List<String> armyPlayerNames) throws IOException {
+    LittleEndianDataInputStream dataStream = new LittleEndianDataInputStream(new ByteArrayInputStream(data));
+    if (!CHAT_CALLBACK.equals(readString(dataStream))) {
+      return Optional.empty();
+    }
+    Object arguments = readLua(dataStream);
+    if (!(arguments instanceof Map)) {
+      return Optional.empty();
+    }
+    Map<?, ?> argumentMap = (Map<?, ?>) arguments;
+    Object sender = argumentMap.get("Sender");
+    Object from = argumentMap.get("From");
+    Object message = argumentMap.get("Msg");
+    if (!(sender instanceof String) || !(from instanceof Float) || !(message instanceof Map)
+        || !(((Map<?, ?>) message).get("text") instanceof String)) {
+      return Optional.empty();
+    }
+    // Armies are numbered from 1, observers use -1
+    int fromArmy = ((Float) from).intValue() - 1;
+    if (fromArmy < 0 || fromArmy >= armyPlayerNames.size() || !sender.equals(armyPlayerNames.get(fromArmy))) {
+      return Optional.empty();
+    }
+
+    SummaryChatMessage chatMessage = new SummaryChatMessage();
+    chatMessage.setTimeMillis((long) ticks * MILLIS_PER_TICK);
+    chatMessage.setSender((String) sender);
+    chatMessage.setMessage((String) ((Map<?, ?>) message).get("text"));
+    return Optional.of(chatMessage);
+  }
+
+  private static void skipString(InputStream inputStream) throws IOException {
+    int character;
+    do {
+      character = inputStream.read();
+      if (character == -1) {
+        throw new EOFException();
+      }
+    } while (character != 0);
+  }
+
+  private static String readString(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int character;
+    while ((character = inputStream.read()) != 0) {
+      if (character == -1) {
+        throw new EOFException();
+      }
+      bytes.write(character);
+    }
+    return bytes.toString(UTF_8);
+  }
+
+  /**
+   * Reads a serialized Lua value as {@link Float}, {@link String}, {@link Boolean}, {@link Map} or {@code null}.
+   */
+  private static Object readLua(LittleEndianDataInputStream dataStream) throws IOException {
+    int type = dataStream.readUnsignedByte();
+    switch (type) {
+      case LUA_NUMBER:
+        return dataStream.readFloat();
+      case LUA_STRING:
+        return readString(dataStream);
+      case LUA_NIL:
+        ByteStreams.skipFully(dataStream, 1);
+        return null;
+      case LUA_BOOL:
+        return dataStream.readUnsignedByte() == 0;
+      case LUA_TABLE_START:
+        Map<Object, Object> table = new LinkedHashMap<>();
+        while (true) {
+          dataStream.mark(1);
+          if (dataStream.readUnsignedByte() == LUA_TABLE_END) {
+            break;
+          }
+          dataStream.reset();
+          Object key = readLua(dataStream);
+          table.put(key, readLua(dataStream));
+        }
+        return table;
+      default:
+        throw new IOException("Unexpected Lua type in replay: " + type);
+    }
+  }
+}
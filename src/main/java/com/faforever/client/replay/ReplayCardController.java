@@ -60,20 +60,15 @@ public class ReplayCardController implements Controller<Node> {
   public StarsController starsController;
   private Replay replay;
   private final InvalidationListener reviewsChangedListener = observable -> populateReviews();
+  private final InvalidationListener mapChangedListener = observable -> populateMap();
   private Consumer<Replay> onOpenDetailListener;
 
   public void setReplay(Replay replay) {
     this.replay = replay;
 
-    Optional<MapBean> optionalMap = Optional.ofNullable(replay.getMap());
-    if (optionalMap.isPresent()) {
-      MapBean map = optionalMap.get();
-      Image image = mapService.loadPreview(map.getFolderName(), PreviewSize.SMALL);
-      mapThumbnailImageView.setImage(image);
-      onMapLabel.setText(i18n.get("game.onMapFormat", map.getDisplayName()));
-    } else {
-      onMapLabel.setText(i18n.get("game.onUnknownMap"));
-    }
+    // The map of a local replay may only be known later
+    JavaFxUtil.addListener(replay.mapProperty(), new WeakInvalidationListener(mapChangedListener));
+    populateMap();
 
     gameTitleLabel.setText(replay.getTitle());
     dateLabel.setText(timeService.asDate(replay.getStartTime()));
@@ -125,6 +120,20 @@ public class ReplayCardController implements Controller<Node> {
     reviewsChangedListener.invalidated(reviews);
   }
 
+  private void populateMap() {
+    Optional<MapBean> optionalMap = Optional.ofNullable(replay.getMap());
+    JavaFxUtil.runLater(() -> {
+      if (optionalMap.isPresent()) {
+        MapBean map = optionalMap.get();
+        Image image = mapService.loadPreview(map.getFolderName(), PreviewSize.SMALL);
+        mapThumbnailImageView.setImage(image);
+        onMapLabel.setText(i18n.get("game.onMapFormat", map.getDisplayName()));
+      } else {
+        onMapLabel.setText(i18n.get("game.onUnknownMap"));
+      }
+    });
+  }
+
   private void populateReviews() {
     ObservableList<Review> reviews = replay.getReviews();
     Platform.runLater(() -> {
@@ -0,0 +1,160 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.preferences.PreferencesService;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps replays downloaded from the vault in the cache directory, so that watching a replay again doesn't download it
+ * again. Replays are stored by their ID, which uniquely identifies their content. Downloads that have been interrupted
+ * are kept as partial files and can be resumed. If the store exceeds its maximum size, the least recently used replays
+ * are deleted.
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReplayDownloadStore {
+
+  private static final String STORE_DIRECTORY = "replays";
+  private static final String REPLAY_FILE_FORMAT = "%d.fafreplay";
+  private static final String PART_FILE_SUFFIX = ".part";
+
+  private final PreferencesService preferencesService;
+  private final ClientProperties clientProperties;
+
+  /**
+   * Returns the stored replay with the specified ID, if it has been downloaded completely, and marks it as recently
+   * used.
+   */
+  public Optional<Path> getReplayFile(int replayId) {
+    Path replayFile = getStoreDirectory().resolve(String.format(REPLAY_FILE_FORMAT, replayId));
+    if (Files.notExists(replayFile)) {
+      return Optional.empty();
+    }
+    try {
+      Files.setLastModifiedTime(replayFile, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      log.debug("Could not mark stored replay as recently used: {}", replayFile, e);
+    }
+    return Optional.of(replayFile);
+  }
+
+  /**
+   * Returns the file to download the replay with the specified ID to. If a previous download has been interrupted, the
+   * file contains the bytes downloaded so far.
+   */
+  public Path getPartFile(int replayId) throws IOException {
+    Path storeDirectory = getStoreDirectory();
+    Files.createDirectories(storeDirectory);
+    return storeDirectory.resolve(String.format(REPLAY_FILE_FORMAT, replayId) + PART_FILE_SUFFIX);
+  }
+
+  /**
+   * Marks the download of the specified replay as complete and deletes old replays if the store has become too big.
+   *
+   * @return the stored replay file
+   */
+  public Path complete(int replayId) throws IOException {
+    Path replayFile = getStoreDirectory().resolve(String.format(REPLAY_FILE_FORMAT, replayId));
+    Files.move(getPartFile(replayId), replayFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    evict(replayFile);
+    return replayFile;
+  }
+
+  /**
+   * Returns the size of the specified replay, either from the store or by asking the vault using a {@code HEAD}
+   * request.
+   *
+   * @return the size in bytes or {@code -1} if the replay is not available
+   */
+  public long getSize(int replayId) throws IOException {
+    Path replayFile = getStoreDirectory().resolve(String.format(REPLAY_FILE_FORMAT, replayId));
+    if (Files.exists(replayFile)) {
+      return Files.size(replayFile);
+    }
+
+    String replayUrl = Replay.getReplayUrl(replayId, clientProperties.getVault().getReplayDownloadUrlFormat());
+    HttpURLConnection urlConnection = (HttpURLConnection) new URL(replayUrl).openConnection();
+    try {
+      urlConnection.setInstanceFollowRedirects(true);
+      urlConnection.setRequestMethod("HEAD");
+      if (urlConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        return -1;
+      }
+      return urlConnection.getContentLengthLong();
+    } finally {
+      urlConnection.disconnect();
+    }
+  }
+
+  /**
+   * Deletes the least recently used replays until the store fits into its maximum size. Partial files of downloads,
+   * which may be in progress, are never deleted. Since the replay to keep has already been stored when this is called,
+   * failures are only logged.
+   *
+   * @param keptFile the replay that is about to be watched and must not be deleted
+   */
+  private void evict(Path keptFile) {
+    List<StoredFile> storedFiles = new ArrayList<>();
+    long totalSize = 0;
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(getStoreDirectory())) {
+      for (Path file : directoryStream) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        totalSize += attributes.size();
+        if (!file.equals(keptFile) && !file.getFileName().toString().endsWith(PART_FILE_SUFFIX)) {
+          storedFiles.add(new StoredFile(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not determine the size of the replay store", e);
+      return;
+    }
+
+    long maxSize = clientProperties.getReplay().getDownloadedReplaysMaxSize();
+    storedFiles.sort(Comparator.comparingLong(StoredFile::getLastModified));
+    for (StoredFile storedFile : storedFiles) {
+      if (totalSize <= maxSize) {
+        break;
+      }
+      log.debug("Deleting least recently used replay: {}", storedFile.getPath());
+      try {
+        Files.deleteIfExists(storedFile.getPath());
+        totalSize -= storedFile.getSize();
+      } catch (IOException e) {
+        log.warn("Could not delete stored replay: {}", storedFile.getPath(), e);
+      }
+    }
+  }
+
+  private Path getStoreDirectory() {
+    return preferencesService.getCacheDirectory().resolve(STORE_DIRECTORY);
+  }
+
+  @Value
+  private static class StoredFile {
+    Path path;
+    long size;
+    long lastModified;
+  }
+}
@@ -2,7 +2,6 @@ package com.faforever.client.replay;
 
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
-import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.task.CompletableTask;
 import com.faforever.commons.io.ByteCopier;
 import org.slf4j.Logger;
@@ -14,6 +13,7 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
@@ -21,55 +21,120 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
+import static java.nio.file.StandardOpenOption.APPEND;
+
+/**
+ * Downloads a replay into the {@link ReplayDownloadStore}, unless it has been downloaded before. Interrupted downloads
+ * are resumed using an HTTP range request. A download is only added to the store once it has the size announced by
+ * the server.
+ */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ReplayDownloadTask extends CompletableTask<Path> {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-  private static final String TEMP_FAF_REPLAY_FILE_NAME = "temp.fafreplay";
+  private static final String CONTENT_RANGE_UNIT = "bytes ";
 
   private final I18n i18n;
   private final ClientProperties clientProperties;
-  private final PreferencesService preferencesService;
+  private final ReplayDownloadStore replayDownloadStore;
 
   private int replayId;
 
   @Inject
-  public ReplayDownloadTask(I18n i18n, ClientProperties clientProperties, PreferencesService preferencesService) {
+  public ReplayDownloadTask(I18n i18n, ClientProperties clientProperties, ReplayDownloadStore replayDownloadStore) {
     super(Priority.HIGH);
 
     this.i18n = i18n;
     this.clientProperties = clientProperties;
-    this.preferencesService = preferencesService;
+    this.replayDownloadStore = replayDownloadStore;
   }
 
   @Override
   protected Path call() throws Exception {
+    Optional<Path> storedReplay = replayDownloadStore.getReplayFile(replayId);
+    if (storedReplay.isPresent()) {
+      logger.debug("Using previously downloaded replay {}", replayId);
+      return storedReplay.get();
+    }
+
     updateTitle(i18n.get("mapReplayTask.title", replayId));
 
     String replayUrl = Replay.getReplayUrl(replayId, clientProperties.getVault().getReplayDownloadUrlFormat());
-
-    logger.info("Downloading replay {} from {}", replayId, replayUrl);
+    Path partFile = replayDownloadStore.getPartFile(replayId);
+    long downloadedBytes = Files.exists(partFile) ? Files.size(partFile) : 0;
 
     HttpURLConnection urlConnection = (HttpURLConnection) new URL(replayUrl).openConnection();
     urlConnection.setInstanceFollowRedirects(true);
-    int bytesToRead = urlConnection.getContentLength();
+    if (downloadedBytes > 0) {
+      urlConnection.setRequestProperty("Range", "bytes=" + downloadedBytes + "-");
+    }
 
-    Path tempSupComReplayFile = preferencesService.getCacheDirectory().resolve(TEMP_FAF_REPLAY_FILE_NAME);
+    int responseCode = urlConnection.getResponseCode();
+    if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+      // A stale partial download may be the reason, so the next attempt starts from scratch
+      Files.deleteIfExists(partFile);
+      throw new IOException("Replay " + replayId + " could not be downloaded, HTTP status: " + responseCode);
+    }
 
-    Files.createDirectories(tempSupComReplayFile.getParent());
+    boolean resumed = responseCode == HttpURLConnection.HTTP_PARTIAL;
+    if (resumed && getContentRangeStart(urlConnection.getHeaderField("Content-Range")) != downloadedBytes) {
+      Files.deleteIfExists(partFile);
+      throw new IOException("Replay " + replayId + " could not be resumed, unexpected content range: "
+          + urlConnection.getHeaderField("Content-Range"));
+    }
+    long offset = resumed ? downloadedBytes : 0;
+    long contentLength = urlConnection.getContentLengthLong();
+    long bytesToRead = contentLength < 0 ? -1 : offset + contentLength;
+
+    if (resumed) {
+      logger.info("Resuming download of replay {} from {} at byte {}", replayId, replayUrl, offset);
+    } else {
+      logger.info("Downloading replay {} from {}", replayId, replayUrl);
+    }
 
     try (InputStream inputStream = new BufferedInputStream(urlConnection.getInputStream());
-         OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempSupComReplayFile))) {
+         OutputStream outputStream = new BufferedOutputStream(resumed
+             ? Files.newOutputStream(partFile, APPEND)
+             : Files.newOutputStream(partFile))) {
 
       ByteCopier.from(inputStream)
           .to(outputStream)
           .totalBytes(bytesToRead)
-          .listener(this::updateProgress)
+          .listener((written, total) -> updateProgress(offset + written, bytesToRead))
           .copy();
+    }
+
+    long actualBytes = Files.size(partFile);
+    if (bytesToRead >= 0 && actualBytes != bytesToRead) {
+      // A download that ended early can be resumed, one that is too long can't
+      if (actualBytes > bytesToRead) {
+        Files.deleteIfExists(partFile);
+      }
+      throw new IOException("Replay " + replayId + " has " + actualBytes + " bytes instead of " + bytesToRead);
+    }
 
-      return tempSupComReplayFile;
+    return replayDownloadStore.complete(replayId);
+  }
+
+  /**
+   * Returns the first byte position of a {@code Content-Range} header like {@code bytes 100-199/200}, or {@code -1} if
+   * the header is missing or malformed.
+   */
+  private static long getContentRangeStart(String contentRange) {
+    if (contentRange == null || !contentRange.startsWith(CONTENT_RANGE_UNIT)) {
+      return -1;
+    }
+    int separatorIndex = contentRange.indexOf('-');
+    if (separatorIndex < 0) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentRange.substring(CONTENT_RANGE_UNIT.length(), separatorIndex).trim());
+    } catch (NumberFormatException e) {
+      return -1;
     }
   }
 
@@ -3,6 +3,8 @@ package com.faforever.client.replay;
 
 import com.faforever.commons.replay.ReplayData;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 
 public interface ReplayFileReader {
@@ -17,6 +19,13 @@ public interface ReplayFileReader {
    */
   byte[] readRawReplayData(Path replayFile);
 
+  /**
+   * Opens a stream of the binary replay data, which is decoded and decompressed while being read. Unlike {@link
+   * #readRawReplayData(Path)}, this doesn't require the whole replay to be held in memory. The caller is responsible
+   * for closing the stream.
+   */
+  InputStream openRawReplayData(Path replayFile) throws IOException;
+
   /**
    * Parses the actual replay data of the specified file and returns information such as chat messages, game options,
    * executed commands and so on.
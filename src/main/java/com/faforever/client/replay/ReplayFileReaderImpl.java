@@ -1,9 +1,8 @@
 package com.faforever.client.replay;
 
-import com.faforever.commons.replay.QtCompress;
 import com.faforever.commons.replay.ReplayData;
 import com.faforever.commons.replay.ReplayDataParser;
-import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -12,16 +11,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Base64;
+import java.util.zip.InflaterInputStream;
 
-import static com.github.nocatch.NoCatch.noCatch;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Lazy
 @Component
@@ -40,11 +41,12 @@ public class ReplayFileReaderImpl implements ReplayFileReader {
   @SneakyThrows
   public LocalReplayInfo parseMetaData(Path replayFile) {
     logger.debug("Parsing metadata of replay file: {}", replayFile);
-    try (Stream<String> stream = Files.lines(replayFile)) {
-      return stream
-          .findFirst()
-          .map(jsonString -> gson.fromJson(jsonString, LocalReplayInfo.class))
-          .orElseThrow(() -> new IOException(String.format("Failed to extract metadata from replay file: {}", replayFile)));
+    try (BufferedReader reader = Files.newBufferedReader(replayFile, UTF_8)) {
+      String jsonString = reader.readLine();
+      if (jsonString == null) {
+        throw new IOException(String.format("Failed to extract metadata from replay file: %s", replayFile));
+      }
+      return gson.fromJson(jsonString, LocalReplayInfo.class);
     }
   }
 
@@ -52,15 +54,43 @@ public class ReplayFileReaderImpl implements ReplayFileReader {
   @SneakyThrows
   public byte[] readRawReplayData(Path replayFile) {
     logger.debug("Reading replay file: {}", replayFile);
-    try (Stream<String> stream = Files.lines(replayFile)) {
-      return stream
-          .skip(1)
-          .findFirst()
-          .map(base64String -> noCatch(() -> QtCompress.qUncompress(BaseEncoding.base64().decode(base64String))))
-          .orElseThrow(() -> new IOException(String.format("Failed to extract replay data from replay file: {}", replayFile)));
+    try (InputStream inputStream = openRawReplayData(replayFile)) {
+      return ByteStreams.toByteArray(inputStream);
     }
   }
 
+  @Override
+  public InputStream openRawReplayData(Path replayFile) throws IOException {
+    InputStream inputStream = new BufferedInputStream(Files.newInputStream(replayFile));
+    try {
+      skipLine(inputStream);
+      // The MIME decoder ignores the line break at the end of the file
+      InputStream compressedStream = Base64.getMimeDecoder().wrap(inputStream);
+      // Data compressed by Qt's qCompress starts with the uncompressed size as 4 byte big endian integer
+      ByteStreams.skipFully(compressedStream, 4);
+      return new InflaterInputStream(compressedStream);
+    } catch (EOFException e) {
+      inputStream.close();
+      throw new IOException(String.format("Failed to extract replay data from replay file: %s", replayFile), e);
+    } catch (IOException | RuntimeException e) {
+      inputStream.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Skips everything up to and including the next line feed.
+   */
+  private static void skipLine(InputStream inputStream) throws IOException {
+    int character;
+    do {
+      character = inputStream.read();
+      if (character == -1) {
+        throw new EOFException();
+      }
+    } while (character != '\n');
+  }
+
   @Override
   public ReplayData parseReplay(Path path) {
     return new ReplayDataParser(path).parse();
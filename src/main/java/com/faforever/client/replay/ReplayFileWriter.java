@@ -1,9 +1,15 @@
 package com.faforever.client.replay;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 
 public interface ReplayFileWriter {
 
-  void writeReplayDataToFile(ByteArrayOutputStream replayData, LocalReplayInfo replayInfo) throws IOException;
+  /**
+   * Writes a replay file containing the specified replay info and the replay data read from the specified file. The
+   * replay data is compressed and encoded while being read, so it never needs to be held in memory as a whole.
+   *
+   * @param rawReplayFile file containing the replay data as received from the game
+   */
+  void writeReplayDataToFile(Path rawReplayFile, LocalReplayInfo replayInfo) throws IOException;
 }
@@ -4,26 +4,29 @@ import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.commons.io.Bytes;
-import com.faforever.commons.replay.QtCompress;
-import com.google.common.io.BaseEncoding;
 import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardOpenOption.APPEND;
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
 
 @Lazy
 @Component
@@ -36,26 +39,35 @@ public class ReplayFileWriterImpl implements ReplayFileWriter {
   private final I18n i18n;
   private final ClientProperties clientProperties;
   private final PreferencesService preferencesService;
+  private final ApplicationEventPublisher applicationEventPublisher;
 
   @Override
-  public void writeReplayDataToFile(ByteArrayOutputStream replayData, LocalReplayInfo replayInfo) throws IOException {
+  public void writeReplayDataToFile(Path rawReplayFile, LocalReplayInfo replayInfo) throws IOException {
     String fileName = String.format(clientProperties.getReplay().getReplayFileFormat(), replayInfo.getUid(), replayInfo.getRecorder());
     Path replayFile = preferencesService.getReplaysDirectory().resolve(fileName);
     Path temporaryReplayFile = Files.createTempFile(preferencesService.getCacheDirectory(), fileName, "fafreplay");
+    long rawReplaySize = Files.size(rawReplayFile);
 
-    logger.info("Writing replay file to {} ({})", replayFile, Bytes.formatSize(replayData.size(), i18n.getUserSpecificLocale()));
+    logger.info("Writing replay file to {} ({})", replayFile, Bytes.formatSize(rawReplaySize, i18n.getUserSpecificLocale()));
 
     Files.createDirectories(replayFile.getParent());
 
-    try (BufferedWriter writer = Files.newBufferedWriter(temporaryReplayFile, UTF_8, APPEND)) {
-      byte[] compressedBytes = QtCompress.qCompress(replayData.toByteArray());
-      String base64ReplayData = BaseEncoding.base64().encode(compressedBytes);
-
+    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryReplayFile, APPEND))) {
+      Writer writer = new OutputStreamWriter(outputStream, UTF_8);
       gson.toJson(replayInfo, writer);
       writer.write('\n');
-      writer.write(base64ReplayData);
+      writer.flush();
+
+      // Same format as Qt's qCompress: the uncompressed size as 4 byte big endian integer, followed by zlib data
+      try (DataOutputStream compressedOutputStream = new DataOutputStream(Base64.getEncoder().wrap(outputStream))) {
+        compressedOutputStream.writeInt((int) rawReplaySize);
+        DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressedOutputStream);
+        Files.copy(rawReplayFile, deflaterOutputStream);
+        deflaterOutputStream.finish();
+      }
     }
 
     Files.move(temporaryReplayFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+    applicationEventPublisher.publishEvent(new ReplayWrittenEvent(replayFile));
   }
 }
@@ -10,6 +10,10 @@ import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
 public final class ReplayFiles {
 
   public static final GsonBuilder GSON_BUILDER = new GsonBuilder()
@@ -26,4 +30,17 @@ public final class ReplayFiles {
   public static Gson gson() {
     return GSON_BUILDER.create();
   }
+
+  /**
+   * Writes all remaining bytes of the specified buffer to the specified channel.
+   *
+   * @return the number of bytes written
+   */
+  public static int writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    int bytes = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    return bytes;
+  }
 }
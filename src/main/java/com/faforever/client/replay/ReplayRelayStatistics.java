@@ -0,0 +1,52 @@
+package com.faforever.client.replay;
+
+import java.time.Duration;
+
+/**
+ * Measures how much replay data has been relayed to the replay server and how long it took from receiving data from
+ * the game until it has been handed to the network stack.
+ */
+class ReplayRelayStatistics {
+
+  private final long startNanos = System.nanoTime();
+  private long relayedBytes;
+  private long writes;
+  private long totalLagNanos;
+  private long maxLagNanos;
+
+  void onRelayed(int bytes, long lagNanos) {
+    relayedBytes += bytes;
+    writes++;
+    totalLagNanos += lagNanos;
+    maxLagNanos = Math.max(maxLagNanos, lagNanos);
+  }
+
+  long getRelayedBytes() {
+    return relayedBytes;
+  }
+
+  double getBytesPerSecond() {
+    long elapsedNanos = System.nanoTime() - startNanos;
+    if (elapsedNanos <= 0) {
+      return 0;
+    }
+    return relayedBytes * 1_000_000_000d / elapsedNanos;
+  }
+
+  Duration getAverageLag() {
+    if (writes == 0) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos(totalLagNanos / writes);
+  }
+
+  Duration getMaxLag() {
+    return Duration.ofNanos(maxLagNanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d bytes in %d writes, %.1f bytes/s, average lag %d µs, max lag %d µs",
+        relayedBytes, writes, getBytesPerSecond(), getAverageLag().toNanos() / 1000, getMaxLag().toNanos() / 1000);
+  }
+}
@@ -2,36 +2,56 @@ package com.faforever.client.replay;
 
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.game.Game;
+import com.faforever.client.game.KnownFeaturedMod;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.notification.Action;
 import com.faforever.client.notification.NotificationService;
 import com.faforever.client.notification.PersistentNotification;
 import com.faforever.client.notification.Severity;
+import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.domain.GameStatus;
 import com.faforever.client.update.ClientUpdateService;
 import com.faforever.client.user.UserService;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.primitives.Bytes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
+import static com.faforever.client.replay.ReplayFiles.writeFully;
 import static com.github.nocatch.NoCatch.noCatch;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 @Lazy
 @Component
@@ -39,25 +59,28 @@ import static com.github.nocatch.NoCatch.noCatch;
 @RequiredArgsConstructor
 public class ReplayServerImpl implements ReplayServer {
 
-  /**
-   * Size for buffer used to send data to the live replay server. The buffer needs to be large enough to not flush too
-   * many times (after all, it's a TCP stream so we don't want to send single bytes) but small enough to not delay data
-   * for too long. I don't have any data right now but it can be expected that the replay stream produces about 70 bytes
-   * per second (See #973).
-   */
-  private static final int REPLAY_BUFFER_SIZE = 128;
-
   /**
    * This is a prefix used in the FA live replay protocol that needs to be stripped away when storing to a file.
    */
   private static final byte[] LIVE_REPLAY_PREFIX = new byte[]{'P', '/'};
 
+  /** Interval in which recorded replay data is forced to disk, so that it survives a crash of the client. */
+  private static final Duration RECORDING_SYNC_INTERVAL = Duration.ofSeconds(10);
+  private static final String RECORDINGS_DIRECTORY = "recordings";
+  private static final String RECORDING_FILE_SUFFIX = ".scfareplay";
+  /** Recorder of recovered replays if nobody is logged in yet, since the replay file name requires one. */
+  private static final String UNKNOWN_RECORDER = "unknown";
+  /** How many bytes to read from a recording to find its map, which is stored in the header. */
+  private static final int RECOVERY_HEADER_BYTES = 64 * 1024;
+
   private final ClientProperties clientProperties;
   private final NotificationService notificationService;
   private final I18n i18n;
   private final UserService userService;
   private final ReplayFileWriter replayFileWriter;
   private final ClientUpdateService clientUpdateService;
+  private final PreferencesService preferencesService;
+  private final ExecutorService executorService;
 
   private LocalReplayInfo replayInfo;
   private ServerSocket serverSocket;
@@ -70,6 +93,78 @@ public class ReplayServerImpl implements ReplayServer {
     return System.currentTimeMillis() / 1000;
   }
 
+  /**
+   * Recordings that are still in the recordings directory have been left behind by a client that crashed or failed to
+   * write the replay file. They are converted into replay files in background once the client has started, so that
+   * they show up as local replays. Recordings that can't be converted are moved to the corrupted replays directory.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    executorService.execute(() -> listLeftoverRecordings().forEach(this::recoverRecording));
+  }
+
+  private List<Path> listLeftoverRecordings() {
+    Path recordingsDirectory = preferencesService.getCacheDirectory().resolve(RECORDINGS_DIRECTORY);
+    List<Path> recordings = new ArrayList<>();
+    if (Files.notExists(recordingsDirectory)) {
+      return recordings;
+    }
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(recordingsDirectory, "*" + RECORDING_FILE_SUFFIX)) {
+      directoryStream.forEach(recordings::add);
+    } catch (IOException e) {
+      log.warn("Recordings directory could not be listed: {}", recordingsDirectory, e);
+    }
+    return recordings;
+  }
+
+  @VisibleForTesting
+  void recoverRecording(Path recordingFile) {
+    try {
+      if (Files.size(recordingFile) == 0) {
+        Files.delete(recordingFile);
+        return;
+      }
+
+      String fileName = recordingFile.getFileName().toString();
+      BasicFileAttributes attributes = Files.readAttributes(recordingFile, BasicFileAttributes.class);
+      LocalReplayInfo recoveredReplayInfo = createReplayInfo(Integer.parseInt(fileName.substring(0, fileName.indexOf('-'))));
+      recoveredReplayInfo.setLaunchedAt(attributes.creationTime().toMillis() / 1000);
+      recoveredReplayInfo.setGameEnd(attributes.lastModifiedTime().toMillis() / 1000);
+      recoveredReplayInfo.setRecorder(Optional.ofNullable(userService.getUsername()).orElse(UNKNOWN_RECORDER));
+      recoveredReplayInfo.setFeaturedMod(KnownFeaturedMod.DEFAULT.getTechnicalName());
+      recoveredReplayInfo.setMapname(readMapFolderName(recordingFile));
+      recoveredReplayInfo.setState(GameStatus.UNKNOWN);
+      recoveredReplayInfo.setComplete(false);
+
+      log.info("Recovering replay from leftover recording {}", recordingFile);
+      replayFileWriter.writeReplayDataToFile(recordingFile, recoveredReplayInfo);
+      Files.delete(recordingFile);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Leftover recording could not be recovered: {}", recordingFile, e);
+      moveCorruptedRecording(recordingFile);
+    }
+  }
+
+  private void moveCorruptedRecording(Path recordingFile) {
+    Path target = preferencesService.getCorruptedReplaysDirectory().resolve(recordingFile.getFileName());
+    try {
+      Files.createDirectories(target.getParent());
+      Files.move(recordingFile, target, REPLACE_EXISTING);
+    } catch (IOException e) {
+      log.warn("Failed to move corrupted recording to {}", target, e);
+    }
+  }
+
+  @Nullable
+  private static String readMapFolderName(Path recordingFile) {
+    try (InputStream inputStream = Files.newInputStream(recordingFile)) {
+      return ReplayService.parseMapFolderName(inputStream.readNBytes(RECOVERY_HEADER_BYTES));
+    } catch (IOException | RuntimeException e) {
+      log.debug("Map of recording could not be determined: {}", recordingFile, e);
+      return null;
+    }
+  }
+
   @Override
   public void stop() {
     if (serverSocket == null) {
@@ -89,18 +184,19 @@ public class ReplayServerImpl implements ReplayServer {
 
       log.debug("Connecting to replay server at '{}:{}'", remoteReplayServerHost, remoteReplayServerPort);
 
-      try (ServerSocket localSocket = new ServerSocket(0)) {
-        log.debug("Opening local replay server on port {}", localSocket.getLocalPort());
-        this.serverSocket = localSocket;
+      try (ServerSocketChannel localChannel = ServerSocketChannel.open()) {
+        localChannel.bind(new InetSocketAddress(0));
+        this.serverSocket = localChannel.socket();
+        log.debug("Opening local replay server on port {}", serverSocket.getLocalPort());
         future.complete(serverSocket.getLocalPort());
 
-        try (Socket remoteReplayServerSocket = new Socket(remoteReplayServerHost, remoteReplayServerPort);
-             DataOutputStream fafReplayOutputStream = new DataOutputStream(remoteReplayServerSocket.getOutputStream())) {
-          recordAndRelay(gameId, localSocket, fafReplayOutputStream, gameSupplier);
-        } catch (ConnectException e) {
+        try (SocketChannel remoteReplayServerChannel = SocketChannel.open(new InetSocketAddress(remoteReplayServerHost, remoteReplayServerPort))) {
+          remoteReplayServerChannel.setOption(StandardSocketOptions.TCP_NODELAY, clientProperties.getReplay().isRelayTcpNoDelay());
+          recordAndRelay(gameId, localChannel, remoteReplayServerChannel, gameSupplier);
+        } catch (ConnectException | UnresolvedAddressException e) {
           log.warn("Could not connect to remote replay server", e);
           notificationService.addNotification(new PersistentNotification(i18n.get("replayServer.unreachable"), Severity.WARN));
-          recordAndRelay(gameId, localSocket, null, gameSupplier);
+          recordAndRelay(gameId, localChannel, null, gameSupplier);
         }
       } catch (IOException e) {
         if (stoppedGracefully) {
@@ -117,58 +213,103 @@ public class ReplayServerImpl implements ReplayServer {
     return future;
   }
 
-  private void initReplayInfo(int uid) {
-    replayInfo = new LocalReplayInfo();
+  private LocalReplayInfo createReplayInfo(int uid) {
+    LocalReplayInfo replayInfo = new LocalReplayInfo();
     replayInfo.setUid(uid);
     replayInfo.setLaunchedAt(pythonTime());
     replayInfo.setVersionInfo(new HashMap<>());
     replayInfo.getVersionInfo().put("lobby",
         String.format("dfaf-%s", clientUpdateService.getCurrentVersion())
     );
+    return replayInfo;
   }
 
   /**
-   * @param fafReplayOutputStream if {@code null}, the replay won't be relayed
+   * Forwards the replay data received from the game to the replay server as soon as it has been received, and
+   * afterwards appends it to the recording file. Writing to disk happens after relaying so that it never delays
+   * spectators.
+   *
+   * @param remoteReplayServerChannel if {@code null}, the replay won't be relayed
    */
-  private void recordAndRelay(int uid, ServerSocket serverSocket, @Nullable OutputStream fafReplayOutputStream, Supplier<Game> onGameInfoFinished) throws IOException {
-    Socket socket = serverSocket.accept();
-    Game game = onGameInfoFinished.get();
-    log.debug("Accepted connection from {}", socket.getRemoteSocketAddress());
-
-    initReplayInfo(uid);
-
-    ByteArrayOutputStream replayData = new ByteArrayOutputStream();
-
-    boolean connectionToServerLost = false;
-    byte[] buffer = new byte[REPLAY_BUFFER_SIZE];
-    try (InputStream inputStream = socket.getInputStream()) {
-      int bytesRead;
-      while ((bytesRead = inputStream.read(buffer)) != -1) {
-        if (replayData.size() == 0 && Bytes.indexOf(buffer, LIVE_REPLAY_PREFIX) != -1) {
-          int dataBeginIndex = Bytes.indexOf(buffer, (byte) 0x00) + 1;
-          replayData.write(buffer, dataBeginIndex, bytesRead - dataBeginIndex);
-        } else {
-          replayData.write(buffer, 0, bytesRead);
-        }
+  private void recordAndRelay(int uid, ServerSocketChannel serverChannel, @Nullable SocketChannel remoteReplayServerChannel, Supplier<Game> onGameInfoFinished) throws IOException {
+    try (SocketChannel gameChannel = serverChannel.accept()) {
+      Game game = onGameInfoFinished.get();
+      log.debug("Accepted connection from {}", gameChannel.getRemoteAddress());
+
+      replayInfo = createReplayInfo(uid);
+
+      Path recordingFile = createRecordingFile(uid);
+      log.debug("Recording replay to {}", recordingFile);
+
+      ReplayRelayStatistics statistics = new ReplayRelayStatistics();
+      boolean connectionToServerLost = remoteReplayServerChannel == null;
+      ByteBuffer buffer = ByteBuffer.allocateDirect(clientProperties.getReplay().getRelayBufferSize());
+      try (FileChannel recordingChannel = FileChannel.open(recordingFile, WRITE, APPEND)) {
+        long recordedBytes = 0;
+        long lastSync = System.nanoTime();
+        while (gameChannel.read(buffer) != -1) {
+          long receivedAt = System.nanoTime();
+          buffer.flip();
 
-        if (!connectionToServerLost && fafReplayOutputStream != null) {
-          try {
-            fafReplayOutputStream.write(buffer, 0, bytesRead);
-          } catch (SocketException e) {
-            // In case we lose connection to the replay server, just stop writing to it
-            log.warn("Connection to replay server lost ({})", e.getMessage());
-            connectionToServerLost = true;
+          if (!connectionToServerLost) {
+            try {
+              int relayedBytes = writeFully(remoteReplayServerChannel, buffer);
+              statistics.onRelayed(relayedBytes, System.nanoTime() - receivedAt);
+            } catch (IOException e) {
+              // In case we lose connection to the replay server, just stop writing to it
+              log.warn("Connection to replay server lost ({})", e.getMessage());
+              connectionToServerLost = true;
+            }
+            buffer.rewind();
+          }
+
+          if (recordedBytes == 0) {
+            skipLiveReplayPrefix(buffer);
+          }
+          recordedBytes += writeFully(recordingChannel, buffer);
+          buffer.clear();
+
+          if (System.nanoTime() - lastSync >= RECORDING_SYNC_INTERVAL.toNanos()) {
+            recordingChannel.force(false);
+            lastSync = System.nanoTime();
           }
         }
+      } catch (Exception e) {
+        log.warn("Error while recording replay, partial replay data has been kept in {}", recordingFile, e);
+        throw e;
       }
-    } catch (Exception e) {
-      log.warn("Error while recording replay", e);
-      throw e;
+
+      if (remoteReplayServerChannel != null) {
+        log.info("Relayed replay to replay server: {}", statistics);
+      }
+
+      log.debug("FAF has disconnected, writing replay data to file");
+      finishReplayInfo(game);
+      replayFileWriter.writeReplayDataToFile(recordingFile, replayInfo);
+      Files.delete(recordingFile);
+    }
+  }
+
+  /**
+   * The live replay protocol prefixes the replay data with a header that must not end up in the replay file. If the
+   * specified buffer starts with this header, its position is moved behind the header.
+   */
+  private static void skipLiveReplayPrefix(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    if (Bytes.indexOf(bytes, LIVE_REPLAY_PREFIX) != -1) {
+      buffer.position(buffer.position() + Bytes.indexOf(bytes, (byte) 0x00) + 1);
     }
+  }
 
-    log.debug("FAF has disconnected, writing replay data to file");
-    finishReplayInfo(game);
-    replayFileWriter.writeReplayDataToFile(replayData, replayInfo);
+  /**
+   * Creates the file the replay data is recorded to while the game is running. It is only deleted after the replay file
+   * has been written, so if the client crashes, the recorded data can still be played as SupCom replay.
+   */
+  private Path createRecordingFile(int uid) throws IOException {
+    Path recordingsDirectory = preferencesService.getCacheDirectory().resolve(RECORDINGS_DIRECTORY);
+    Files.createDirectories(recordingsDirectory);
+    return Files.createTempFile(recordingsDirectory, uid + "-", RECORDING_FILE_SUFFIX);
   }
 
   private void finishReplayInfo(Game game) {
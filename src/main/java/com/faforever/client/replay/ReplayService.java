@@ -22,15 +22,16 @@ import com.faforever.client.player.Player;
 import com.faforever.client.player.PlayerService;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.FafService;
+import com.faforever.client.replay.LocalReplayIndex.IndexedReplay;
 import com.faforever.client.replay.Replay.ChatMessage;
 import com.faforever.client.replay.Replay.GameOption;
+import com.faforever.client.replay.ReplaySummaryCache.ReplaySummary;
 import com.faforever.client.reporting.ReportingService;
 import com.faforever.client.task.TaskService;
 import com.faforever.client.user.UserService;
 import com.faforever.client.util.Tuple;
 import com.faforever.client.vault.search.SearchController.SortConfig;
 import com.faforever.client.vault.search.SearchController.SortOrder;
-import com.faforever.commons.replay.ReplayData;
 import com.github.rutledgepaulv.qbuilders.conditions.Condition;
 import com.github.rutledgepaulv.qbuilders.visitors.RSQLVisitor;
 import com.google.common.annotations.VisibleForTesting;
@@ -43,6 +44,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.EventListener;
@@ -50,30 +52,28 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static com.faforever.client.notification.Severity.WARN;
 import static com.faforever.commons.api.elide.ElideNavigator.qBuilder;
@@ -92,7 +92,7 @@ import static java.util.Collections.singletonList;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class ReplayService {
+public class ReplayService implements InitializingBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -108,6 +108,8 @@ public class ReplayService {
   private static final String FAF_LIFE_PROTOCOL = "faflive";
   private static final String GPGNET_SCHEME = "gpgnet";
   private static final String TEMP_SCFA_REPLAY_FILE_NAME = "temp.scfareplay";
+  /** The beginning of the binary data of a replay that contains the game version and the map. */
+  private static final int RAW_REPLAY_HEADER_BYTES = 64 * 1024;
   private static final Pattern invalidCharacters = Pattern.compile("[?@*%{}<>|\"]");
 
   private final ClientProperties clientProperties;
@@ -126,6 +128,13 @@ public class ReplayService {
   private final ModService modService;
   private final MapService mapService;
   private final EventBus eventBus;
+  private final LocalReplayIndex localReplayIndex;
+  private final LiveReplayHub liveReplayHub;
+  private final ReplaySummaryCache replaySummaryCache;
+  private final LocalReplaySearchIndex localReplaySearchIndex;
+  private final ReplayDownloadStore replayDownloadStore;
+  /** Downloads of online replays that are in progress, by replay ID. */
+  private final Map<Integer, CompletableFuture<Path>> replayDownloads = new ConcurrentHashMap<>();
   protected List<Replay> localReplays = new ArrayList<>();
 
   @VisibleForTesting
@@ -176,61 +185,128 @@ public class ReplayService {
     return KnownFeaturedMod.DEFAULT.getTechnicalName();
   }
 
+  @Override
+  public void afterPropertiesSet() {
+    updateLocalReplaySearchIndexInBackground();
+  }
+
+  @EventListener
+  public void onReplayWritten(ReplayWrittenEvent event) {
+    updateLocalReplaySearchIndexInBackground();
+  }
+
+  private void updateLocalReplaySearchIndexInBackground() {
+    Path replaysDirectory = preferencesService.getReplaysDirectory();
+    localReplaySearchIndex.updateInBackground(replaysDirectory, () -> updateLocalReplayIndex(getLocalReplaysDirectory()));
+  }
+
   @Async
   public CompletableFuture<Tuple<List<Replay>, Integer>> loadLocalReplayPage(int pageSize, int page) throws IOException {
-    String replayFileGlob = clientProperties.getReplay().getReplayFileGlob();
+    Path replaysDirectory = getLocalReplaysDirectory();
+    List<IndexedReplay> indexedReplays = updateLocalReplayIndex(replaysDirectory);
+    return toLocalReplayPage(replaysDirectory, indexedReplays, pageSize, page);
+  }
+
+  /**
+   * Finds local replays by words of their title, map, featured mod, player names and chat messages. Replays that haven't
+   * been added to the search index yet are not found, they are added in background.
+   *
+   * @see LocalReplaySearchIndex
+   */
+  @Async
+  public CompletableFuture<Tuple<List<Replay>, Integer>> searchLocalReplays(String query, int pageSize, int page) throws IOException {
+    Path replaysDirectory = getLocalReplaysDirectory();
+    List<IndexedReplay> indexedReplays = updateLocalReplayIndex(replaysDirectory);
+    localReplaySearchIndex.updateInBackground(replaysDirectory, () -> indexedReplays);
+
+    Set<String> matchingFileNames = localReplaySearchIndex.search(query);
+    List<IndexedReplay> matchingReplays = indexedReplays.stream()
+        .filter(indexedReplay -> matchingFileNames.contains(indexedReplay.getFileName()))
+        .collect(Collectors.toList());
+    return toLocalReplayPage(replaysDirectory, matchingReplays, pageSize, page);
+  }
 
+  private Path getLocalReplaysDirectory() {
     Path replaysDirectory = preferencesService.getReplaysDirectory();
     if (Files.notExists(replaysDirectory)) {
       noCatch(() -> createDirectories(replaysDirectory));
     }
+    return replaysDirectory;
+  }
 
-    int skippedReplays = pageSize * (page - 1);
-
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(replaysDirectory, replayFileGlob)) {
-      Stream<Path> filesStream = StreamSupport.stream(directoryStream.spliterator(), false)
-          .sorted(Comparator.comparing(path -> noCatch(() -> Files.getLastModifiedTime((Path) path))).reversed());
-
-      List<Path> filesList = filesStream.collect(Collectors.toList());
-      int numPages = filesList.size() / pageSize;
-
-      List<CompletableFuture<Replay>> replayFutures = filesList.stream()
-          .skip(skippedReplays)
-          .limit(pageSize)
-          .map(this::tryLoadingLocalReplay)
-          .filter(e -> !e.isCompletedExceptionally())
-          .collect(Collectors.toList());
-
-      return CompletableFuture.allOf(replayFutures.toArray(new CompletableFuture[0]))
-          .thenApply(ignoredVoid ->
-              replayFutures.stream()
-                  .map(CompletableFuture::join)
-                  .filter(Objects::nonNull)
-                  .collect(Collectors.toList()))
-          .thenApply(replays -> new Tuple<>(replays, numPages));
-    }
+  private List<IndexedReplay> updateLocalReplayIndex(Path replaysDirectory) throws IOException {
+    String replayFileGlob = clientProperties.getReplay().getReplayFileGlob();
+    return localReplayIndex.update(replaysDirectory, replayFileGlob, this::moveCorruptedReplayFile);
   }
 
+  private CompletableFuture<Tuple<List<Replay>, Integer>> toLocalReplayPage(Path replaysDirectory, List<IndexedReplay> indexedReplays, int pageSize, int page) {
+    int skippedReplays = pageSize * (page - 1);
+    int numPages = indexedReplays.size() / pageSize;
+
+    List<IndexedReplay> pageReplays = indexedReplays.stream()
+        .skip(skippedReplays)
+        .limit(pageSize)
+        .collect(Collectors.toList());
+    if (pageReplays.isEmpty()) {
+      return CompletableFuture.completedFuture(new Tuple<>(new ArrayList<>(), numPages));
+    }
 
-  private CompletableFuture<Replay> tryLoadingLocalReplay(Path replayFile) {
-    try {
-      LocalReplayInfo replayInfo = replayFileReader.parseMetaData(replayFile);
+    return modService.getFeaturedMods().thenApply(featuredMods -> {
+      Map<String, FeaturedMod> featuredModsByName = featuredMods.stream()
+          .collect(Collectors.toMap(FeaturedMod::getTechnicalName, Function.identity(), (first, second) -> first));
+
+      List<Replay> replays = new ArrayList<>(pageReplays.size());
+      Map<String, List<Replay>> replaysByMissingMap = new HashMap<>();
+      for (IndexedReplay indexedReplay : pageReplays) {
+        Path replayFile = replaysDirectory.resolve(indexedReplay.getFileName());
+        LocalReplayInfo replayInfo = indexedReplay.getReplayInfo();
+        FeaturedMod featuredMod = featuredModsByName.get(replayInfo.getFeaturedMod());
+        if (featuredMod == null) {
+          logger.warn("Could not load replay file '{}', not a valid featured mod: {}", replayFile, replayInfo.getFeaturedMod());
+          continue;
+        }
+        String mapFolderName = replayInfo.getMapname();
+        MapBean map = Optional.ofNullable(mapFolderName)
+            .flatMap(mapService::getMapLocallyFromName)
+            .orElse(null);
+        Replay replay = new Replay(replayInfo, replayFile, featuredMod, map);
+        replays.add(replay);
+        if (map == null && mapFolderName != null) {
+          replaysByMissingMap.computeIfAbsent(mapFolderName.toLowerCase(), folderName -> new ArrayList<>()).add(replay);
+        }
+      }
 
-      CompletableFuture<FeaturedMod> featuredModFuture = modService.getFeaturedMod(replayInfo.getFeaturedMod());
-      CompletableFuture<Optional<MapBean>> mapBeanFuture = mapService.findByMapFolderName(replayInfo.getMapname());
+      resolveMissingMaps(replaysByMissingMap);
+      // Makes opening the details of the shown replays instant
+      replaySummaryCache.summarizeInBackground(replays.stream().map(Replay::getReplayFile).collect(Collectors.toList()));
+      return new Tuple<>(replays, numPages);
+    });
+  }
 
-      return CompletableFuture.allOf(featuredModFuture, mapBeanFuture).thenApply(ignoredVoid -> {
-        Optional<MapBean> mapBean = mapBeanFuture.join();
-        if (mapBean.isEmpty()) {
-          logger.warn("Could not find map for replay file '{}'", replayFile);
-        }
-        return new Replay(replayInfo, replayFile, featuredModFuture.join(), mapBean.orElse(null));
-      });
-    } catch (Exception e) {
-      logger.warn("Could not read replay file '{}'", replayFile, e);
-      moveCorruptedReplayFile(replayFile);
-      return CompletableFuture.completedFuture(null);
+  /**
+   * Looks up maps that are not installed with as few requests as possible. Since this may take a while, the replays are
+   * not held back but updated once the maps have been found.
+   *
+   * @param replaysByMissingMap replays by the lower case folder name of their map
+   */
+  private void resolveMissingMaps(Map<String, List<Replay>> replaysByMissingMap) {
+    if (replaysByMissingMap.isEmpty()) {
+      return;
     }
+
+    mapService.findByMapFolderNames(replaysByMissingMap.keySet())
+        .thenAccept(mapsByFolderName -> replaysByMissingMap.forEach((folderName, mapReplays) -> {
+          MapBean map = mapsByFolderName.get(folderName);
+          if (map == null) {
+            logger.warn("Could not find map '{}' for {} local replays", folderName, mapReplays.size());
+            return;
+          }
+          mapReplays.forEach(replay -> replay.setMap(map));
+        }))
+        .exceptionally(throwable -> {
+          logger.warn("Could not look up maps of local replays", throwable);
+          return null;
+        });
   }
 
   private void moveCorruptedReplayFile(Path replayFile) {
@@ -299,7 +375,7 @@ public class ReplayService {
     Integer gameId = Integer.parseInt(uri.getPath().split("/")[1]);
 
     try {
-      URI replayUri = new URI(GPGNET_SCHEME, null, uri.getHost(), uri.getPort(), uri.getPath(), null, null);
+      URI replayUri = getLiveReplayUri(uri, gameId);
       gameService.runWithLiveReplay(replayUri, gameId, gameType, mapName)
           .exceptionally(throwable -> {
             notificationService.addNotification(new ImmediateNotification(
@@ -315,6 +391,20 @@ public class ReplayService {
     }
   }
 
+  /**
+   * Returns the URI to start the game with to watch the specified live replay. If possible, this is served by the
+   * {@link LiveReplayHub} so that multiple local game instances share a single stream from the replay server.
+   */
+  private URI getLiveReplayUri(URI uri, int gameId) throws URISyntaxException {
+    int port = uri.getPort() != -1 ? uri.getPort() : clientProperties.getReplay().getRemotePort();
+    try {
+      return liveReplayHub.getLocalReplayUri(gameId, uri.getHost(), port, uri.getPath());
+    } catch (IOException e) {
+      logger.warn("Could not start local live replay hub, watching live replay directly from replay server", e);
+      return new URI(GPGNET_SCHEME, null, uri.getHost(), uri.getPort(), uri.getPath(), null, null);
+    }
+  }
+
 
   public void runReplay(Integer replayId) {
     runOnlineReplay(replayId);
@@ -343,33 +433,47 @@ public class ReplayService {
     return fafService.findReplayById(id);
   }
 
+  /**
+   * Downloads the specified replay, unless it has been downloaded before. Concurrent requests for the same replay share
+   * the same download.
+   */
   public CompletableFuture<Path> downloadReplay(int id) {
-    ReplayDownloadTask task = applicationContext.getBean(ReplayDownloadTask.class);
-    task.setReplayId(id);
-    return taskService.submitTask(task).getFuture();
+    CompletableFuture<Path> download;
+    synchronized (replayDownloads) {
+      download = replayDownloads.get(id);
+      if (download != null) {
+        return download;
+      }
+      ReplayDownloadTask task = applicationContext.getBean(ReplayDownloadTask.class);
+      task.setReplayId(id);
+      download = taskService.submitTask(task).getFuture();
+      replayDownloads.put(id, download);
+    }
+
+    CompletableFuture<Path> newDownload = download;
+    newDownload.whenComplete((path, throwable) -> replayDownloads.remove(id, newDownload));
+    return newDownload;
   }
 
   /**
-   * Reads the specified replay file in order to add more information to the specified replay instance.
+   * Reads the specified replay file in order to add more information to the specified replay instance. The file is
+   * only parsed if it hasn't been summarized before.
    */
   public void enrich(Replay replay, Path path) {
-    ReplayData replayData = replayFileReader.parseReplay(path);
-    replay.getChatMessages().setAll(replayData.getChatMessages().stream()
-        .map(chatMessage -> new ChatMessage(chatMessage.getTime(), chatMessage.getSender(), chatMessage.getMessage()))
+    ReplaySummary replaySummary = noCatch(() -> replaySummaryCache.getSummary(path));
+    replay.getChatMessages().setAll(replaySummary.getChatMessages().stream()
+        .map(chatMessage -> new ChatMessage(Duration.ofMillis(chatMessage.getTimeMillis()), chatMessage.getSender(), chatMessage.getMessage()))
         .collect(Collectors.toList())
     );
-    replay.getGameOptions().setAll(replayData.getGameOptions().stream()
+    replay.getGameOptions().setAll(replaySummary.getGameOptions().stream()
         .map(gameOption -> new GameOption(gameOption.getKey(), gameOption.getValue()))
         .collect(Collectors.toList())
     );
   }
 
 
-  @SneakyThrows
   public CompletableFuture<Integer> getSize(int id) {
-    return CompletableFuture.supplyAsync(() -> noCatch(() -> new URL(String.format(clientProperties.getVault().getReplayDownloadUrlFormat(), id))
-        .openConnection()
-        .getContentLength()));
+    return CompletableFuture.supplyAsync(() -> noCatch(() -> (int) replayDownloadStore.getSize(id)));
   }
 
 
@@ -402,12 +506,17 @@ public class ReplayService {
   }
 
   private void runFafReplayFile(Path path) throws IOException {
-    byte[] rawReplayBytes = replayFileReader.readRawReplayData(path);
-
     Path tempSupComReplayFile = preferencesService.getCacheDirectory().resolve(TEMP_SCFA_REPLAY_FILE_NAME);
 
     createDirectories(tempSupComReplayFile.getParent());
-    Files.copy(new ByteArrayInputStream(rawReplayBytes), tempSupComReplayFile, StandardCopyOption.REPLACE_EXISTING);
+    byte[] rawReplayBytes;
+    try (InputStream inputStream = replayFileReader.openRawReplayData(path);
+         OutputStream outputStream = Files.newOutputStream(tempSupComReplayFile)) {
+      // The version and the map are read from the beginning of the data while copying it
+      rawReplayBytes = inputStream.readNBytes(RAW_REPLAY_HEADER_BYTES);
+      outputStream.write(rawReplayBytes);
+      inputStream.transferTo(outputStream);
+    }
 
     LocalReplayInfo replayInfo = replayFileReader.parseMetaData(path);
     String gameType = replayInfo.getFeaturedMod();
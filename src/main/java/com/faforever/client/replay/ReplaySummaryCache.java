@@ -0,0 +1,198 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Caches the information that can only be extracted by parsing the whole body of a replay file, like its chat messages,
+ * game options, duration and command counts. Summaries are stored in the cache directory by the hash of the replay
+ * file's content, so they stay valid if the file is moved or renamed and are never used for a file that has been
+ * changed.
+ */
+@Lazy
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReplaySummaryCache {
+
+  private static final String CACHE_DIRECTORY = "replay-summaries";
+  /** Incremented whenever the content of summaries changes, so that summaries of an older format are not used. */
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_CACHED_SUMMARIES = 50;
+  private static final int MAX_CACHED_HASHES = 1000;
+
+  private final PreferencesService preferencesService;
+  private final ReplayFileReader replayFileReader;
+  private final ExecutorService executorService;
+
+  private final Gson gson = ReplayFiles.gson();
+  /** Summaries by content hash. */
+  private final Cache<String, ReplaySummary> summaries = Caffeine.newBuilder()
+      .maximumSize(MAX_CACHED_SUMMARIES)
+      .build();
+  /** Content hashes of replay files, so that unchanged files don't need to be read again. */
+  private final Cache<FileKey, String> hashes = Caffeine.newBuilder()
+      .maximumSize(MAX_CACHED_HASHES)
+      .build();
+
+  /**
+   * Returns the summary of the specified replay file, parsing the file only if it hasn't been summarized before.
+   */
+  public ReplaySummary getSummary(Path replayFile) throws IOException {
+    String hash = hash(replayFile);
+    ReplaySummary summary = summaries.getIfPresent(hash);
+    if (summary != null) {
+      return summary;
+    }
+
+    Path summaryFile = getSummaryFile(hash);
+    summary = readJson(summaryFile, ReplaySummary.class);
+    if (summary == null) {
+      log.debug("Summarizing replay file: {}", replayFile);
+      summary = createSummary(indexBody(replayFile));
+      writeJson(summaryFile, summary);
+    }
+    summaries.put(hash, summary);
+    return summary;
+  }
+
+  /**
+   * Summarizes the specified replay files in background, one after another, so that showing their details later on
+   * doesn't require parsing them.
+   */
+  public void summarizeInBackground(List<Path> replayFiles) {
+    if (replayFiles.isEmpty()) {
+      return;
+    }
+    List<Path> files = new ArrayList<>(replayFiles);
+    executorService.execute(() -> files.forEach(replayFile -> {
+      try {
+        getSummary(replayFile);
+      } catch (Exception e) {
+        log.debug("Replay file could not be summarized: {}", replayFile, e);
+      }
+    }));
+  }
+
+  private ReplayBodyIndex indexBody(Path replayFile) throws IOException {
+    try (InputStream inputStream = replayFileReader.openRawReplayData(replayFile)) {
+      return ReplayBodyIndex.index(inputStream);
+    }
+  }
+
+  private String hash(Path replayFile) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(replayFile, BasicFileAttributes.class);
+    FileKey fileKey = new FileKey(replayFile.toAbsolutePath().toString(), attributes.size(), attributes.lastModifiedTime().toMillis());
+    String hash = hashes.getIfPresent(fileKey);
+    if (hash == null) {
+      hash = com.google.common.io.Files.asByteSource(replayFile.toFile()).hash(Hashing.sha256()).toString();
+      hashes.put(fileKey, hash);
+    }
+    return hash;
+  }
+
+  private static ReplaySummary createSummary(ReplayBodyIndex bodyIndex) {
+    ReplaySummary summary = new ReplaySummary();
+    summary.setChatMessages(bodyIndex.getChatMessages());
+    summary.setGameOptions(bodyIndex.getGameOptions());
+    summary.setDurationMillis((long) bodyIndex.getTicks() * ReplayBodyIndex.MILLIS_PER_TICK);
+    summary.setArmies(bodyIndex.getArmies());
+    Map<String, Integer> commandCounts = new LinkedHashMap<>();
+    for (int i = 0; i < bodyIndex.getCommandSources().size(); i++) {
+      commandCounts.put(bodyIndex.getCommandSources().get(i), bodyIndex.getCommandCounts().get(i));
+    }
+    summary.setCommandCounts(commandCounts);
+    return summary;
+  }
+
+  private <T> T readJson(Path file, Class<T> type) {
+    if (Files.notExists(file)) {
+      return null;
+    }
+
+    try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+      return gson.fromJson(reader, type);
+    } catch (IOException | JsonParseException e) {
+      log.warn("Cached replay information could not be read from: {}", file, e);
+      return null;
+    }
+  }
+
+  private void writeJson(Path file, Object object) {
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), null);
+      try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        gson.toJson(object, writer);
+      }
+      Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Replay information could not be cached in: {}", file, e);
+    }
+  }
+
+  private Path getSummaryFile(String hash) {
+    return preferencesService.getCacheDirectory()
+        .resolve(CACHE_DIRECTORY)
+        .resolve(String.valueOf(FORMAT_VERSION))
+        .resolve(hash + ".json");
+  }
+
+  @Value
+  private static class FileKey {
+    String path;
+    long size;
+    long lastModified;
+  }
+
+  @Data
+  public static class ReplaySummary {
+    private List<SummaryChatMessage> chatMessages = new ArrayList<>();
+    private List<SummaryGameOption> gameOptions = new ArrayList<>();
+    private long durationMillis;
+    /** Names of the players of all armies. */
+    private List<String> armies = new ArrayList<>();
+    /** Number of commands issued by each player, including observers. */
+    private Map<String, Integer> commandCounts = new LinkedHashMap<>();
+  }
+
+  @Data
+  public static class SummaryChatMessage {
+    private long timeMillis;
+    private String sender;
+    private String message;
+  }
+
+  @Data
+  public static class SummaryGameOption {
+    private String key;
+    private String value;
+  }
+}
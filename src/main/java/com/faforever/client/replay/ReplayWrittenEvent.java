@@ -0,0 +1,13 @@
+package com.faforever.client.replay;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Published after a new replay file has been written to the replays directory.
+ */
+@Data
+public class ReplayWrittenEvent {
+  private final Path replayFile;
+}
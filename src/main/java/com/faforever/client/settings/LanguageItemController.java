@@ -40,7 +40,8 @@ public class LanguageItemController implements Controller<Node> {
   @Override
   public void initialize() {
     localeImageView.managedProperty().bind(localeImageView.visibleProperty());
-    localeImageView.setVisible(false);
+    // The flag is shown once it has been loaded, if there is one
+    localeImageView.visibleProperty().bind(localeImageView.imageProperty().isNotNull());
   }
 
   @Override
@@ -54,11 +55,7 @@ public class LanguageItemController implements Controller<Node> {
     translatedLanguageLabel.setText(locale.getDisplayName(i18n.getUserSpecificLocale()));
 
     Optional.ofNullable(Strings.emptyToNull(locale.getCountry()))
-        .flatMap(countryFlagService::loadCountryFlag)
-        .ifPresent(image -> {
-          localeImageView.setImage(image);
-          localeImageView.setVisible(true);
-        });
+        .ifPresent(country -> countryFlagService.showCountryFlag(localeImageView, country));
   }
 
   public void setOnSelectedListener(Consumer<Locale> listener) {
@@ -0,0 +1,367 @@
+package com.faforever.client.util;
+
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Parses Lua files that consist only of assignments of literals to global variables, like most {@code *_scenario.lua}
+ * files, without compiling and running them. Strings are kept as raw bytes, just like LuaJ does. Anything beyond
+ * literals, tables and a few well known wrapper functions is rejected with an {@link UnsupportedSyntaxException}, in
+ * which case the file needs to be run by LuaJ.
+ */
+final class LuaLiteralParser {
+
+  /** Functions defined by the game that return their only argument, as far as reading metadata is concerned. */
+  private static final Set<String> WRAPPER_FUNCTIONS = Set.of("STRING", "FLOAT", "BOOLEAN");
+
+  private final byte[] source;
+  private int position;
+
+  private LuaLiteralParser(byte[] source) {
+    this.source = source;
+  }
+
+  /**
+   * @return a table containing all assigned global variables
+   */
+  static LuaTable parse(byte[] source) throws UnsupportedSyntaxException {
+    return new LuaLiteralParser(source).parseChunk();
+  }
+
+  private LuaTable parseChunk() throws UnsupportedSyntaxException {
+    LuaTable globals = new LuaTable();
+    skipWhitespaceAndComments();
+    while (position < source.length) {
+      String name = parseName();
+      expect('=');
+      globals.set(name, parseExpression());
+      skipOptional(';');
+    }
+    return globals;
+  }
+
+  private LuaValue parseExpression() throws UnsupportedSyntaxException {
+    skipWhitespaceAndComments();
+    int character = peek();
+    if (character == '{') {
+      return parseTable();
+    }
+    if (character == '"' || character == '\'') {
+      return parseQuotedString();
+    }
+    if (character == '[' && isLongBracket()) {
+      return LuaValue.valueOf(parseLongString());
+    }
+    if (character == '-' || character == '.' || isDigit(character)) {
+      return parseNumber();
+    }
+    if (isNameStart(character)) {
+      String name = parseName();
+      switch (name) {
+        case "nil":
+          return LuaValue.NIL;
+        case "true":
+          return LuaValue.TRUE;
+        case "false":
+          return LuaValue.FALSE;
+        default:
+          return parseWrapperCall(name);
+      }
+    }
+    throw new UnsupportedSyntaxException("Unexpected character '" + (char) character + "'");
+  }
+
+  private LuaValue parseWrapperCall(String name) throws UnsupportedSyntaxException {
+    if (!WRAPPER_FUNCTIONS.contains(name)) {
+      throw new UnsupportedSyntaxException("Unsupported identifier: " + name);
+    }
+    expect('(');
+    LuaValue argument = parseExpression();
+    expect(')');
+    return argument;
+  }
+
+  private LuaTable parseTable() throws UnsupportedSyntaxException {
+    expect('{');
+    LuaTable table = new LuaTable();
+    int arrayIndex = 1;
+    while (!skipOptional('}')) {
+      skipWhitespaceAndComments();
+      int character = peek();
+      if (character == '[' && !isLongBracket()) {
+        position++;
+        LuaValue key = parseExpression();
+        expect(']');
+        expect('=');
+        setField(table, key, parseExpression());
+      } else if (isNameStart(character) && isFollowedByAssignment()) {
+        String key = parseName();
+        expect('=');
+        table.set(key, parseExpression());
+      } else {
+        table.set(arrayIndex++, parseExpression());
+      }
+
+      if (!skipOptional(',') && !skipOptional(';')) {
+        expect('}');
+        break;
+      }
+    }
+    return table;
+  }
+
+  private static void setField(LuaTable table, LuaValue key, LuaValue value) throws UnsupportedSyntaxException {
+    if (key.isnil()) {
+      throw new UnsupportedSyntaxException("Table index is nil");
+    }
+    table.set(key, value);
+  }
+
+  /**
+   * Returns whether the name at the current position is followed by a single {@code =}, which makes it the key of a
+   * table field rather than a value.
+   */
+  private boolean isFollowedByAssignment() {
+    int start = position;
+    try {
+      parseName();
+      skipWhitespaceAndComments();
+      return peek() == '=' && peek(1) != '=';
+    } catch (UnsupportedSyntaxException e) {
+      return false;
+    } finally {
+      position = start;
+    }
+  }
+
+  private LuaValue parseNumber() throws UnsupportedSyntaxException {
+    boolean negative = skipOptional('-');
+    skipWhitespaceAndComments();
+    int start = position;
+    double value;
+    if (peek() == '0' && (peek(1) == 'x' || peek(1) == 'X')) {
+      position += 2;
+      while (isHexDigit(peek())) {
+        position++;
+      }
+      value = parseDouble(start + 2, 16);
+    } else {
+      while (isDigit(peek()) || peek() == '.') {
+        position++;
+      }
+      if (peek() == 'e' || peek() == 'E') {
+        position++;
+        if (peek() == '+' || peek() == '-') {
+          position++;
+        }
+        while (isDigit(peek())) {
+          position++;
+        }
+      }
+      value = parseDouble(start, 10);
+    }
+    if (isNameStart(peek())) {
+      throw new UnsupportedSyntaxException("Malformed number");
+    }
+    // Integral values become LuaInteger, just like constants compiled by LuaJ
+    return LuaValue.valueOf(negative ? -value : value);
+  }
+
+  private double parseDouble(int start, int radix) throws UnsupportedSyntaxException {
+    String number = new String(source, start, position - start, US_ASCII);
+    try {
+      return radix == 16 ? Long.parseLong(number, 16) : Double.parseDouble(number);
+    } catch (NumberFormatException e) {
+      throw new UnsupportedSyntaxException("Malformed number: " + number);
+    }
+  }
+
+  private LuaValue parseQuotedString() throws UnsupportedSyntaxException {
+    int quote = source[position++];
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    while (true) {
+      int character = next();
+      if (character == quote) {
+        return LuaValue.valueOf(bytes.toByteArray());
+      }
+      if (character == '\n' || character == '\r') {
+        throw new UnsupportedSyntaxException("Unfinished string");
+      }
+      if (character != '\\') {
+        bytes.write(character);
+        continue;
+      }
+
+      int escaped = next();
+      switch (escaped) {
+        case 'a': bytes.write(7); break;
+        case 'b': bytes.write('\b'); break;
+        case 'f': bytes.write('\f'); break;
+        case 'n': bytes.write('\n'); break;
+        case 'r': bytes.write('\r'); break;
+        case 't': bytes.write('\t'); break;
+        case 'v': bytes.write(11); break;
+        case '\\':
+        case '"':
+        case '\'':
+        case '\n':
+          bytes.write(escaped);
+          break;
+        default:
+          if (!isDigit(escaped)) {
+            throw new UnsupportedSyntaxException("Unsupported escape sequence: \\" + (char) escaped);
+          }
+          int value = escaped - '0';
+          for (int i = 0; i < 2 && isDigit(peek()); i++) {
+            value = value * 10 + next() - '0';
+          }
+          if (value > 255) {
+            throw new UnsupportedSyntaxException("Escape sequence too large");
+          }
+          bytes.write(value);
+      }
+    }
+  }
+
+  /**
+   * Returns whether the current position is the start of a long bracket like {@code [[} or {@code [==[}.
+   */
+  private boolean isLongBracket() {
+    int offset = 1;
+    while (peek(offset) == '=') {
+      offset++;
+    }
+    return peek(offset) == '[';
+  }
+
+  private byte[] parseLongString() throws UnsupportedSyntaxException {
+    position++;
+    int level = 0;
+    while (peek() == '=') {
+      position++;
+      level++;
+    }
+    position++;
+    // A line break directly after the opening bracket is skipped
+    if (peek() == '\r') {
+      position++;
+    }
+    if (peek() == '\n') {
+      position++;
+    }
+
+    int start = position;
+    while (position < source.length) {
+      if (source[position] == ']' && closesLongBracket(level)) {
+        byte[] content = Arrays.copyOfRange(source, start, position);
+        position += level + 2;
+        return content;
+      }
+      position++;
+    }
+    throw new UnsupportedSyntaxException("Unfinished long string");
+  }
+
+  private boolean closesLongBracket(int level) {
+    for (int i = 1; i <= level; i++) {
+      if (peek(i) != '=') {
+        return false;
+      }
+    }
+    return peek(level + 1) == ']';
+  }
+
+  private String parseName() throws UnsupportedSyntaxException {
+    skipWhitespaceAndComments();
+    if (!isNameStart(peek())) {
+      throw new UnsupportedSyntaxException("Name expected");
+    }
+    int start = position;
+    while (isNameStart(peek()) || isDigit(peek())) {
+      position++;
+    }
+    return new String(source, start, position - start, US_ASCII);
+  }
+
+  private void skipWhitespaceAndComments() throws UnsupportedSyntaxException {
+    while (position < source.length) {
+      int character = peek();
+      if (character == ' ' || character == '\t' || character == '\r' || character == '\n' || character == '\f' || character == 11) {
+        position++;
+      } else if (character == '-' && peek(1) == '-') {
+        position += 2;
+        if (peek() == '[' && isLongBracket()) {
+          parseLongString();
+        } else {
+          while (position < source.length && source[position] != '\n') {
+            position++;
+          }
+        }
+      } else if (position == 0 && character == 0xEF && peek(1) == 0xBB && peek(2) == 0xBF) {
+        // UTF-8 byte order mark
+        position += 3;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private boolean skipOptional(char character) throws UnsupportedSyntaxException {
+    skipWhitespaceAndComments();
+    if (peek() == character) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(char character) throws UnsupportedSyntaxException {
+    if (!skipOptional(character)) {
+      throw new UnsupportedSyntaxException("'" + character + "' expected at offset " + position);
+    }
+  }
+
+  private int next() throws UnsupportedSyntaxException {
+    if (position >= source.length) {
+      throw new UnsupportedSyntaxException("Unexpected end of file");
+    }
+    return source[position++] & 0xFF;
+  }
+
+  private int peek() {
+    return peek(0);
+  }
+
+  private int peek(int offset) {
+    int index = position + offset;
+    return index < source.length ? source[index] & 0xFF : -1;
+  }
+
+  private static boolean isDigit(int character) {
+    return character >= '0' && character <= '9';
+  }
+
+  private static boolean isHexDigit(int character) {
+    return isDigit(character) || (character >= 'a' && character <= 'f') || (character >= 'A' && character <= 'F');
+  }
+
+  private static boolean isNameStart(int character) {
+    return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z') || character == '_';
+  }
+
+  /**
+   * Thrown if a file uses more than literals, which doesn't necessarily mean that it's not valid Lua.
+   */
+  static class UnsupportedSyntaxException extends Exception {
+
+    UnsupportedSyntaxException(String message) {
+      super(message);
+    }
+  }
+}
@@ -1,10 +1,13 @@
 package com.faforever.client.util;
 
+import com.faforever.client.util.LuaLiteralParser.UnsupportedSyntaxException;
 import com.google.common.io.CharStreams;
+import lombok.extern.slf4j.Slf4j;
 import org.luaj.vm2.Globals;
 import org.luaj.vm2.LuaValue;
 import org.luaj.vm2.lib.jse.JsePlatform;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -13,6 +16,7 @@ import java.nio.file.Path;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+@Slf4j
 public final class LuaUtil {
 
   private LuaUtil() {
@@ -25,10 +29,21 @@ public final class LuaUtil {
     }
   }
 
+  /**
+   * Loads the specified Lua file and returns the table of its global variables. Files that only assign literals, like
+   * most scenario files, are parsed directly. Everything else is run by LuaJ, which is much more expensive.
+   */
   public static LuaValue load(InputStream inputStream) throws IOException {
+    byte[] source = inputStream.readAllBytes();
+    try {
+      return LuaLiteralParser.parse(source);
+    } catch (UnsupportedSyntaxException e) {
+      log.debug("Lua file needs to be run ({})", e.getMessage());
+    }
+
     Globals globals = JsePlatform.standardGlobals();
     globals.baselib.load(globals.load(CharStreams.toString(new InputStreamReader(LuaUtil.class.getResourceAsStream("/lua/faf.lua"), UTF_8))));
-    globals.load(inputStream, "@" + inputStream.hashCode(), "bt", globals).invoke();
+    globals.load(new ByteArrayInputStream(source), "@" + inputStream.hashCode(), "bt", globals).invoke();
     return globals;
   }
 }
@@ -1,6 +1,7 @@
 package com.faforever.client.vault.search;
 
 import com.faforever.client.fx.Controller;
+import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.query.LogicalNodeController;
@@ -56,6 +57,8 @@ public class SearchController implements Controller<Pane> {
   public ComboBox<SortOrder> sortOrderChoiceBox;
   public HBox sortBox;
   public CheckBox onlyShowLastYearCheckBox;
+  public Button addCriteriaButton;
+  public Button resetButton;
 
   private final List<LogicalNodeController> queryNodes;
   private InvalidationListener queryInvalidationListener;
@@ -265,6 +268,21 @@ public class SearchController implements Controller<Pane> {
     searchButton.disableProperty().bind(queryTextField.textProperty().isEmpty().or(inSearchableState.not()));
   }
 
+  /**
+   * Replaces the query builder by a plain text field, for searches that don't support queries by property.
+   */
+  public void setFreeTextQuery(String promptText) {
+    JavaFxUtil.bindManagedToVisible(criteriaPane, addCriteriaButton, resetButton, sortBox, displayQueryCheckBox);
+    criteriaPane.setVisible(false);
+    addCriteriaButton.setVisible(false);
+    resetButton.setVisible(false);
+    sortBox.setVisible(false);
+    onlyShowLastYearCheckBox.setVisible(false);
+    displayQueryCheckBox.setSelected(true);
+    displayQueryCheckBox.setVisible(false);
+    queryTextField.setPromptText(promptText);
+  }
+
   public void setOnlyShowLastYearCheckBoxVisible(boolean visible, boolean selectedBaseValue) {
     onlyShowLastYearCheckBox.setVisible(visible);
     onlyShowLastYearCheckBox.setSelected(selectedBaseValue);
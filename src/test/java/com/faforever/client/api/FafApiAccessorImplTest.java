@@ -47,6 +47,7 @@ import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.verify;
@@ -343,4 +344,15 @@ public class FafApiAccessorImplTest {
 
     verify(restOperations).getForObject("/data/game?filter=mapVersion.id==\"42\";playerStats.player.id==\"4\"&sort=-endTime&page[size]=3&page[number]=1", List.class);
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFindMapsByFolderNamesQuotesFolderNames() {
+    when(restOperations.getForObject(startsWith("/data/mapVersion"), eq(List.class))).thenReturn(emptyList());
+
+    instance.findMapsByFolderNames(Arrays.asList("Quote\"d", "back\\slash"));
+
+    verify(restOperations).getForObject(contains("filter=filename=in=(\"maps/quote\\\"d.zip\",\"maps/back\\\\slash.zip\")"), eq(List.class));
+    verify(restOperations).getForObject(contains("page[size]=2&"), eq(List.class));
+  }
 }
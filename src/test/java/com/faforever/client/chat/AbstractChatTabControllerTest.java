@@ -326,7 +326,7 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
 
   @Test
   public void testChannelNamesTransformedToHyperlinks() {
-    String output = instance.replaceChannelNamesWithHyperlinks("Go to #moderation and report a user");
+    String output = instance.decorateText("Go to #moderation and report a user");
     assertThat(output, is("Go to <a href=\"javascript:void(0);\" onClick=\"java.openChannel('#moderation')\">#moderation</a> and report a user"));
   }
 }
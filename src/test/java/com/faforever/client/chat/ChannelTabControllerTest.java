@@ -17,6 +17,7 @@ import com.faforever.client.uploader.ImageUploadService;
 import com.faforever.client.user.UserService;
 import com.faforever.client.util.TimeService;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.MoreExecutors;
 import javafx.collections.FXCollections;
 import javafx.collections.MapChangeListener;
 import javafx.collections.MapChangeListener.Change;
@@ -111,7 +112,7 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
         notificationService, reportingService,
         uiService, eventBus, webViewConfigurer, countryFlagService,
         platformService);
-    userFilterController = new UserFilterController(i18n, countryFlagService);
+    userFilterController = new UserFilterController(i18n, countryFlagService, MoreExecutors.newDirectExecutorService());
 
     defaultChannel = new Channel(CHANNEL_NAME);
     preferences = new Preferences();
@@ -672,6 +673,21 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     assertEquals(2, otherUsers.size());
   }
 
+  @Test
+  public void testUsernameCompletionsRankRecentSpeakersAndFriendsFirst() {
+    defaultChannel.addUsers(createUserList(Map.of(
+        ChatUserCategory.OTHER, Arrays.asList("AOther", "ASpeaker", "BOther"),
+        ChatUserCategory.FRIEND, Arrays.asList("AFriend")
+    )));
+    when(playerService.getPlayerNamesByPrefix("a", 50)).thenReturn(Arrays.asList("AFriend", "AOffChannel"));
+
+    runOnFxThreadAndWait(() -> instance.initialize());
+    runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
+    runOnFxThreadAndWait(() -> instance.onChatMessage(new ChatMessage(CHANNEL_NAME, Instant.now(), "ASpeaker", "Hi")));
+
+    assertEquals(Arrays.asList("ASpeaker", "AFriend", "AOther", "AOffChannel"), instance.getUsernameCompletions("a"));
+  }
+
   @Test
   public void testFindModeratorByName() {
     defaultChannel.addUsers(createUserList(Map.of(
@@ -681,13 +697,13 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     runOnFxThreadAndWait(() -> instance.initialize());
     runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("12"));
+    searchUser("12");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.MODERATOR, "12Moderator", "123Moderator"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("123"));
+    searchUser("123");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.MODERATOR, "123Moderator"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText(""));
+    searchUser("");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.MODERATOR, "1Moderator", "12Moderator", "123Moderator"));
   }
 
@@ -700,13 +716,13 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     runOnFxThreadAndWait(() -> instance.initialize());
     runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("Marc"));
+    searchUser("Marc");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.OTHER, "MarcSpector"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("Lenkin"));
+    searchUser("Lenkin");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.OTHER, "Lenkin"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText(""));
+    searchUser("");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.OTHER, "MarcSpector", "Lenkin"));
   }
 
@@ -719,10 +735,10 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     runOnFxThreadAndWait(() -> instance.initialize());
     runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("Random"));
+    searchUser("Random");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.FOE, "RandomFoePlayer"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText(""));
+    searchUser("");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.FOE, "EnemyPlayer", "RandomFoePlayer"));
   }
 
@@ -735,10 +751,10 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     runOnFxThreadAndWait(() -> instance.initialize());
     runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("Only"));
+    searchUser("Only");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.CHAT_ONLY, "ChatOnlyPlayer"));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText(""));
+    searchUser("");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.CHAT_ONLY, "ChatOnlyPlayer", "ExamplePlayer"));
   }
 
@@ -755,7 +771,7 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     runOnFxThreadAndWait(() -> instance.initialize());
     runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
 
-    runOnFxThreadAndWait(() -> instance.userSearchTextField.setText("name"));
+    searchUser("name");
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.MODERATOR, "1_NAme_1"));
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.CHAT_ONLY, "ChatOnlyNameOlolo"));
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.OTHER, "PlayerNamEEE"));
@@ -763,6 +779,14 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     assertTrue(instance.checkUsersAreInList(ChatUserCategory.FOE, "For______NAME"));
   }
 
+  private void searchUser(String text) {
+    runOnFxThreadAndWait(() -> {
+      instance.userSearchTextField.setText(text);
+      userFilterController.applyFilter();
+    });
+    WaitForAsyncUtils.waitForFxEvents();
+  }
+
   private List<ChatChannelUser> createUserList(Map<ChatUserCategory, List<String>> map) {
     List<ChatChannelUser> list = new ArrayList<>();
     map.forEach((category, usernames) -> list.addAll(prepareUserList(category, usernames)));
@@ -0,0 +1,135 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.chat.ChatEventPipeline.MembershipBatch;
+import com.faforever.client.chat.ChatEventPipeline.QueuedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.Event;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.TopicEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChatEventPipelineTest {
+
+  private static final String CHANNEL_NAME = "#aeolus";
+
+  @Mock
+  private User user1;
+  @Mock
+  private User user2;
+  @Mock
+  private Channel channel;
+  @Mock
+  private PircBotX pircBotX;
+
+  private ChatEventPipeline instance;
+  private List<Object> handledEvents;
+
+  @Before
+  public void setUp() throws Exception {
+    handledEvents = new ArrayList<>();
+    instance = new ChatEventPipeline(10, Duration.ZERO, handledEvents::add, handledEvents::add);
+  }
+
+  @Test
+  public void testJoinThenPartCancelsJoin() {
+    when(user1.getNick()).thenReturn("user1");
+    when(user2.getNick()).thenReturn("user2");
+
+    MembershipBatch batch = new MembershipBatch();
+    batch.addJoin(CHANNEL_NAME, user1);
+    batch.addJoin(CHANNEL_NAME, user2);
+    batch.addPart(CHANNEL_NAME, "USER1");
+
+    assertThat(batch.getJoins().get(CHANNEL_NAME), contains(user2));
+    assertThat(batch.getParts().get(CHANNEL_NAME), contains("USER1"));
+  }
+
+  @Test
+  public void testPartThenJoinCancelsPart() {
+    when(user1.getNick()).thenReturn("user1");
+
+    MembershipBatch batch = new MembershipBatch();
+    batch.addPart(CHANNEL_NAME, "user1");
+    batch.addJoin(CHANNEL_NAME, user1);
+
+    assertThat(batch.getJoins().get(CHANNEL_NAME), contains(user1));
+    assertThat(batch.getParts().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testQuitCancelsPreviousJoins() {
+    when(user1.getNick()).thenReturn("user1");
+
+    MembershipBatch batch = new MembershipBatch();
+    batch.addJoin(CHANNEL_NAME, user1);
+    batch.addJoin("#other", user1);
+    batch.addQuit("user1");
+
+    assertThat(batch.getJoins().isEmpty(), is(true));
+    assertThat(batch.getQuits(), contains("user1"));
+  }
+
+  @Test
+  public void testQuitThenJoinKeepsBoth() {
+    when(user1.getNick()).thenReturn("user1");
+
+    MembershipBatch batch = new MembershipBatch();
+    batch.addQuit("user1");
+    batch.addJoin(CHANNEL_NAME, user1);
+
+    assertThat(batch.getQuits(), contains("user1"));
+    assertThat(batch.getJoins().get(CHANNEL_NAME), contains(user1));
+  }
+
+  @Test
+  public void testProcessKeepsOrderOfOtherEvents() {
+    when(channel.getName()).thenReturn(CHANNEL_NAME);
+    when(user1.getNick()).thenReturn("user1");
+    when(user2.getNick()).thenReturn("user2");
+    Event join1 = new JoinEvent(pircBotX, channel, user1, user1);
+    Event join2 = new JoinEvent(pircBotX, channel, user2, user2);
+    Event topic = mock(TopicEvent.class);
+
+    instance.process(Arrays.asList(
+        new QueuedEvent(join1, 0),
+        new QueuedEvent(join2, 0),
+        new QueuedEvent(topic, 0)
+    ));
+
+    assertThat(handledEvents, hasSize(2));
+    assertThat(handledEvents.get(0), instanceOf(MembershipBatch.class));
+    assertThat(((MembershipBatch) handledEvents.get(0)).getJoins().get(CHANNEL_NAME), contains(user1, user2));
+    assertThat(handledEvents.get(1), is(topic));
+    assertThat(instance.getProcessedEvents(), is(3L));
+  }
+
+  @Test
+  public void testQueueDepth() {
+    instance.submit(mock(TopicEvent.class));
+    instance.submit(mock(TopicEvent.class));
+
+    assertThat(instance.getQueueDepth(), is(2));
+    assertThat(handledEvents, empty());
+  }
+}
@@ -0,0 +1,93 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import javafx.collections.MapChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ChatUserRegistryTest extends AbstractPlainJavaFxTest {
+
+  private ChatUserRegistry instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new ChatUserRegistry();
+  }
+
+  @Test
+  public void testGetIsCaseInsensitive() {
+    ChatChannelUser chatUser = ChatChannelUserBuilder.create("JUnit").get();
+
+    assertThat(instance.putIfAbsent("#aeolus", chatUser), nullValue());
+
+    assertThat(instance.get("#Aeolus", "junit"), sameInstance(chatUser));
+    assertThat(instance.get("#other", "junit"), nullValue());
+  }
+
+  @Test
+  public void testPutIfAbsentReturnsExistingUser() {
+    ChatChannelUser chatUser = ChatChannelUserBuilder.create("junit").get();
+    instance.putIfAbsent("#aeolus", chatUser);
+
+    ChatChannelUser result = instance.putIfAbsent("#aeolus", ChatChannelUserBuilder.create("JUNIT").get());
+
+    assertThat(result, sameInstance(chatUser));
+    assertThat(instance.getAllUsers(), contains(chatUser));
+  }
+
+  @Test
+  public void testGetChannelNames() {
+    instance.putIfAbsent("#aeolus", ChatChannelUserBuilder.create("junit").get());
+    instance.putIfAbsent("#newbie", ChatChannelUserBuilder.create("junit").get());
+    instance.putIfAbsent("#newbie", ChatChannelUserBuilder.create("other").get());
+
+    assertThat(instance.getChannelNames("JUnit"), containsInAnyOrder("#aeolus", "#newbie"));
+
+    instance.remove("#aeolus", "junit");
+
+    assertThat(instance.getChannelNames("junit"), contains("#newbie"));
+
+    instance.remove("#newbie", "junit");
+
+    assertThat(instance.getChannelNames("junit"), empty());
+    assertThat(instance.get("#newbie", "junit"), nullValue());
+  }
+
+  @Test
+  public void testChatUsersByNameListenerNotifiedOnFirstJoinAndLastLeave() {
+    List<String> added = new ArrayList<>();
+    List<String> removed = new ArrayList<>();
+    instance.addChatUsersByNameListener((MapChangeListener<String, ChatChannelUser>) change -> {
+      if (change.wasAdded()) {
+        added.add(change.getKey());
+      }
+      if (change.wasRemoved()) {
+        removed.add(change.getKey());
+      }
+    });
+
+    instance.putIfAbsent("#aeolus", ChatChannelUserBuilder.create("junit").get());
+    instance.putIfAbsent("#newbie", ChatChannelUserBuilder.create("junit").get());
+    instance.remove("#aeolus", "junit");
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(added, contains("junit"));
+    assertThat(removed, empty());
+
+    instance.remove("#newbie", "junit");
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(removed, contains("junit"));
+  }
+}
@@ -1,5 +1,6 @@
 package com.faforever.client.chat;
 
+import com.faforever.client.chat.CountryFlagService.CountryFlag;
 import com.faforever.client.chat.avatar.AvatarBean;
 import com.faforever.client.chat.avatar.AvatarService;
 import com.faforever.client.chat.event.ChatUserGameChangeEvent;
@@ -18,6 +19,7 @@ import com.faforever.client.remote.domain.GameStatus;
 import com.faforever.client.test.AbstractPlainJavaFxTest;
 import com.faforever.client.theme.UiService;
 import com.google.common.eventbus.EventBus;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import org.junit.Before;
 import org.junit.Test;
@@ -67,7 +69,9 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     testClan = new Clan();
     testClan.setTag("testClan");
     when(clanService.getClanByTag(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(testClan)));
-    when(countryFlagService.loadCountryFlag(anyString())).thenReturn(Optional.of(mock(Image.class)));
+    CountryFlag countryFlag = new CountryFlag(mock(Image.class), new Rectangle2D(0, 0, 16, 16));
+    when(countryFlagService.getCountryFlag(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+        Optional.ofNullable(invocation.getArgument(0)).map(country -> countryFlag)));
     when(uiService.getThemeImage(anyString())).thenReturn(mock(Image.class));
     when(mapService.loadPreview(anyString(), any(PreviewSize.class))).thenReturn(mock(Image.class));
     when(avatarService.loadAvatar(anyString())).thenReturn(mock(Image.class));
@@ -95,7 +99,7 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     WaitForAsyncUtils.waitForFxEvents();
 
     verify(clanService, never()).getClanByTag(anyString());
-    verify(countryFlagService, never()).loadCountryFlag(anyString());
+    verify(countryFlagService, never()).getCountryFlag(any());
     verify(avatarService, never()).loadAvatar(anyString());
     verify(mapService, never()).loadPreview(anyString(), any(PreviewSize.class));
     verify(uiService, never()).getThemeImage(anyString());
@@ -112,7 +116,7 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     WaitForAsyncUtils.waitForFxEvents();
 
     verify(clanService, never()).getClanByTag(anyString());
-    verify(countryFlagService, never()).loadCountryFlag(anyString());
+    verify(countryFlagService, never()).getCountryFlag(any());
     verify(avatarService, never()).loadAvatar(anyString());
     verify(mapService, never()).loadPreview(anyString(), any(PreviewSize.class));
     verify(uiService, never()).getThemeImage(anyString());
@@ -128,7 +132,7 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     WaitForAsyncUtils.waitForFxEvents();
 
     verify(clanService, never()).getClanByTag(anyString());
-    verify(countryFlagService, never()).loadCountryFlag(anyString());
+    verify(countryFlagService, never()).getCountryFlag(any());
     verify(avatarService, never()).loadAvatar(anyString());
     verify(mapService, never()).loadPreview(anyString(), any(PreviewSize.class));
     verify(uiService, never()).getThemeImage(anyString());
@@ -202,8 +206,9 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     instance.onChatUserPopulate(new ChatUserPopulateEvent(chatUser));
     WaitForAsyncUtils.waitForFxEvents();
 
-    verify(countryFlagService).loadCountryFlag("US");
+    verify(countryFlagService).getCountryFlag("US");
     assertTrue(chatUser.getCountryFlag().isPresent());
+    assertTrue(chatUser.getCountryFlagViewport().isPresent());
     assertEquals("United States", chatUser.getCountryName().orElse(null));
   }
 
@@ -217,8 +222,9 @@ public class ChatUserServiceTest extends AbstractPlainJavaFxTest {
     instance.onChatUserPopulate(new ChatUserPopulateEvent(chatUser));
     WaitForAsyncUtils.waitForFxEvents();
 
-    verify(countryFlagService).loadCountryFlag(null);
+    verify(countryFlagService).getCountryFlag(null);
     assertTrue(chatUser.getCountryFlag().isEmpty());
+    assertTrue(chatUser.getCountryFlagViewport().isEmpty());
     assertTrue(chatUser.getCountryName().isEmpty());
   }
 
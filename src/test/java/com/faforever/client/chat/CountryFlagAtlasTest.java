@@ -0,0 +1,48 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CountryFlagAtlasTest extends AbstractPlainJavaFxTest {
+
+  private CountryFlagAtlas instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = CountryFlagAtlas.load("classpath:/images/flags/*.png");
+  }
+
+  @Test
+  public void testViewportContainsFlag() {
+    Optional<Rectangle2D> viewport = instance.getViewport("US");
+    assertThat(viewport.isPresent(), is(true));
+
+    Image flag = new Image(getClass().getResourceAsStream("/images/flags/us.png"));
+    assertThat(viewport.get().getWidth(), is(flag.getWidth()));
+    assertThat(viewport.get().getHeight(), is(flag.getHeight()));
+
+    PixelReader atlasReader = instance.getImage().getPixelReader();
+    PixelReader flagReader = flag.getPixelReader();
+    int offsetX = (int) viewport.get().getMinX();
+    int offsetY = (int) viewport.get().getMinY();
+    for (int y = 0; y < (int) flag.getHeight(); y++) {
+      for (int x = 0; x < (int) flag.getWidth(); x++) {
+        assertThat(atlasReader.getArgb(offsetX + x, offsetY + y), is(flagReader.getArgb(x, y)));
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownFlag() {
+    assertThat(instance.getViewport("xx").isPresent(), is(false));
+  }
+}
@@ -1,6 +1,7 @@
 package com.faforever.client.chat;
 
 import com.faforever.client.i18n.I18n;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,7 +29,7 @@ public class CountryFlagServiceTest {
   @Before
   public void setUp() {
     when(i18n.getCountryNameLocalized(anyString())).thenReturn(""); //Default result to avoid nullPointers
-    service = new CountryFlagService(i18n);
+    service = new CountryFlagService(i18n, MoreExecutors.newDirectExecutorService());
   }
 
   @Test
@@ -0,0 +1,69 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.chat.MentionMatcher.Span;
+import com.faforever.client.chat.MentionMatcher.SpanType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+
+public class MentionMatcherTest {
+
+  private MentionMatcher instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = MentionMatcher.create("junit", asList("tournament", "cast"), singletonList("Friend"));
+  }
+
+  @Test
+  public void testMatchesOwnNameCaseInsensitive() {
+    List<Span> spans = instance.match("hello JUnit!");
+
+    assertThat(spans, contains(new Span(6, 11, SpanType.SELF)));
+  }
+
+  @Test
+  public void testRespectsWordBoundaries() {
+    assertThat(instance.match("junit4 and xjunit and broadcast"), empty());
+  }
+
+  @Test
+  public void testMatchesAllPatternsInOneMessage() {
+    List<Span> spans = instance.match("friend, join #tournament for the cast");
+
+    assertThat(spans, contains(
+        new Span(0, 6, SpanType.FRIEND),
+        new Span(13, 24, SpanType.CHANNEL),
+        new Span(33, 37, SpanType.HIGHLIGHT)
+    ));
+  }
+
+  @Test
+  public void testChannelNames() {
+    assertThat(instance.match("#a #1abc"), empty());
+    assertThat(instance.match("#ab"), contains(new Span(0, 3, SpanType.CHANNEL)));
+    assertThat(instance.match("x#aeolus"), empty());
+  }
+
+  @Test
+  public void testIgnoresHtmlTags() {
+    List<Span> spans = instance.match("<a href=\"http://junit.org\">junit</a>");
+
+    assertThat(spans, contains(new Span(27, 32, SpanType.SELF)));
+  }
+
+  @Test
+  public void testOverlappingWordsPreferLongest() {
+    MentionMatcher matcher = MentionMatcher.create("ju", asList("ju nit", "nit"), emptyList());
+
+    assertThat(matcher.match("ju nit"), contains(new Span(0, 6, SpanType.HIGHLIGHT)));
+  }
+}
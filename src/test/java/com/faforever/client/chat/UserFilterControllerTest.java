@@ -10,6 +10,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import java.util.concurrent.ExecutorService;
+
 import static com.faforever.client.game.PlayerStatus.HOSTING;
 import static com.faforever.client.game.PlayerStatus.IDLE;
 import static com.faforever.client.game.PlayerStatus.LOBBYING;
@@ -27,6 +29,8 @@ public class UserFilterControllerTest extends AbstractPlainJavaFxTest {
   private I18n i18n;
   @Mock
   private CountryFlagService flagService;
+  @Mock
+  private ExecutorService executorService;
 
 
   private ChatChannelUser chatChannelUser;
@@ -35,7 +39,7 @@ public class UserFilterControllerTest extends AbstractPlainJavaFxTest {
 
   @Before
   public void setUp() throws Exception {
-    instance = new UserFilterController(i18n, flagService);
+    instance = new UserFilterController(i18n, flagService, executorService);
     instance.channelTabController = channelTabController;
 
     player = PlayerBuilder.create("junit").defaultValues().get();
@@ -84,6 +88,25 @@ public class UserFilterControllerTest extends AbstractPlainJavaFxTest {
     assertFalse(instance.isBoundByRating(chatChannelUser));
   }
 
+  @Test
+  public void testNonNumericRatingDoesNotBoundPlayers() {
+    player.setGlobalRatingMean(500f);
+    player.setGlobalRatingDeviation(0f);
+
+    instance.minRatingFilterField.setText("abc");
+
+    assertTrue(instance.isBoundByRating(chatChannelUser));
+  }
+
+  @Test
+  public void testNonNumericRatingExcludesUsersWithoutPlayer() {
+    ChatChannelUser userWithoutPlayer = ChatChannelUserBuilder.create("junit2").defaultValues().get();
+
+    instance.maxRatingFilterField.setText("abc");
+
+    assertFalse(instance.isBoundByRating(userWithoutPlayer));
+  }
+
   @Test
   public void testIsGameStatusMatchPlaying() {
     player.setGame(GameBuilder.create().defaultValues().state(GameStatus.PLAYING).get());
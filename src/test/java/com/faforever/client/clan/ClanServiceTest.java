@@ -0,0 +1,130 @@
+package com.faforever.client.clan;
+
+import com.faforever.client.player.Player;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.FafService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClanServiceTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private FafService fafService;
+  @Mock
+  private PreferencesService preferencesService;
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  private ClanService instance;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+
+    instance = new ClanService(fafService, preferencesService, taskScheduler);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLookupsAreBatched() throws Exception {
+    when(fafService.getClansByTags(anyCollection()))
+        .thenReturn(CompletableFuture.completedFuture(singletonList(clan("ABC"))));
+
+    CompletableFuture<Optional<Clan>> abc = instance.getClanByTag("ABC");
+    CompletableFuture<Optional<Clan>> abcAgain = instance.getClanByTag("ABC");
+    CompletableFuture<Optional<Clan>> xyz = instance.getClanByTag("XYZ");
+    runScheduledFlush(1);
+
+    ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(fafService).getClansByTags(captor.capture());
+    assertThat(captor.getValue(), containsInAnyOrder("ABC", "XYZ"));
+    assertThat(abcAgain, sameInstance(abc));
+    assertThat(abc.get().get().getName(), is("Clan ABC"));
+    assertThat(xyz.get().isPresent(), is(false));
+  }
+
+  @Test
+  public void testClansArePersisted() throws Exception {
+    when(fafService.getClansByTags(anyCollection()))
+        .thenReturn(CompletableFuture.completedFuture(singletonList(clan("ABC"))));
+    instance.getClanByTag("ABC");
+    runScheduledFlush(1);
+
+    // Simulates a restart
+    instance = new ClanService(fafService, preferencesService, taskScheduler);
+    CompletableFuture<Optional<Clan>> abc = instance.getClanByTag("ABC");
+    runScheduledFlush(2);
+
+    verify(fafService, times(1)).getClansByTags(anyCollection());
+    Clan clan = abc.get().get();
+    assertThat(clan.getName(), is("Clan ABC"));
+    assertThat(clan.getLeader().getUsername(), is("leader"));
+    assertThat(clan.getMembers().size(), is(2));
+  }
+
+  @Test
+  public void testFailedLookupIsRetried() throws Exception {
+    CompletableFuture<List<Clan>> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new RuntimeException("junit"));
+    when(fafService.getClansByTags(anyCollection())).thenReturn(failed);
+
+    CompletableFuture<Optional<Clan>> abc = instance.getClanByTag("ABC");
+    runScheduledFlush(1);
+
+    assertThat(abc.isCompletedExceptionally(), is(true));
+    assertThat(instance.getClanByTag("ABC"), not(sameInstance(abc)));
+  }
+
+  private void runScheduledFlush(int expectedInvocations) {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(taskScheduler, times(expectedInvocations)).schedule(captor.capture(), any(Instant.class));
+    captor.getValue().run();
+  }
+
+  private Clan clan(String tag) {
+    Player leader = new Player("leader");
+    leader.setId(1);
+    Player member = new Player("member");
+    member.setId(2);
+
+    Clan clan = new Clan();
+    clan.setId("1");
+    clan.setTag(tag);
+    clan.setName("Clan " + tag);
+    clan.setCreateTime(Instant.now());
+    clan.setLeader(leader);
+    clan.setFounder(leader);
+    clan.getMembers().addAll(asList(leader, member));
+    return clan;
+  }
+}
@@ -0,0 +1,105 @@
+package com.faforever.client.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ArchiveInstallerTest {
+
+  private static final String CONTENT = "ScenarioInfo = {}";
+
+  @Rule
+  public TemporaryFolder targetDirectory = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void testInstallReplacesExistingFolder() throws Exception {
+    Path target = targetDirectory.getRoot().toPath();
+    Path oldFile = Files.createDirectory(target.resolve("map")).resolve("old.lua");
+    Files.createFile(oldFile);
+
+    List<Path> installed = ArchiveInstaller.from(new ByteArrayInputStream(createZip()))
+        .to(target)
+        .install();
+
+    assertThat(installed, contains(target.resolve("map")));
+    assertThat(new String(Files.readAllBytes(target.resolve("map/map_scenario.lua")), UTF_8), is(CONTENT));
+    assertThat(Files.exists(oldFile), is(false));
+    try (Stream<Path> entries = Files.list(target)) {
+      assertThat(entries.count(), is(1L));
+    }
+  }
+
+  @Test
+  public void testLeftoverStagingDirectoryIsDeleted() throws Exception {
+    Path target = targetDirectory.getRoot().toPath();
+    Path leftoverFile = Files.createDirectories(target.resolve(".installing-123/map")).resolve("map_scenario.lua");
+    Files.createFile(leftoverFile);
+
+    ArchiveInstaller.from(new ByteArrayInputStream(createZip()))
+        .to(target)
+        .install();
+
+    try (Stream<Path> entries = Files.list(target)) {
+      assertThat(entries.collect(Collectors.toList()), contains(target.resolve("map")));
+    }
+  }
+
+  @Test
+  public void testCorruptEntryIsNotInstalled() throws Exception {
+    byte[] zip = createZip();
+    // Stored entries contain their content as is
+    int contentOffset = new String(zip, ISO_8859_1).indexOf(CONTENT);
+    zip[contentOffset] = 'X';
+
+    Path target = targetDirectory.getRoot().toPath();
+    expectedException.expect(ZipException.class);
+    try {
+      ArchiveInstaller.from(new ByteArrayInputStream(zip))
+          .to(target)
+          .install();
+    } finally {
+      try (Stream<Path> entries = Files.list(target)) {
+        assertThat(entries.count(), is(0L));
+      }
+    }
+  }
+
+  private static byte[] createZip() throws Exception {
+    byte[] content = CONTENT.getBytes(UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(content);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+      ZipEntry entry = new ZipEntry("map/map_scenario.lua");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(content.length);
+      entry.setCrc(crc.getValue());
+      zipOutputStream.putNextEntry(entry);
+      zipOutputStream.write(content);
+      zipOutputStream.closeEntry();
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,120 @@
+package com.faforever.client.io;
+
+import com.faforever.client.io.DirectoryWatchService.DirectoryChanges;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DirectoryWatchServiceTest {
+
+  private static final long TIMEOUT_MILLIS = 20_000;
+
+  @Rule
+  public TemporaryFolder directory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder otherDirectory = new TemporaryFolder();
+
+  private DirectoryWatchService instance;
+  private BlockingQueue<DirectoryChanges> changes;
+  private Path directoryPath;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new DirectoryWatchService();
+    changes = new LinkedBlockingQueue<>();
+    directoryPath = directory.getRoot().toPath();
+    Files.createDirectory(directoryPath.resolve("existing"));
+
+    instance.watch(directoryPath, changes::add);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instance.destroy();
+  }
+
+  @Test
+  public void testChangesAreReportedInOneBatch() throws Exception {
+    Path first = Files.createDirectory(directoryPath.resolve("first"));
+    Files.write(first.resolve("first_scenario.lua"), new byte[10]);
+    Path second = Files.createDirectory(directoryPath.resolve("second"));
+    Files.write(second.resolve("second_scenario.lua"), new byte[10]);
+    Path existing = directoryPath.resolve("existing");
+    Files.delete(existing);
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getCreated(), containsInAnyOrder(first, second));
+    assertThat(directoryChanges.getDeleted(), containsInAnyOrder(existing));
+    assertThat(changes.poll(DirectoryWatchService.QUIET_PERIOD_MILLIS * 2, TimeUnit.MILLISECONDS), nullValue());
+  }
+
+  @Test
+  public void testEntryCreatedAndDeletedIsNotReported() throws Exception {
+    Path temporary = Files.createDirectory(directoryPath.resolve("temporary"));
+    Files.delete(temporary);
+    Path kept = Files.createDirectory(directoryPath.resolve("kept"));
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getCreated(), containsInAnyOrder(kept));
+    assertThat(directoryChanges.getDeleted(), empty());
+  }
+
+  @Test
+  public void testModifiedEntryIsNotReported() throws Exception {
+    Path existing = directoryPath.resolve("existing");
+    Files.write(existing.resolve("existing_scenario.lua"), new byte[10]);
+    Path added = Files.createDirectory(directoryPath.resolve("added"));
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getCreated(), containsInAnyOrder(added));
+    assertThat(directoryChanges.getDeleted(), empty());
+  }
+
+  @Test
+  public void testReplacedEntryIsReportedAsDeletedAndCreated() throws Exception {
+    Path existing = directoryPath.resolve("existing");
+    Path replacement = Files.createDirectory(otherDirectory.getRoot().toPath().resolve("existing"));
+    Files.delete(existing);
+    Files.move(replacement, existing);
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getCreated(), containsInAnyOrder(existing));
+    assertThat(directoryChanges.getDeleted(), containsInAnyOrder(existing));
+  }
+
+  @Test
+  public void testListenerMayCancelItsRegistration() throws Exception {
+    BlockingQueue<DirectoryChanges> otherChanges = new LinkedBlockingQueue<>();
+    DirectoryWatchService.Registration[] registration = new DirectoryWatchService.Registration[1];
+    registration[0] = instance.watch(directoryPath, directoryChanges -> {
+      registration[0].cancel();
+      otherChanges.add(directoryChanges);
+    });
+    Files.createDirectory(directoryPath.resolve("added"));
+
+    assertThat(otherChanges.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), notNullValue());
+    assertThat(changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), notNullValue());
+  }
+}
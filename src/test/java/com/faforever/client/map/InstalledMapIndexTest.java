@@ -0,0 +1,116 @@
+package com.faforever.client.map;
+
+import com.faforever.client.preferences.PreferencesService;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstalledMapIndexTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder mapsDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+
+  private InstalledMapIndex instance;
+  private List<Path> readFolders;
+  private Function<Path, MapBean> mapReader;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    readFolders = new ArrayList<>();
+    mapReader = mapFolder -> {
+      synchronized (readFolders) {
+        readFolders.add(mapFolder);
+      }
+      MapBean mapBean = new MapBean();
+      mapBean.setFolderName(mapFolder.getFileName().toString());
+      mapBean.setDisplayName("Map " + mapFolder.getFileName());
+      mapBean.setSize(MapSize.valueOf(512, 1024));
+      mapBean.setVersion(new ComparableVersion("3"));
+      return mapBean;
+    };
+
+    instance = new InstalledMapIndex(preferencesService);
+  }
+
+  @Test
+  public void testMapsAreReadInOrder() throws Exception {
+    Path first = createMap("first");
+    Path second = createMap("second");
+    Path notAMap = Files.createDirectory(mapsDirectory.getRoot().toPath().resolve("notAMap"));
+
+    List<MapBean> maps = instance.update(List.of(first, notAMap, second), mapReader);
+
+    assertThat(maps.stream().map(MapBean::getFolderName).toArray(), is(new Object[]{"first", "second"}));
+  }
+
+  @Test
+  public void testOnlyChangedMapsAreReadAfterRestart() throws Exception {
+    Path unchanged = createMap("unchanged");
+    Path changed = createMap("changed");
+    instance.update(List.of(unchanged, changed), mapReader);
+    readFolders.clear();
+
+    Files.write(changed.resolve("changed_scenario.lua"), "changed".getBytes(UTF_8));
+    Files.setLastModifiedTime(changed.resolve("changed_scenario.lua"), FileTime.fromMillis(1000));
+    instance = new InstalledMapIndex(preferencesService);
+    List<MapBean> maps = instance.update(List.of(unchanged, changed), mapReader);
+
+    assertThat(readFolders, contains(changed));
+    MapBean cachedMap = maps.get(0);
+    assertThat(cachedMap.getFolderName(), is("unchanged"));
+    assertThat(cachedMap.getDisplayName(), is("Map unchanged"));
+    assertThat(cachedMap.getSize(), is(MapSize.valueOf(512, 1024)));
+    assertThat(cachedMap.getVersion(), is(new ComparableVersion("3")));
+  }
+
+  @Test
+  public void testProgressIsReported() throws Exception {
+    Path unchanged = createMap("unchanged");
+    instance.update(List.of(unchanged), mapReader);
+    Path added = createMap("added");
+    Path notAMap = Files.createDirectory(mapsDirectory.getRoot().toPath().resolve("notAMap"));
+    List<Long> progress = new CopyOnWriteArrayList<>();
+
+    instance.update(List.of(unchanged, added, notAMap), mapReader, (done, total) -> {
+      assertThat(total, is(3L));
+      progress.add(done);
+    });
+
+    // Maps are read in parallel, so the order of the reports after the first one is not defined
+    assertThat(progress.get(0), is(1L));
+    assertThat(progress, containsInAnyOrder(1L, 2L, 3L));
+  }
+
+  private Path createMap(String folderName) throws Exception {
+    Path mapFolder = Files.createDirectory(mapsDirectory.getRoot().toPath().resolve(folderName));
+    Files.write(mapFolder.resolve(folderName + "_scenario.lua"), "ScenarioInfo = {}".getBytes(UTF_8));
+    return mapFolder;
+  }
+}
@@ -2,6 +2,7 @@ package com.faforever.client.map;
 
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatchService;
 import com.faforever.client.map.MapService.PreviewSize;
 import com.faforever.client.map.generator.MapGeneratorService;
 import com.faforever.client.player.PlayerService;
@@ -38,14 +39,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -54,6 +58,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -97,6 +102,10 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
   private PlayerService playerService;
   @Mock
   private EventBus eventBus;
+  @Mock
+  private DirectoryWatchService directoryWatchService;
+  @Mock
+  private LocalMapPreviewCache localMapPreviewCache;
 
   @Before
   public void setUp() throws Exception {
@@ -110,8 +119,10 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
     when(forgedAlliancePrefs.installationPathProperty()).thenReturn(new SimpleObjectProperty<>());
     when(preferencesService.getPreferences()).thenReturn(preferences);
     when(preferences.getForgedAlliance()).thenReturn(forgedAlliancePrefs);
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
     instance = new MapService(preferencesService, taskService, applicationContext,
-        fafService, assetService, i18n, uiService, mapGeneratorService, clientProperties, eventBus, playerService);
+        fafService, assetService, i18n, uiService, mapGeneratorService, clientProperties, eventBus, playerService,
+        new InstalledMapIndex(preferencesService), directoryWatchService, localMapPreviewCache);
     instance.afterPropertiesSet();
 
     doAnswer(invocation -> {
@@ -193,6 +204,18 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
     assertTrue(instance.isInstalled("ScMp_001"));
   }
 
+  @Test
+  public void testGetPathForMapIgnoresCase() throws Exception {
+    Path customMap = Files.createDirectory(customMapsDirectory.getRoot().toPath().resolve("Custom_Map"));
+    Files.copy(getClass().getResourceAsStream("/maps/SCMP_001/SCMP_001_scenario.lua"), customMap.resolve("Custom_Map_scenario.lua"));
+
+    instance.afterPropertiesSet();
+
+    assertThat(instance.getPathForMapInsensitive("custom_map"), is(customMap));
+    assertThat(instance.getMapLocallyFromName("CUSTOM_MAP").map(MapBean::getFolderName), is(Optional.of("Custom_Map")));
+    assertThat(instance.getPathForMapInsensitive("other_map"), nullValue());
+  }
+
   @Test
   public void testLoadPreview() {
     for (PreviewSize previewSize : PreviewSize.values()) {
@@ -203,6 +226,23 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
     }
   }
 
+  @Test
+  public void testLoadPreviewOfInstalledMapUsesLocalPreview() throws Exception {
+    Path customMap = Files.createDirectory(customMapsDirectory.getRoot().toPath().resolve("Custom_Map"));
+    Files.copy(getClass().getResourceAsStream("/maps/SCMP_001/SCMP_001_scenario.lua"), customMap.resolve("Custom_Map_scenario.lua"));
+    Path previewFile = cacheDirectory.newFile("custom_map.png").toPath();
+    Files.copy(getClass().getResourceAsStream("/theme/images/unknown_map.png"), previewFile, REPLACE_EXISTING);
+    when(localMapPreviewCache.getPreview(customMap, 128)).thenReturn(Optional.of(previewFile));
+    Image localPreview = new Image(previewFile.toUri().toString());
+    when(assetService.loadAndCacheLocalImage(previewFile, 128, 128)).thenReturn(localPreview);
+
+    instance.afterPropertiesSet();
+    Image preview = instance.loadPreview("custom_map", PreviewSize.SMALL);
+
+    assertThat(preview, is(localPreview));
+    verify(assetService, never()).loadAndCacheImage(any(URL.class), any(), any());
+  }
+
   @Test
   public void testGetRecommendedMaps() throws Exception {
     ClientConfiguration clientConfiguration = mock(ClientConfiguration.class);
@@ -24,8 +24,6 @@ public class InstallModTaskTest extends AbstractPlainJavaFxTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
   @Rule
-  public TemporaryFolder cacheDirectory = new TemporaryFolder();
-  @Rule
   public TemporaryFolder modsDirectory = new TemporaryFolder();
   private InstallModTask instance;
   @Mock
@@ -41,7 +39,6 @@ public class InstallModTaskTest extends AbstractPlainJavaFxTest {
   public void setUp() throws Exception {
     instance = new InstallModTask(preferencesService, i18n);
 
-    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
     when(preferencesService.getPreferences()).thenReturn(preferences);
     when(preferences.getForgedAlliance()).thenReturn(forgedAlliancePrefs);
     when(forgedAlliancePrefs.getModsDirectory()).thenReturn(modsDirectory.getRoot().toPath());
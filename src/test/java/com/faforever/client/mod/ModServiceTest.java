@@ -2,6 +2,7 @@ package com.faforever.client.mod;
 
 import com.faforever.client.fx.PlatformService;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatchService;
 import com.faforever.client.mod.ModVersion.ModType;
 import com.faforever.client.notification.NotificationService;
 import com.faforever.client.preferences.ForgedAlliancePrefs;
@@ -96,6 +97,8 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
   private AssetService assetService;
   @Mock
   private PlatformService platformService;
+  @Mock
+  private DirectoryWatchService directoryWatchService;
 
   private ModService instance;
   private Path gamePrefsPath;
@@ -104,7 +107,7 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
   @Before
   public void setUp() throws Exception {
     instance = new ModService(fafService, preferencesService, taskService, applicationContext, notificationService, i18n,
-        platformService, assetService);
+        platformService, assetService, directoryWatchService);
 
     gamePrefsPath = faDataDirectory.getRoot().toPath().resolve("game.prefs");
 
@@ -31,6 +31,7 @@ import static com.faforever.client.player.SocialStatus.FRIEND;
 import static com.natpryce.hamcrest.reflection.HasAnnotationMatcher.hasAnnotation;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
@@ -119,6 +120,18 @@ public class PlayerServiceTest {
     assertThat(playerNames, containsInAnyOrder("player1", "player2"));
   }
 
+  @Test
+  public void testGetPlayerNamesByPrefix() throws Exception {
+    instance.createAndGetPlayerForUsername("Alpha");
+    instance.createAndGetPlayerForUsername("alpine");
+    instance.createAndGetPlayerForUsername("ALPS");
+    instance.createAndGetPlayerForUsername("beta");
+
+    assertThat(instance.getPlayerNamesByPrefix("alp", 10), contains("Alpha", "alpine", "ALPS"));
+    assertThat(instance.getPlayerNamesByPrefix("ALP", 2), contains("Alpha", "alpine"));
+    assertThat(instance.getPlayerNamesByPrefix("gamma", 10), empty());
+  }
+
   @Test
   public void testAddFriend() throws Exception {
     Player lisa = instance.createAndGetPlayerForUsername("lisa");
@@ -178,6 +178,13 @@ public class SettingsControllerTest extends AbstractPlainJavaFxTest {
     assertThat(preferences.getChat().getAutoJoinChannels(), is(expected));
   }
 
+  @Test
+  public void testHighlightWordsAreParsedFromTextField() {
+    instance.highlightWordsTextField.setText(" faf, , replay,faf ");
+
+    assertThat(preferences.getChat().getHighlightWords(), is(Arrays.asList("faf", "replay")));
+  }
+
   @Test
   public void testLanguageChannels() {
     Map<Locale, LanguageChannel> languagesToChannels = ChatPrefs.LOCALE_LANGUAGES_TO_CHANNELS;
@@ -0,0 +1,141 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LiveReplayHubTest {
+
+  private static final int TIMEOUT_SECONDS = 10;
+  private static final String PATH = "/123/junit.SCFAreplay";
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+
+  private LiveReplayHub instance;
+  private ServerSocket upstreamServer;
+  private ExecutorService executorService;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    upstreamServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    executorService = Executors.newCachedThreadPool();
+    instance = new LiveReplayHub(preferencesService);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instance.destroy();
+    upstreamServer.close();
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testViewersShareUpstreamStream() throws Exception {
+    CountDownLatch firstViewerReceivedData = new CountDownLatch(1);
+    CompletableFuture<String> upstreamRequest = CompletableFuture.supplyAsync(() -> serveUpstream(firstViewerReceivedData), executorService);
+
+    URI uri = instance.getLocalReplayUri(123, "127.0.0.1", upstreamServer.getLocalPort(), PATH);
+    URI secondUri = instance.getLocalReplayUri(123, "127.0.0.1", upstreamServer.getLocalPort(), PATH);
+    assertThat(secondUri, is(uri));
+
+    CompletableFuture<String> firstViewer = CompletableFuture.supplyAsync(() -> watch(uri, firstViewerReceivedData), executorService);
+    assertThat(firstViewerReceivedData.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    // Joins after the first part has already been relayed
+    CompletableFuture<String> lateViewer = CompletableFuture.supplyAsync(() -> watch(uri, null), executorService);
+
+    assertThat(firstViewer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), is("first part, second part"));
+    assertThat(lateViewer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), is("first part, second part"));
+    assertThat(upstreamRequest.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), is("G" + PATH));
+  }
+
+  @Test
+  public void testSessionIsClosedAfterLastViewerDisconnected() throws Exception {
+    CountDownLatch viewerReceivedData = new CountDownLatch(1);
+    CompletableFuture<String> upstreamRequest = CompletableFuture.supplyAsync(() -> serveUpstream(viewerReceivedData), executorService);
+
+    URI uri = instance.getLocalReplayUri(123, "127.0.0.1", upstreamServer.getLocalPort(), PATH);
+    assertThat(watch(uri, viewerReceivedData), is("first part, second part"));
+    upstreamRequest.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    // The session is gone, so nothing is served anymore
+    assertThat(watch(uri, null), is(""));
+  }
+
+  /**
+   * Accepts a single connection, sends the first part, waits for it to reach a viewer and then sends the rest.
+   */
+  private String serveUpstream(CountDownLatch firstPartReceived) {
+    try (Socket socket = upstreamServer.accept();
+         InputStream inputStream = socket.getInputStream();
+         OutputStream outputStream = socket.getOutputStream()) {
+      String request = readUntilZero(inputStream);
+      outputStream.write("first part".getBytes(US_ASCII));
+      outputStream.flush();
+      firstPartReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      Thread.sleep(100);
+      outputStream.write(", second part".getBytes(US_ASCII));
+      return request;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private String watch(URI uri, CountDownLatch dataReceived) {
+    try (Socket socket = new Socket(uri.getHost(), uri.getPort());
+         InputStream inputStream = socket.getInputStream()) {
+      socket.getOutputStream().write(("G" + uri.getPath() + "\0").getBytes(US_ASCII));
+
+      ByteArrayOutputStream received = new ByteArrayOutputStream();
+      byte[] buffer = new byte[64];
+      int bytesRead;
+      while ((bytesRead = inputStream.read(buffer)) != -1) {
+        received.write(buffer, 0, bytesRead);
+        if (dataReceived != null) {
+          dataReceived.countDown();
+        }
+      }
+      return received.toString(US_ASCII);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String readUntilZero(InputStream inputStream) throws Exception {
+    StringBuilder result = new StringBuilder();
+    int character;
+    while ((character = inputStream.read()) > 0) {
+      result.append((char) character);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,109 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.replay.LocalReplayIndex.IndexedReplay;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalReplayIndexTest {
+
+  private static final String REPLAY_FILE_GLOB = "*.fafreplay";
+
+  @Rule
+  public TemporaryFolder replayDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+  @Mock
+  private ReplayFileReader replayFileReader;
+
+  private LocalReplayIndex instance;
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    when(replayFileReader.parseMetaData(any())).thenAnswer(invocation -> {
+      LocalReplayInfo replayInfo = new LocalReplayInfo();
+      replayInfo.setTitle(((Path) invocation.getArgument(0)).getFileName().toString());
+      return replayInfo;
+    });
+
+    directory = replayDirectory.getRoot().toPath();
+    instance = new LocalReplayIndex(preferencesService, replayFileReader, MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void testReplaysAreSortedByLastModified() throws Exception {
+    createReplay("old.fafreplay", 1000);
+    createReplay("new.fafreplay", 2000);
+
+    List<IndexedReplay> replays = instance.update(directory, REPLAY_FILE_GLOB, path -> {
+    });
+
+    assertThat(replays.stream().map(IndexedReplay::getFileName).toArray(), is(new Object[]{"new.fafreplay", "old.fafreplay"}));
+    assertThat(replays.get(0).getReplayInfo().getTitle(), is("new.fafreplay"));
+  }
+
+  @Test
+  public void testOnlyNewReplaysAreParsedAfterRestart() throws Exception {
+    Path first = createReplay("first.fafreplay", 1000);
+    instance.update(directory, REPLAY_FILE_GLOB, path -> {
+    });
+
+    Path second = createReplay("second.fafreplay", 2000);
+    // Don't rely on the file system's timestamp resolution
+    Files.setLastModifiedTime(directory, FileTime.fromMillis(3000));
+    // Simulates a restart
+    instance = new LocalReplayIndex(preferencesService, replayFileReader, MoreExecutors.newDirectExecutorService());
+    List<IndexedReplay> replays = instance.update(directory, REPLAY_FILE_GLOB, path -> {
+    });
+
+    assertThat(replays.size(), is(2));
+    verify(replayFileReader, times(1)).parseMetaData(first);
+    verify(replayFileReader, times(1)).parseMetaData(second);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCorruptedReplaysAreNotIndexed() throws Exception {
+    Path corrupted = createReplay("corrupted.fafreplay", 1000);
+    when(replayFileReader.parseMetaData(corrupted)).thenThrow(new IllegalStateException("junit"));
+    Consumer<Path> corruptedReplayHandler = mock(Consumer.class);
+
+    List<IndexedReplay> replays = instance.update(directory, REPLAY_FILE_GLOB, corruptedReplayHandler);
+
+    assertThat(replays, empty());
+    verify(corruptedReplayHandler).accept(corrupted);
+  }
+
+  private Path createReplay(String fileName, long lastModified) throws Exception {
+    Path file = Files.createFile(directory.resolve(fileName));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    return file;
+  }
+}
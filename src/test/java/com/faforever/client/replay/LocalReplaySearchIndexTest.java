@@ -0,0 +1,142 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.replay.LocalReplayIndex.IndexedReplay;
+import com.faforever.client.replay.ReplaySummaryCache.ReplaySummary;
+import com.faforever.client.replay.ReplaySummaryCache.SummaryChatMessage;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalReplaySearchIndexTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder replayDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+  @Mock
+  private ReplaySummaryCache replaySummaryCache;
+
+  private LocalReplaySearchIndex instance;
+  private Path replayDirectoryPath;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    replayDirectoryPath = replayDirectory.getRoot().toPath();
+
+    instance = new LocalReplaySearchIndex(preferencesService, replaySummaryCache, MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void testSearchByMetadataAndChat() throws Exception {
+    IndexedReplay setons = replay("1.fafreplay", "Casual 2v2", "setons_clutch.v0004", "Thomas", "Sarah");
+    IndexedReplay dualGap = replay("2.fafreplay", "Casual 1v1", "dualgap_adaptive.v0012", "Thomas");
+    when(replaySummaryCache.getSummary(replayDirectoryPath.resolve("1.fafreplay"))).thenReturn(summary("Sarah", "GG, well played"));
+    when(replaySummaryCache.getSummary(replayDirectoryPath.resolve("2.fafreplay"))).thenReturn(summary("Thomas", "gl hf"));
+
+    instance.update(replayDirectoryPath, List.of(setons, dualGap));
+
+    assertThat(instance.search("thomas"), containsInAnyOrder("1.fafreplay", "2.fafreplay"));
+    assertThat(instance.search("THOMAS gg seton's"), containsInAnyOrder("1.fafreplay"));
+    assertThat(instance.search("sarah dualgap"), empty());
+    assertThat(instance.search("  "), empty());
+  }
+
+  @Test
+  public void testUpdateInBackground() throws Exception {
+    IndexedReplay replay = replay("1.fafreplay", "Ladder", "setons_clutch.v0004", "Thomas");
+    when(replaySummaryCache.getSummary(any())).thenReturn(new ReplaySummary());
+
+    assertThat(instance.search("ladder"), empty());
+    instance.updateInBackground(replayDirectoryPath, () -> List.of(replay)).get();
+
+    assertThat(instance.search("ladder"), containsInAnyOrder("1.fafreplay"));
+  }
+
+  @Test
+  public void testFailedUpdateDoesNotPreventLaterUpdates() throws Exception {
+    IndexedReplay replay = replay("1.fafreplay", "Ladder", "setons_clutch.v0004", "Thomas");
+    when(replaySummaryCache.getSummary(any())).thenReturn(new ReplaySummary());
+
+    instance.updateInBackground(replayDirectoryPath, () -> {
+      throw new IOException("junit");
+    });
+    instance.updateInBackground(replayDirectoryPath, () -> List.of(replay)).get();
+
+    assertThat(instance.search("ladder"), containsInAnyOrder("1.fafreplay"));
+  }
+
+  @Test
+  public void testReplayWithoutChatIsFoundByMetadata() throws Exception {
+    IndexedReplay replay = replay("1.fafreplay", "Ladder", "setons_clutch.v0004", "Thomas");
+    when(replaySummaryCache.getSummary(any())).thenThrow(new IOException("junit"));
+
+    instance.update(replayDirectoryPath, List.of(replay));
+
+    assertThat(instance.search("ladder"), containsInAnyOrder("1.fafreplay"));
+  }
+
+  @Test
+  public void testIndexIsPersistedAndUpdatedIncrementally() throws Exception {
+    IndexedReplay first = replay("1.fafreplay", "First", "setons_clutch.v0004", "Thomas");
+    IndexedReplay second = replay("2.fafreplay", "Second", "setons_clutch.v0004", "Sarah");
+    when(replaySummaryCache.getSummary(any())).thenReturn(new ReplaySummary());
+    instance.update(replayDirectoryPath, List.of(first, second));
+
+    // Simulates a restart, after which the first replay has been deleted and a third one has been added
+    instance = new LocalReplaySearchIndex(preferencesService, replaySummaryCache, MoreExecutors.newDirectExecutorService());
+    IndexedReplay third = replay("3.fafreplay", "Third", "setons_clutch.v0004", "Sarah");
+    instance.update(replayDirectoryPath, List.of(second, third));
+
+    assertThat(instance.search("setons"), containsInAnyOrder("2.fafreplay", "3.fafreplay"));
+    assertThat(instance.search("first"), empty());
+    verify(replaySummaryCache, times(1)).getSummary(replayDirectoryPath.resolve("2.fafreplay"));
+  }
+
+  private IndexedReplay replay(String fileName, String title, String mapName, String... players) {
+    LocalReplayInfo replayInfo = new LocalReplayInfo();
+    replayInfo.setTitle(title);
+    replayInfo.setMapname(mapName);
+    replayInfo.setFeaturedMod("faf");
+    replayInfo.setTeams(Map.of("1", List.of(players)));
+
+    IndexedReplay indexedReplay = new IndexedReplay();
+    indexedReplay.setFileName(fileName);
+    indexedReplay.setSize(100);
+    indexedReplay.setLastModified(1000);
+    indexedReplay.setReplayInfo(replayInfo);
+    return indexedReplay;
+  }
+
+  private ReplaySummary summary(String sender, String message) {
+    SummaryChatMessage chatMessage = new SummaryChatMessage();
+    chatMessage.setSender(sender);
+    chatMessage.setMessage(message);
+    ReplaySummary summary = new ReplaySummary();
+    summary.getChatMessages().add(chatMessage);
+    return summary;
+  }
+}
@@ -10,6 +10,7 @@ import com.faforever.client.reporting.ReportingService;
 import com.faforever.client.test.AbstractPlainJavaFxTest;
 import com.faforever.client.theme.UiService;
 import com.faforever.client.vault.search.SearchController;
+import com.faforever.client.vault.search.SearchController.SearchConfig;
 import javafx.application.Platform;
 import javafx.scene.layout.Pane;
 import org.junit.Before;
@@ -84,6 +85,13 @@ public class LocalReplayVaultControllerTest extends AbstractPlainJavaFxTest {
     verify(replayService).loadLocalReplayPage(instance.pageSize, 1);
   }
 
+  @Test
+  public void testSetSupplierWithQuery() throws IOException {
+    instance.setSupplier(new SearchConfig(null, "thomas setons"));
+
+    verify(replayService).searchLocalReplays("thomas setons", instance.pageSize, 1);
+  }
+
   @Test
   public void testShowLocalReplayDetail() {
     Replay replay = ReplayInfoBeanBuilder.create().get();
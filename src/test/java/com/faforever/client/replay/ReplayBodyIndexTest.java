@@ -0,0 +1,54 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.replay.ReplaySummaryCache.SummaryChatMessage;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReplayBodyIndexTest {
+
+  @Test
+  public void testIndex() throws Exception {
+    Path replayFile = Paths.get(getClass().getResource("/replay/test.fafreplay").toURI());
+
+    ReplayBodyIndex index;
+    try (InputStream inputStream = new ReplayFileReaderImpl().openRawReplayData(replayFile)) {
+      index = ReplayBodyIndex.index(inputStream);
+    }
+
+    assertThat(index.getHeaderLength(), is(4779L));
+    assertThat(index.getTicks(), is(2607));
+    assertThat(index.getCommandSources(), hasSize(10));
+    assertThat(index.getCommandSources().get(0), is("sandwormsurfer"));
+    assertThat(index.getCommandCounts(), contains(64, 147, 64, 77, 122, 40, 94, 129, 0, 0));
+    assertThat(index.getArmies(), contains("sandwormsurfer", "Tokyto", "hepko", "Geosearchef", "Jitsu", "MazorNoob", "Nojoke", "kubkolienka"));
+    assertThat(index.getGameOptions(), hasSize(28));
+    // Every recipient repeats a chat message, but each message is only read once
+    assertThat(index.getChatMessages().stream().map(SummaryChatMessage::getMessage).collect(Collectors.toList()), contains(
+        "how does this game play?:D",
+        "classic setons tryhard obviously",
+        "thats my -1 speed adjustment for tryhard engi reclaim",
+        "node is about 3-4% here and 52mb ram",
+        "10-20",
+        "2% now",
+        "10 %"
+    ));
+  }
+
+  @Test(expected = IOException.class)
+  public void testIndexTruncatedHeader() throws Exception {
+    byte[] rawReplayData = "Supreme Commander v1.50.3599\0\r\n\0Replay v1.9\r\n".getBytes();
+
+    ReplayBodyIndex.index(new ByteArrayInputStream(rawReplayData));
+  }
+}
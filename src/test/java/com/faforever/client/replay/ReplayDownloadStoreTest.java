@@ -0,0 +1,102 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.preferences.PreferencesService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplayDownloadStoreTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+
+  private ClientProperties clientProperties;
+  private ReplayDownloadStore instance;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    clientProperties = new ClientProperties();
+    clientProperties.getReplay().setDownloadedReplaysMaxSize(25);
+
+    instance = new ReplayDownloadStore(preferencesService, clientProperties);
+  }
+
+  @Test
+  public void testCompletedDownloadIsStored() throws Exception {
+    assertThat(instance.getReplayFile(1), is(Optional.empty()));
+
+    download(1, 10);
+
+    Path replayFile = instance.getReplayFile(1).orElseThrow();
+    assertThat(Files.size(replayFile), is(10L));
+    assertThat(instance.getSize(1), is(10L));
+    assertThat(Files.exists(instance.getPartFile(1)), is(false));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedReplaysAreEvicted() throws Exception {
+    download(1, 10);
+    download(2, 10);
+    setLastModified(1, 1000);
+    setLastModified(2, 2000);
+    // Watching the first replay again makes the second one the least recently used
+    instance.getReplayFile(1);
+
+    download(3, 10);
+
+    assertThat(instance.getReplayFile(1).isPresent(), is(true));
+    assertThat(instance.getReplayFile(2).isPresent(), is(false));
+    assertThat(instance.getReplayFile(3).isPresent(), is(true));
+  }
+
+  @Test
+  public void testReplayBiggerThanStoreIsKept() throws Exception {
+    download(1, 10);
+
+    download(2, 30);
+
+    assertThat(instance.getReplayFile(1).isPresent(), is(false));
+    assertThat(instance.getReplayFile(2).isPresent(), is(true));
+  }
+
+  @Test
+  public void testPartialDownloadsAreNotEvicted() throws Exception {
+    Path partFile = instance.getPartFile(1);
+    Files.write(partFile, new byte[20]);
+    Files.setLastModifiedTime(partFile, FileTime.fromMillis(1000));
+
+    download(2, 10);
+
+    assertThat(Files.exists(partFile), is(true));
+    assertThat(instance.getReplayFile(2).isPresent(), is(true));
+  }
+
+  private void download(int replayId, int size) throws Exception {
+    Files.write(instance.getPartFile(replayId), new byte[size]);
+    instance.complete(replayId);
+  }
+
+  private void setLastModified(int replayId, long millis) throws Exception {
+    Path replayFile = cacheDirectory.getRoot().toPath().resolve("replays").resolve(replayId + ".fafreplay");
+    Files.setLastModifiedTime(replayFile, FileTime.fromMillis(millis));
+  }
+}
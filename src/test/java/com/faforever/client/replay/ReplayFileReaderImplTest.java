@@ -1,16 +1,24 @@
 package com.faforever.client.replay;
 
+import com.faforever.commons.replay.QtCompress;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 public class ReplayFileReaderImplTest {
@@ -27,10 +35,43 @@ public class ReplayFileReaderImplTest {
 
   @Test
   public void readReplayData() throws Exception {
+    Path tempFile = copyTestReplay();
+    assertThat(instance.readRawReplayData(tempFile).length, is(197007));
+  }
+
+  @Test
+  public void openReplayDataMatchesQtUncompress() throws Exception {
+    Path tempFile = copyTestReplay();
+    List<String> lines = Files.readAllLines(tempFile);
+    byte[] expected = QtCompress.qUncompress(BaseEncoding.base64().decode(lines.get(1)));
+
+    byte[] actual;
+    try (InputStream inputStream = instance.openRawReplayData(tempFile)) {
+      actual = ByteStreams.toByteArray(inputStream);
+    }
+
+    assertThat(Arrays.equals(actual, expected), is(true));
+  }
+
+  @Test
+  public void parseMetaData() throws Exception {
+    Path tempFile = copyTestReplay();
+    assertThat(instance.parseMetaData(tempFile), is(notNullValue()));
+  }
+
+  @Test(expected = IOException.class)
+  public void openReplayDataWithoutData() throws Exception {
+    Path tempFile = temporaryFolder.newFile("replay.fafreplay").toPath();
+    Files.write(tempFile, "{}".getBytes(StandardCharsets.UTF_8));
+
+    instance.openRawReplayData(tempFile);
+  }
+
+  private Path copyTestReplay() throws IOException {
     Path tempFile = temporaryFolder.getRoot().toPath().resolve("replay.tmp");
     try (InputStream inputStream = new BufferedInputStream(getClass().getResourceAsStream("/replay/test.fafreplay"))) {
       Files.copy(inputStream, tempFile);
     }
-    assertThat(instance.readRawReplayData(tempFile).length, is(197007));
+    return tempFile;
   }
 }
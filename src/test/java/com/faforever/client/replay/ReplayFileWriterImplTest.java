@@ -3,19 +3,26 @@ package com.faforever.client.replay;
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.preferences.PreferencesService;
+import com.faforever.commons.replay.QtCompress;
+import com.google.common.io.BaseEncoding;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ReplayFileWriterImplTest {
@@ -46,10 +53,10 @@ public class ReplayFileWriterImplTest {
   private ClientProperties clientProperties;
 
   @Mock
-  private ByteArrayOutputStream replayData;
+  private ClientProperties.Replay replay;
 
   @Mock
-  private ClientProperties.Replay replay;
+  private ApplicationEventPublisher applicationEventPublisher;
 
   private ReplayFileWriterImpl instance;
   private LocalReplayInfo replayInfo;
@@ -58,23 +65,32 @@ public class ReplayFileWriterImplTest {
   public void setUp() throws Exception {
     MockitoAnnotations.initMocks(this);
 
-    instance = new ReplayFileWriterImpl(i81n, clientProperties, preferencesService);
+    instance = new ReplayFileWriterImpl(i81n, clientProperties, preferencesService, applicationEventPublisher);
     when(clientProperties.getReplay()).thenReturn(replay);
     when(replay.getReplayFileFormat()).thenReturn(replayFileFormat);
-    when(preferencesService.getReplaysDirectory()).thenReturn(Path.of("."));
-    when(preferencesService.getCacheDirectory()).thenReturn(Path.of("."));
+    when(preferencesService.getReplaysDirectory()).thenReturn(temporaryFolder.getRoot().toPath().resolve("replays"));
+    when(preferencesService.getCacheDirectory()).thenReturn(temporaryFolder.getRoot().toPath());
     when(i81n.getUserSpecificLocale()).thenReturn(Locale.US);
   }
 
   @Test
   public void writeReplayData() throws Exception {
-    when(replayData.toByteArray()).thenReturn(replayBytes);
+    Path rawReplayFile = temporaryFolder.newFile("replay.scfareplay").toPath();
+    Files.write(rawReplayFile, replayBytes);
     replayInfo = new LocalReplayInfo();
     replayInfo.setUid(uid);
     replayInfo.setRecorder(recorder);
-    instance.writeReplayDataToFile(replayData, replayInfo);
-    assertTrue(Files.exists(Path.of(replayFileName)));
-    Files.deleteIfExists(Path.of(replayFileName));
+    instance.writeReplayDataToFile(rawReplayFile, replayInfo);
+
+    Path replayFile = temporaryFolder.getRoot().toPath().resolve("replays").resolve(replayFileName);
+    assertTrue(Files.exists(replayFile));
+
+    ReplayFileReaderImpl replayFileReader = new ReplayFileReaderImpl();
+    assertThat(replayFileReader.parseMetaData(replayFile).getUid(), is(uid));
+    assertArrayEquals(replayBytes, replayFileReader.readRawReplayData(replayFile));
+    List<String> lines = Files.readAllLines(replayFile);
+    assertArrayEquals(replayBytes, QtCompress.qUncompress(BaseEncoding.base64().decode(lines.get(1))));
+    verify(applicationEventPublisher).publishEvent(new ReplayWrittenEvent(replayFile));
   }
 }
 
@@ -0,0 +1,103 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.notification.NotificationService;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.domain.GameStatus;
+import com.faforever.client.update.ClientUpdateService;
+import com.faforever.client.user.UserService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplayServerImplTest {
+
+  @Rule
+  public TemporaryFolder recordingsDirectory = new TemporaryFolder();
+
+  @Mock
+  private ClientProperties clientProperties;
+  @Mock
+  private NotificationService notificationService;
+  @Mock
+  private I18n i18n;
+  @Mock
+  private UserService userService;
+  @Mock
+  private ReplayFileWriter replayFileWriter;
+  @Mock
+  private ClientUpdateService clientUpdateService;
+  @Mock
+  private PreferencesService preferencesService;
+
+  private ReplayServerImpl instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new ReplayServerImpl(clientProperties, notificationService, i18n, userService, replayFileWriter,
+        clientUpdateService, preferencesService, MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void testLeftoverRecordingIsConvertedToReplayFile() throws Exception {
+    when(userService.getUsername()).thenReturn("junit");
+    Path recordingFile = recordingsDirectory.getRoot().toPath().resolve("4711-123.scfareplay");
+    Files.write(recordingFile, new byte[]{1, 2, 3});
+
+    instance.recoverRecording(recordingFile);
+
+    ArgumentCaptor<LocalReplayInfo> captor = ArgumentCaptor.forClass(LocalReplayInfo.class);
+    verify(replayFileWriter).writeReplayDataToFile(eq(recordingFile), captor.capture());
+    LocalReplayInfo replayInfo = captor.getValue();
+    assertThat(replayInfo.getUid(), is(4711));
+    assertThat(replayInfo.getRecorder(), is("junit"));
+    assertThat(replayInfo.getState(), is(GameStatus.UNKNOWN));
+    assertThat(replayInfo.isComplete(), is(false));
+    assertThat(Files.exists(recordingFile), is(false));
+  }
+
+  @Test
+  public void testEmptyLeftoverRecordingIsDeleted() throws Exception {
+    Path recordingFile = Files.createFile(recordingsDirectory.getRoot().toPath().resolve("4711-123.scfareplay"));
+
+    instance.recoverRecording(recordingFile);
+
+    verify(replayFileWriter, never()).writeReplayDataToFile(any(), any());
+    assertThat(Files.exists(recordingFile), is(false));
+  }
+
+  @Test
+  public void testUnrecoverableRecordingIsMovedAside() throws Exception {
+    Path corruptedReplaysDirectory = recordingsDirectory.getRoot().toPath().resolve("corrupt");
+    when(preferencesService.getCorruptedReplaysDirectory()).thenReturn(corruptedReplaysDirectory);
+    Path recordingFile = recordingsDirectory.getRoot().toPath().resolve("4711-123.scfareplay");
+    Files.write(recordingFile, new byte[]{1, 2, 3});
+    doThrow(new IOException("Disk full")).when(replayFileWriter).writeReplayDataToFile(eq(recordingFile), any());
+
+    instance.recoverRecording(recordingFile);
+
+    assertThat(Files.exists(recordingFile), is(false));
+    assertThat(Files.exists(corruptedReplaysDirectory.resolve("4711-123.scfareplay")), is(true));
+  }
+}
@@ -2,9 +2,11 @@ package com.faforever.client.replay;
 
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.fx.PlatformService;
+import com.faforever.client.game.FeaturedModBeanBuilder;
 import com.faforever.client.game.GameService;
 import com.faforever.client.game.KnownFeaturedMod;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.map.MapBean;
 import com.faforever.client.map.MapBeanBuilder;
 import com.faforever.client.map.MapService;
 import com.faforever.client.map.generator.MapGeneratorService;
@@ -14,6 +16,8 @@ import com.faforever.client.notification.PersistentNotification;
 import com.faforever.client.player.PlayerService;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.FafService;
+import com.faforever.client.replay.ReplaySummaryCache.ReplaySummary;
+import com.faforever.client.replay.ReplaySummaryCache.SummaryChatMessage;
 import com.faforever.client.reporting.ReportingService;
 import com.faforever.client.task.TaskService;
 import com.faforever.client.test.FakeTestException;
@@ -21,8 +25,8 @@ import com.faforever.client.user.UserService;
 import com.faforever.client.util.Tuple;
 import com.faforever.client.vault.search.SearchController.SortConfig;
 import com.faforever.client.vault.search.SearchController.SortOrder;
-import com.faforever.commons.replay.ReplayData;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,21 +37,26 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationContext;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
-import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
@@ -60,6 +69,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -175,13 +185,22 @@ public class ReplayServiceTest {
   private ExecutorService executorService;
   @Mock
   private UserService userService;
+  @Mock
+  private LiveReplayHub liveReplayHub;
+  @Mock
+  private ReplaySummaryCache replaySummaryCache;
+  @Mock
+  private LocalReplaySearchIndex localReplaySearchIndex;
+  @Mock
+  private ReplayDownloadStore replayDownloadStore;
 
   @Before
   public void setUp() throws Exception {
     MockitoAnnotations.initMocks(this);
 
     instance = new ReplayService(new ClientProperties(), preferencesService, userService, replayFileReader, notificationService, gameService, playerService,
-        taskService, i18n, reportingService, applicationContext, platformService, fafService, modService, mapService, publisher);
+        taskService, i18n, reportingService, applicationContext, platformService, fafService, modService, mapService, publisher,
+        new LocalReplayIndex(preferencesService, replayFileReader, MoreExecutors.newDirectExecutorService()), liveReplayHub, replaySummaryCache, localReplaySearchIndex, replayDownloadStore);
 
     when(preferencesService.getReplaysDirectory()).thenReturn(replayDirectory.getRoot().toPath());
     when(preferencesService.getCorruptedReplaysDirectory()).thenReturn(replayDirectory.getRoot().toPath().resolve("corrupt"));
@@ -265,16 +284,48 @@ public class ReplayServiceTest {
     LocalReplayInfo localReplayInfo = new LocalReplayInfo();
     localReplayInfo.setUid(123);
     localReplayInfo.setTitle("title");
+    localReplayInfo.setFeaturedMod("faf");
+    localReplayInfo.setMapname("installed_map");
 
     when(replayFileReader.parseMetaData(file1)).thenReturn(localReplayInfo);
-    when(modService.getFeaturedMod(any())).thenReturn(CompletableFuture.completedFuture(null));
-    when(mapService.findByMapFolderName(any())).thenReturn(CompletableFuture.completedFuture(Optional.of(MapBeanBuilder.create().defaultValues().get())));
+    when(modService.getFeaturedMods()).thenReturn(CompletableFuture.completedFuture(singletonList(FeaturedModBeanBuilder.create().defaultValues().get())));
+    MapBean map = MapBeanBuilder.create().defaultValues().get();
+    when(mapService.getMapLocallyFromName("installed_map")).thenReturn(Optional.of(map));
 
     Collection<Replay> localReplays = instance.loadLocalReplayPage(1, 1).get().getFirst();
 
     assertThat(localReplays, hasSize(1));
     assertThat(localReplays.iterator().next().getId(), is(123));
     assertThat(localReplays.iterator().next().getTitle(), is("title"));
+    assertThat(localReplays.iterator().next().getMap(), is(map));
+    verify(mapService, never()).findByMapFolderNames(any());
+  }
+
+  @Test
+  public void testLoadLocalReplaysResolvesMissingMapsInOneLookup() throws Exception {
+    Path file1 = replayDirectory.newFile("replay.fafreplay").toPath();
+    Path file2 = replayDirectory.newFile("replay2.fafreplay").toPath();
+
+    LocalReplayInfo replayInfo1 = new LocalReplayInfo();
+    replayInfo1.setFeaturedMod("faf");
+    replayInfo1.setMapname("Remote_Map");
+    LocalReplayInfo replayInfo2 = new LocalReplayInfo();
+    replayInfo2.setFeaturedMod("faf");
+    replayInfo2.setMapname("remote_map");
+
+    when(replayFileReader.parseMetaData(file1)).thenReturn(replayInfo1);
+    when(replayFileReader.parseMetaData(file2)).thenReturn(replayInfo2);
+    when(modService.getFeaturedMods()).thenReturn(CompletableFuture.completedFuture(singletonList(FeaturedModBeanBuilder.create().defaultValues().get())));
+    when(mapService.getMapLocallyFromName(any())).thenReturn(Optional.empty());
+    MapBean map = MapBeanBuilder.create().defaultValues().get();
+    when(mapService.findByMapFolderNames(any())).thenReturn(CompletableFuture.completedFuture(Map.of("remote_map", map)));
+
+    List<Replay> localReplays = instance.loadLocalReplayPage(2, 1).get().getFirst();
+
+    assertThat(localReplays, hasSize(2));
+    verify(mapService).findByMapFolderNames(Set.of("remote_map"));
+    assertThat(localReplays.get(0).getMap(), is(map));
+    assertThat(localReplays.get(1).getMap(), is(map));
   }
 
   @Test
@@ -292,7 +343,7 @@ public class ReplayServiceTest {
     replayInfo.setMapname(TEST_MAP_NAME);
 
     when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    stubRawReplayData(replayFile, REPLAY_FIRST_BYTES);
 
 
     instance.runReplay(replay);
@@ -316,7 +367,7 @@ public class ReplayServiceTest {
     replayInfo.setMapname("None");
 
     when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES_GENERATED_MAP);
+    stubRawReplayData(replayFile, REPLAY_FIRST_BYTES_GENERATED_MAP);
     when(mapGeneratorService.isGeneratedMap(TEST_MAP_NAME_GENERATED)).thenReturn(true);
 
 
@@ -359,7 +410,7 @@ public class ReplayServiceTest {
     Path replayFile = replayDirectory.newFile("replay.fafreplay").toPath();
 
     doThrow(new FakeTestException()).when(replayFileReader).parseMetaData(replayFile);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    stubRawReplayData(replayFile, REPLAY_FIRST_BYTES);
 
     Replay replay = new Replay();
     replay.setReplayFile(replayFile);
@@ -385,6 +436,22 @@ public class ReplayServiceTest {
     assertEquals("startTime", sortCatcher.getValue().getSortProperty());
   }
 
+  @Test
+  public void testConcurrentDownloadsOfSameReplayAreShared() throws Exception {
+    CompletableFuture<Path> download = new CompletableFuture<>();
+    ReplayDownloadTask replayDownloadTask = mock(ReplayDownloadTask.class);
+    when(replayDownloadTask.getFuture()).thenReturn(download);
+    when(applicationContext.getBean(ReplayDownloadTask.class)).thenReturn(replayDownloadTask);
+
+    CompletableFuture<Path> first = instance.downloadReplay(123);
+    CompletableFuture<Path> second = instance.downloadReplay(123);
+    download.complete(Paths.get("123.fafreplay"));
+    instance.downloadReplay(123);
+
+    assertThat(second, is(first));
+    verify(taskService, times(2)).submitTask(replayDownloadTask);
+  }
+
   @Test
   public void testRunFafOnlineReplay() throws Exception {
     Path replayFile = replayDirectory.newFile("replay.fafreplay").toPath();
@@ -402,7 +469,7 @@ public class ReplayServiceTest {
     replayInfo.setMapname(TEST_MAP_NAME);
 
     when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    stubRawReplayData(replayFile, REPLAY_FIRST_BYTES);
 
     instance.runReplay(replay);
 
@@ -451,6 +518,20 @@ public class ReplayServiceTest {
     when(gameService.runWithLiveReplay(any(URI.class), anyInt(), anyString(), anyString()))
         .thenReturn(CompletableFuture.completedFuture(null));
 
+    when(liveReplayHub.getLocalReplayUri(123, "example.com", 15000, "/123/456.scfareplay"))
+        .thenReturn(new URI("gpgnet://127.0.0.1:1234/123/456.scfareplay"));
+
+    instance.runLiveReplay(new URI("faflive://example.com/123/456.scfareplay?mod=faf&map=map%20name"));
+
+    verify(gameService).runWithLiveReplay(new URI("gpgnet://127.0.0.1:1234/123/456.scfareplay"), 123, "faf", "map name");
+  }
+
+  @Test
+  public void testRunLiveReplayWithoutHub() throws Exception {
+    when(gameService.runWithLiveReplay(any(URI.class), anyInt(), anyString(), anyString()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(liveReplayHub.getLocalReplayUri(anyInt(), anyString(), anyInt(), anyString())).thenThrow(new IOException("junit"));
+
     instance.runLiveReplay(new URI("faflive://example.com/123/456.scfareplay?mod=faf&map=map%20name"));
 
     verify(gameService).runWithLiveReplay(new URI("gpgnet://example.com/123/456.scfareplay"), 123, "faf", "map name");
@@ -459,10 +540,24 @@ public class ReplayServiceTest {
   @Test
   public void testEnrich() throws Exception {
     Path path = Paths.get("foo.bar");
-    when(replayFileReader.parseReplay(path)).thenReturn(new ReplayData(emptyList(), emptyList()));
+    SummaryChatMessage chatMessage = new SummaryChatMessage();
+    chatMessage.setTimeMillis(1500);
+    chatMessage.setSender("junit");
+    chatMessage.setMessage("gl hf");
+    ReplaySummary replaySummary = new ReplaySummary();
+    replaySummary.getChatMessages().add(chatMessage);
+    when(replaySummaryCache.getSummary(path)).thenReturn(replaySummary);
+
+    Replay replay = new Replay();
+    instance.enrich(replay, path);
 
-    instance.enrich(new Replay(), path);
+    assertThat(replay.getChatMessages(), hasSize(1));
+    assertThat(replay.getChatMessages().get(0).getTime(), is(Duration.ofMillis(1500)));
+    assertThat(replay.getChatMessages().get(0).getMessage(), is("gl hf"));
+    assertThat(replay.getGameOptions(), empty());
+  }
 
-    verify(replayFileReader).parseReplay(path);
+  private void stubRawReplayData(Path replayFile, byte[] rawReplayData) throws IOException {
+    when(replayFileReader.openRawReplayData(replayFile)).thenAnswer(invocation -> new ByteArrayInputStream(rawReplayData));
   }
 }
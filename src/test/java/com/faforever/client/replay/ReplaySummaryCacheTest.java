@@ -0,0 +1,115 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.replay.ReplaySummaryCache.ReplaySummary;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplaySummaryCacheTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder replayDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+  @Mock
+  private ReplayFileReader replayFileReader;
+
+  private ReplaySummaryCache instance;
+
+  @Before
+  public void setUp() throws Exception {
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    // The replay files of these tests only differ in content, the binary data is always the one of a real replay
+    byte[] rawReplayData = new ReplayFileReaderImpl().readRawReplayData(Paths.get(getClass().getResource("/replay/test.fafreplay").toURI()));
+    when(replayFileReader.openRawReplayData(any())).thenAnswer(invocation -> new ByteArrayInputStream(rawReplayData));
+
+    instance = new ReplaySummaryCache(preferencesService, replayFileReader, MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void testReplayIsParsedOnlyOnce() throws Exception {
+    Path replayFile = createReplayFile("1.fafreplay", "replay data");
+
+    ReplaySummary summary = instance.getSummary(replayFile);
+    instance.getSummary(replayFile);
+
+    assertThat(summary.getChatMessages(), hasSize(7));
+    assertThat(summary.getChatMessages().get(0).getSender(), is("kubkolienka"));
+    assertThat(summary.getChatMessages().get(0).getTimeMillis(), is(30_500L));
+    assertThat(summary.getGameOptions(), hasItem(allOf(hasProperty("key", is("Victory")), hasProperty("value", is("demoralization")))));
+    assertThat(summary.getDurationMillis(), is(260_700L));
+    assertThat(summary.getArmies(), hasSize(8));
+    assertThat(summary.getCommandCounts(), hasEntry("Downlord", 0));
+    assertThat(summary.getCommandCounts(), hasEntry("sandwormsurfer", 64));
+    verify(replayFileReader, times(1)).openRawReplayData(replayFile);
+  }
+
+  @Test
+  public void testSummaryIsPersistedByContent() throws Exception {
+    Path replayFile = createReplayFile("1.fafreplay", "replay data");
+    instance.getSummary(replayFile);
+
+    // Simulates a restart, the same replay has been downloaded again
+    instance = new ReplaySummaryCache(preferencesService, replayFileReader, MoreExecutors.newDirectExecutorService());
+    Path copy = createReplayFile("2.fafreplay", "replay data");
+
+    assertThat(instance.getSummary(copy), notNullValue());
+    verify(replayFileReader, times(1)).openRawReplayData(any());
+  }
+
+  @Test
+  public void testChangedReplayIsParsedAgain() throws Exception {
+    Path replayFile = createReplayFile("1.fafreplay", "replay data");
+    instance.getSummary(replayFile);
+
+    Files.writeString(replayFile, "other replay data");
+    instance.getSummary(replayFile);
+
+    verify(replayFileReader, times(2)).openRawReplayData(replayFile);
+  }
+
+  @Test
+  public void testSummarizeInBackground() throws Exception {
+    Path first = createReplayFile("1.fafreplay", "first replay");
+    Path second = createReplayFile("2.fafreplay", "second replay");
+
+    instance.summarizeInBackground(List.of(first, second));
+    instance.getSummary(first);
+
+    verify(replayFileReader, times(1)).openRawReplayData(first);
+    verify(replayFileReader, times(1)).openRawReplayData(second);
+  }
+
+  private Path createReplayFile(String name, String content) throws Exception {
+    return Files.writeString(replayDirectory.getRoot().toPath().resolve(name), content);
+  }
+}
@@ -0,0 +1,65 @@
+package com.faforever.client.util;
+
+import org.junit.Test;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LuaUtilTest {
+
+  @Test
+  public void testScenarioIsParsedWithoutLuaJ() throws Exception {
+    Path scenarioFile = Paths.get(getClass().getResource("/maps/SCMP_001/SCMP_001_scenario.lua").toURI());
+
+    LuaValue luaRoot = LuaUtil.loadFile(scenarioFile);
+
+    assertThat(luaRoot, instanceOf(LuaTable.class));
+    LuaValue scenarioInfo = luaRoot.get("ScenarioInfo");
+    assertThat(scenarioInfo.get("name").tojstring(), is("Burial Mounds"));
+    assertThat(scenarioInfo.get("size").get(1).toint(), is(1024));
+    assertThat(scenarioInfo.get("map_version").tojstring(), is("1"));
+    assertThat(scenarioInfo.get("norushoffsetY_ARMY_2").todouble(), is(-15.0));
+    assertThat(scenarioInfo.get("Configurations").get("standard").get("teams").get(1).get("armies").length(), is(8));
+    assertThat(scenarioInfo.get("Configurations").get("standard").get("customprops").get("ExtraArmies").tojstring(),
+        is("ARMY_9 NEUTRAL_CIVILIAN"));
+  }
+
+  @Test
+  public void testLiterals() throws Exception {
+    LuaValue luaRoot = load("-- comment\n"
+        + "a = { 'x\\'y\\65', [[long\nstring]], 0x10, 1e3, .5, true, nil, false; [10] = 'ten', key = { }, }\n"
+        + "b = \"\\\"quoted\\\"\";");
+
+    LuaValue a = luaRoot.get("a");
+    assertThat(a.get(1).tojstring(), is("x'yA"));
+    assertThat(a.get(2).tojstring(), is("long\nstring"));
+    assertThat(a.get(3).toint(), is(16));
+    assertThat(a.get(4).toint(), is(1000));
+    assertThat(a.get(5).todouble(), is(0.5));
+    assertThat(a.get(6).toboolean(), is(true));
+    assertThat(a.get(10).tojstring(), is("ten"));
+    assertThat(a.get("key").istable(), is(true));
+    assertThat(luaRoot.get("b").tojstring(), is("\"quoted\""));
+  }
+
+  @Test
+  public void testCodeIsRunByLuaJ() throws Exception {
+    LuaValue luaRoot = load("local size = 512\nScenarioInfo = { size = { size, size * 2 } }");
+
+    assertThat(luaRoot, instanceOf(Globals.class));
+    assertThat(luaRoot.get("ScenarioInfo").get("size").get(2).toint(), is(1024));
+  }
+
+  private static LuaValue load(String source) throws Exception {
+    return LuaUtil.load(new ByteArrayInputStream(source.getBytes(UTF_8)));
+  }
+}